@@ -26,24 +26,42 @@ package com.mastfrog.giulius.annotation.processors;
 import com.mastfrog.annotation.AnnotationUtils;
 import static com.mastfrog.giulius.annotation.processors.NamespaceAnnotationProcessor.NEW_NAMESPACE_ANNOTATION_TYPE;
 import static com.mastfrog.giulius.annotation.processors.NamespaceAnnotationProcessor.OLD_NAMESPACE_ANNOTATION_TYPE;
+import static com.mastfrog.giulius.annotation.processors.NamespaceAnnotationProcessor.VALUE_ANNOTATION_TYPE;
+import static com.mastfrog.giulius.annotation.processors.NamespaceAnnotationProcessor.GUICE_NAMED_ANNOTATION_TYPE;
+import static com.mastfrog.giulius.annotation.processors.NamespaceAnnotationProcessor.JSR_330_NAMED_ANNOTATION_TYPE;
 import com.mastfrog.annotation.registries.AbstractLineOrientedRegistrationAnnotationProcessor;
 import com.mastfrog.util.service.ServiceProvider;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
 
 /**
+ * Records non-default namespaces in <code>namespaces.list</code>, and the
+ * &#064;Named and &#064;Value injection points in a source tree, with their
+ * types, in <code>injection-points.list</code>, so that settings bindings can
+ * be limited to those actually used. Does not claim the annotations it
+ * processes, so other processors may also handle &#064;Named.
  *
  * @author Tim Boudreau
  */
 @ServiceProvider(Processor.class)
 @SupportedAnnotationTypes({OLD_NAMESPACE_ANNOTATION_TYPE, "com.mastfrog.guicy.annotations.Value",
-    NEW_NAMESPACE_ANNOTATION_TYPE, "com.mastfrog.giulius.annotations.Value"})
+    NEW_NAMESPACE_ANNOTATION_TYPE, VALUE_ANNOTATION_TYPE,
+    GUICE_NAMED_ANNOTATION_TYPE, JSR_330_NAMED_ANNOTATION_TYPE})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class NamespaceAnnotationProcessor extends AbstractLineOrientedRegistrationAnnotationProcessor {
 
@@ -57,6 +75,15 @@ public class NamespaceAnnotationProcessor extends AbstractLineOrientedRegistrati
 
     static final String OLD_NAMESPACE_ANNOTATION_TYPE = "com.mastfrog.guicy.annotations.Namespace";
     static final String NEW_NAMESPACE_ANNOTATION_TYPE = "com.mastfrog.giulius.annotations.Namespace";
+    static final String VALUE_ANNOTATION_TYPE = "com.mastfrog.giulius.annotations.Value";
+    static final String GUICE_NAMED_ANNOTATION_TYPE = "com.google.inject.name.Named";
+    static final String JSR_330_NAMED_ANNOTATION_TYPE = "javax.inject.Named";
+    /**
+     * Index of injection points, one per line, of the form
+     * <code>named $TYPE * $KEY</code> or
+     * <code>value $TYPE $NAMESPACE $KEY</code>.
+     */
+    public static final String INJECTION_POINTS_LIST = DEFAULT_PATH + "injection-points.list";
 
     public NamespaceAnnotationProcessor() {
         super(true);
@@ -88,8 +115,23 @@ public class NamespaceAnnotationProcessor extends AbstractLineOrientedRegistrati
         return result;
     }
 
+    @Override
+    public boolean handleProcess(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv, AnnotationUtils utils) {
+        super.handleProcess(annotations, roundEnv, utils);
+        return false;
+    }
+
     @Override
     protected void handleOne(Element e, AnnotationMirror anno, int order, AnnotationUtils utils) {
+        String annoType = anno.getAnnotationType().toString();
+        boolean named = GUICE_NAMED_ANNOTATION_TYPE.equals(annoType)
+                || JSR_330_NAMED_ANNOTATION_TYPE.equals(annoType);
+        if (named || VALUE_ANNOTATION_TYPE.equals(annoType)) {
+            addInjectionPoint(e, anno, named, utils);
+            if (named) {
+                return;
+            }
+        }
         String ns = namespaceFor(anno, utils);
         if (!DEFAULT_NAMESPACE.equals(ns)) {
             if (testNamespace(ns, e, anno)) {
@@ -98,6 +140,39 @@ public class NamespaceAnnotationProcessor extends AbstractLineOrientedRegistrati
         }
     }
 
+    private void addInjectionPoint(Element e, AnnotationMirror anno, boolean named, AnnotationUtils utils) {
+        if (e.getKind() != ElementKind.FIELD && e.getKind() != ElementKind.PARAMETER) {
+            // @Named on a @Provides method is a binding, not an injection point
+            return;
+        }
+        String key = utils.annotationValue(anno, "value", String.class);
+        String type = injectedType(e.asType());
+        if (key == null || type == null || key.indexOf('\n') >= 0) {
+            return;
+        }
+        String ns = named ? "*" : namespaceFor(anno, utils);
+        addLine(INJECTION_POINTS_LIST, (named ? "named " : "value ") + type + " "
+                + ns + " " + key, e);
+    }
+
+    private String injectedType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type)
+                    .getQualifiedName().toString();
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        DeclaredType dt = (DeclaredType) type;
+        String name = ((TypeElement) dt.asElement()).getQualifiedName().toString();
+        List<? extends TypeMirror> args = dt.getTypeArguments();
+        if (("javax.inject.Provider".equals(name) || "com.google.inject.Provider".equals(name))
+                && args.size() == 1) {
+            return injectedType(args.get(0));
+        }
+        return name;
+    }
+
     private Character firstIllegalCharacter(String s, Element on, AnnotationMirror anno) {
         char[] test = s.toCharArray();
         Arrays.sort(test);
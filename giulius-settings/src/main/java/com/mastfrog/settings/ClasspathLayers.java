@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM-wide cache of properties files located on the classpath, by class
+ * loader and resource path. Classpath resources do not change for the life of
+ * a class loader, so each is looked up and parsed once, no matter how many
+ * SettingsBuilders (and the Dependencies which use them) ask for it - the
+ * parsed Properties are never modified afterwards, and are only exposed
+ * through read-only settings. Class loaders are held weakly, so per-tenant or
+ * per-test loaders do not leak.
+ *
+ * @author Tim Boudreau
+ */
+final class ClasspathLayers {
+
+    private static final Map<ClassLoader, Map<String, Entry>> LAYERS = new WeakHashMap<>();
+
+    private ClasspathLayers() {
+        throw new AssertionError();
+    }
+
+    static Entry locate(ClassLoader ldr, String location) throws IOException {
+        return locate(ldr, location, ClasspathSnapshot.isActive());
+    }
+
+    static Entry locate(ClassLoader ldr, String location, boolean useSnapshot) throws IOException {
+        Map<String, Entry> forLoader;
+        synchronized (LAYERS) {
+            forLoader = LAYERS.computeIfAbsent(ldr, l -> new ConcurrentHashMap<>());
+        }
+        Entry result = forLoader.get(location);
+        if (result == null) {
+            // In a native image, the defaults were captured at build time;
+            // locations the snapshot does not know about (files added by
+            // path, @Namespace locations) are still looked up as usual
+            Properties snapshot = useSnapshot ? ClasspathSnapshot.get(location) : null;
+            if (snapshot != null) {
+                result = new Entry(snapshot);
+            } else {
+                List<URL> urls = Collections.list(ldr.getResources(location));
+                result = new Entry(urls.isEmpty() ? Collections.emptyList()
+                        : Collections.unmodifiableList(urls));
+            }
+            Entry old = forLoader.putIfAbsent(location, result);
+            if (old != null) {
+                result = old;
+            }
+        }
+        return result;
+    }
+
+    static void clear() {
+        synchronized (LAYERS) {
+            LAYERS.clear();
+        }
+    }
+
+    /**
+     * The resources found for one path, and their contents, parsed on first
+     * use.
+     */
+    static final class Entry {
+
+        final List<URL> urls;
+        private volatile Properties properties;
+
+        Entry(List<URL> urls) {
+            this.urls = urls;
+        }
+
+        Entry(Properties snapshot) {
+            this.urls = Collections.emptyList();
+            this.properties = snapshot;
+        }
+
+        boolean isEmpty() {
+            return urls.isEmpty() && properties == null;
+        }
+
+        Properties properties() throws IOException {
+            Properties result = properties;
+            if (result == null) {
+                synchronized (this) {
+                    result = properties;
+                    if (result == null) {
+                        // Later resources override earlier ones, the same
+                        // as adding each as its own layer would
+                        result = new Properties();
+                        for (URL url : urls) {
+                            try (InputStream in = url.openStream()) {
+                                result.load(in);
+                            }
+                        }
+                        properties = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
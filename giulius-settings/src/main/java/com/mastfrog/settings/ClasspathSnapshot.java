@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import static com.mastfrog.settings.SettingsBuilder.DEFAULT_EXTENSION;
+import static com.mastfrog.settings.SettingsBuilder.DEFAULT_NAMESPACE;
+import static com.mastfrog.settings.SettingsBuilder.DEFAULT_PATH;
+import static com.mastfrog.settings.SettingsBuilder.GENERATED_PREFIX;
+import static com.mastfrog.settings.SettingsBuilder.ORIG_DEFAULTS_PATH;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The classpath defaults for every namespace listed in
+ * <code>META-INF/settings/namespaces.list</code>, captured when this class is
+ * initialized. In a GraalVM native image this class is initialized at build
+ * time (see this JAR's <code>native-image.properties</code>), so the parsed
+ * defaults are baked into the image heap and, when the image runs, classpath
+ * layers are served from the snapshot without locating or parsing anything.
+ * Locations it does not contain are looked up on the classpath as usual.
+ * On an ordinary JVM the snapshot is never consulted, or initialized.
+ *
+ * @author Tim Boudreau
+ */
+final class ClasspathSnapshot {
+
+    private static final Map<String, Properties> SNAPSHOT;
+
+    static {
+        Map<String, Properties> snapshot;
+        try {
+            ClassLoader ldr = ClasspathSnapshot.class.getClassLoader();
+            snapshot = capture(ldr == null ? ClassLoader.getSystemClassLoader() : ldr);
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+            snapshot = Collections.emptyMap();
+        }
+        SNAPSHOT = snapshot;
+    }
+
+    private ClasspathSnapshot() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Determine if we are running in a native image, in which case classpath
+     * layers should come from the snapshot.
+     *
+     * @return true if in a native image at run time
+     */
+    static boolean isActive() {
+        return "runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode"));
+    }
+
+    /**
+     * Get the snapshotted contents of a classpath location.
+     *
+     * @param location A resource path
+     * @return The merged properties, or null if the location was not
+     * snapshotted
+     */
+    static Properties get(String location) {
+        return SNAPSHOT.get(location);
+    }
+
+    static Map<String, Properties> capture(ClassLoader ldr) throws IOException {
+        Set<String> namespaces = new LinkedHashSet<>();
+        namespaces.add(DEFAULT_NAMESPACE);
+        for (URL url : Collections.list(ldr.getResources(DEFAULT_PATH + "namespaces.list"))) {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(url.openStream(), UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && line.charAt(0) != '#') {
+                        namespaces.add(line);
+                    }
+                }
+            }
+        }
+        Map<String, Properties> result = new HashMap<>();
+        snapshot(ldr, ORIG_DEFAULTS_PATH, result);
+        for (String ns : namespaces) {
+            snapshot(ldr, DEFAULT_PATH + GENERATED_PREFIX + ns + DEFAULT_EXTENSION, result);
+            snapshot(ldr, DEFAULT_PATH + ns + DEFAULT_EXTENSION, result);
+        }
+        return result;
+    }
+
+    private static void snapshot(ClassLoader ldr, String location, Map<String, Properties> into) throws IOException {
+        List<URL> urls = Collections.list(ldr.getResources(location));
+        if (!urls.isEmpty()) {
+            Properties props = new Properties();
+            for (URL url : urls) {
+                try (InputStream in = url.openStream()) {
+                    props.load(in);
+                }
+            }
+            into.put(location, props);
+        }
+    }
+}
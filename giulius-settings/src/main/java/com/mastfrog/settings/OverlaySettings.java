@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A small set of overrides over some other Settings, stored in the arrays it
+ * was passed and searched linearly - for per-request overrides, where the
+ * number of overridden keys is small and the cost of creating a Properties,
+ * LayeredSettings or WritableSettings per request is not acceptable. A null
+ * value hides any value for that key in the base settings.
+ *
+ * @author Tim Boudreau
+ */
+final class OverlaySettings implements Settings {
+
+    private final Settings base;
+    private final String[] keys;
+    private final String[] values;
+
+    OverlaySettings(Settings base, String[] keys, String[] values) {
+        this.base = base;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    private int indexOf(String name) {
+        String[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (name.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getString(String name) {
+        int ix = indexOf(name);
+        return ix < 0 ? base.getString(name) : values[ix];
+    }
+
+    @Override
+    public String getString(String name, String defaultValue) {
+        int ix = indexOf(name);
+        if (ix < 0) {
+            return base.getString(name, defaultValue);
+        }
+        String result = values[ix];
+        return result == null ? defaultValue : result;
+    }
+
+    @Override
+    public Set<String> allKeys() {
+        Set<String> result = new HashSet<>(base.allKeys());
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] == null) {
+                result.remove(keys[i]);
+            } else {
+                result.add(keys[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Properties toProperties() {
+        Properties result = new Properties();
+        for (String key : allKeys()) {
+            String val = getString(key);
+            if (val != null) {
+                result.setProperty(key, val);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return allKeys().iterator();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("overlay{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append("} over ").append(base).toString();
+    }
+}
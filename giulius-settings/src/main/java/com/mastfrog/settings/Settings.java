@@ -532,6 +532,32 @@ public interface Settings extends Iterable<String> {
      */
     public Properties toProperties();
 
+    /**
+     * Create a lightweight Settings which returns the passed values for the
+     * passed keys, and otherwise falls through to this one. Intended for
+     * per-request overrides - no copies are made, and the arrays are searched
+     * linearly, so this is appropriate for a handful of keys; the caller must
+     * not modify the arrays afterwards. A null value hides any value this
+     * Settings has for that key.
+     *
+     * @param keys The keys to override
+     * @param values The values, index-for-index with the keys
+     * @return A Settings
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    default Settings overlay(String[] keys, String[] values) {
+        Checks.notNull("keys", keys);
+        Checks.notNull("values", values);
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Have " + keys.length
+                    + " keys but " + values.length + " values");
+        }
+        if (keys.length == 0) {
+            return this;
+        }
+        return new OverlaySettings(this, keys, values);
+    }
+
     default Settings withPrefix(String pfx) {
         if (Checks.notNull("pfx", pfx).length() == 0) {
             return this;
@@ -36,6 +36,8 @@ import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.ProtectionDomain;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -50,6 +52,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 
 /**
@@ -80,17 +83,29 @@ public final class SettingsBuilder {
      */
     public static final String DEFAULT_EXTENSION = ".properties";
 
-    private static final String ORIG_DEFAULTS_PATH = DEFAULT_PATH + "_generated-original.properties";
+    static final String ORIG_DEFAULTS_PATH = DEFAULT_PATH + "_generated-original.properties";
     /**
      * Prefix used for settings files generated from annotations,
      * <code>generated-</code>
      */
     public static final String GENERATED_PREFIX = "generated-";
+    /**
+     * Settings key for a directory in which to journal changes made to a
+     * MutableSettings, if none was passed to <code>journal()</code>.
+     */
+    public static final String SETTINGS_KEY_JOURNAL_DIR = "settings.journal.dir";
+    /**
+     * The default maximum time, in milliseconds, between a change to a
+     * journaled MutableSettings and its being synced to disk.
+     */
+    public static final long DEFAULT_JOURNAL_SYNC_MILLIS = 1000;
     private static final String TRUE = "true";
     private final List<PropertiesSource> all = new ArrayList<>(7);
     private final Set<String> environmentKeys = new HashSet<>(12);
     private final String namespace;
     private boolean buildLoggingInstance;
+    private Path journalDir;
+    private long journalSyncMillis = DEFAULT_JOURNAL_SYNC_MILLIS;
 
     public SettingsBuilder() {
         this.namespace = DEFAULT_NAMESPACE;
@@ -130,6 +145,18 @@ public final class SettingsBuilder {
         return new SettingsBuilder(namespace);
     }
 
+    /**
+     * Properties files on the classpath are located and parsed once per class
+     * loader and shared JVM-wide by every SettingsBuilder; discard them, so
+     * classpath layers loaded after this re-read the classpath (a layer still
+     * shared by Settings in use is not reloaded). Only needed if resources
+     * visible to a live class loader can change, as with some hot-redeploy
+     * setups.
+     */
+    public static void clearClasspathCache() {
+        ClasspathLayers.clear();
+    }
+
     public SettingsBuilder logging() {
         buildLoggingInstance = true;
         return this;
@@ -281,7 +308,7 @@ public final class SettingsBuilder {
      * @return this
      */
     public SettingsBuilder addEnv() {
-        return add(new FixedPropertiesSource(new EnvironmentProperties(environmentKeys)));
+        return add(new EnvironmentSource(environmentKeys));
     }
 
     int sourceCount() {
@@ -474,11 +501,22 @@ public final class SettingsBuilder {
         if (isLog()) {
             log("Add cp " + location);
         }
-        InputStream[] streams = Streams.locate(location);
-        if (streams != null) {
-            for (InputStream in : streams) {
-                add(in);
+        if (location.contains("://") || location.startsWith("file:/")) {
+            InputStream[] streams = Streams.locate(location);
+            if (streams != null) {
+                for (InputStream in : streams) {
+                    add(in);
+                }
             }
+            return this;
+        }
+        try {
+            ClasspathSource src = ClasspathSource.locate(location);
+            if (src != null) {
+                add(src);
+            }
+        } catch (IOException ex) {
+            throw new ConfigurationError("Could not look up " + location, ex);
         }
         return this;
     }
@@ -566,6 +604,7 @@ public final class SettingsBuilder {
     private static class ShutdownRefreshTasks implements Runnable {
 
         Set<Bridge> bridges = new HashSet<>();
+        Set<SharedLayer.Lease> leases = new HashSet<>();
 
         @Override
         public void run() {
@@ -577,6 +616,14 @@ public final class SettingsBuilder {
                     it.remove();
                 }
             }
+            for (Iterator<SharedLayer.Lease> it = leases.iterator(); it.hasNext();) {
+                SharedLayer.Lease lease = it.next();
+                try {
+                    lease.release();
+                } finally {
+                    it.remove();
+                }
+            }
         }
     }
 
@@ -591,6 +638,7 @@ public final class SettingsBuilder {
         List<PropertiesSource> all = new LinkedList<>(this.all);
         Collections.reverse(all);
         Set<Bridge> bridges = new HashSet<>();
+        List<SharedLayer.Lease> leases = new ArrayList<>(3);
         log("BUILDING SETTINGS FOR NAMESPACE " + this.namespace + " FROM:");
         for (Iterator<PropertiesSource> it = all.iterator(); it.hasNext();) {
             PropertiesSource src = it.next();
@@ -598,8 +646,16 @@ public final class SettingsBuilder {
             if (isLog()) {
                 log("  " + src);
             }
+            Object sharingKey;
             if (src instanceof SettingsSource) {
                 settings.add(((SettingsSource) src).settings);
+            } else if ((sharingKey = src.sharingKey()) != null) {
+                // System properties, env and classpath resources are the same
+                // for every namespace, so share one layer and refresh task
+                SharedLayer.Lease lease = SharedLayer.acquire(sharingKey, src);
+                shutdownRunnable.leases.add(lease);
+                leases.add(lease);
+                settings.add(lease.settings());
             } else {
                 PropertiesSettings s = new PropertiesSettings(src + "");
                 Bridge bridge = new Bridge(src, s);
@@ -617,6 +673,9 @@ public final class SettingsBuilder {
         for (Bridge b : bridges) {
             b.ref = ref;
         }
+        for (SharedLayer.Lease lease : leases) {
+            lease.ownedBy(result);
+        }
         return buildLoggingInstance ? new LoggingSettings(result) : result;
     }
 
@@ -761,14 +820,65 @@ public final class SettingsBuilder {
     }
 
     /**
-     * Create a Settings which has a mutable, ephemeral layer which overrides
-     * the rest
+     * Persist changes made to settings created by
+     * <code>buildMutableSettings()</code> to an append-only journal named
+     * <code>$NAMESPACE.journal</code> in the passed directory, and replay any
+     * existing journal there when they are built. Writers never wait on disk;
+     * changes are synced in batches within the default interval of one
+     * second.
+     *
+     * @param dir The directory, which is created if it does not exist
+     * @return this
+     */
+    public SettingsBuilder journal(Path dir) {
+        return journal(dir, Duration.ofMillis(DEFAULT_JOURNAL_SYNC_MILLIS));
+    }
+
+    /**
+     * Persist changes made to settings created by
+     * <code>buildMutableSettings()</code> to an append-only journal named
+     * <code>$NAMESPACE.journal</code> in the passed directory, and replay any
+     * existing journal there when they are built.
+     *
+     * @param dir The directory, which is created if it does not exist
+     * @param syncInterval The maximum time between a change and its being
+     * synced to disk - the most that can be lost in a crash
+     * @return this
+     */
+    public SettingsBuilder journal(Path dir, Duration syncInterval) {
+        Checks.notNull("syncInterval", syncInterval);
+        Checks.greaterThanZero("syncInterval", syncInterval.toMillis());
+        this.journalDir = notNull("dir", dir);
+        this.journalSyncMillis = syncInterval.toMillis();
+        return this;
+    }
+
+    /**
+     * Create a Settings which has a mutable layer which overrides the rest.
+     * The layer is ephemeral unless a journal directory was set with
+     * <code>journal()</code> or the built settings contain
+     * <code>settings.journal.dir</code>, in which case changes are journaled
+     * there and replayed the next time mutable settings are built for this
+     * namespace.
      *
      * @return A mutable settings object
-     * @throws IOException If an error occurs loading any of the settings
+     * @throws IOException If an error occurs loading any of the settings or
+     * the journal
      */
     public MutableSettings buildMutableSettings() throws IOException {
-        return new WritableSettings(namespace, build());
+        Settings settings = build();
+        Path dir = journalDir;
+        if (dir == null) {
+            String configured = settings.getString(SETTINGS_KEY_JOURNAL_DIR);
+            if (configured != null) {
+                dir = Paths.get(configured);
+            }
+        }
+        if (dir == null) {
+            return new WritableSettings(namespace, settings);
+        }
+        return new WritableSettings(namespace, settings,
+                SettingsJournal.open(dir, namespace, journalSyncMillis));
     }
 
     /**
@@ -862,6 +972,19 @@ public final class SettingsBuilder {
         public final RefreshInterval getPollInterval() {
             return interval;
         }
+
+        /**
+         * If this source reads a physical source which other instances may
+         * also read, return a key which is equal for all of them; every
+         * Settings built over an equal key will then share one loaded layer
+         * and one refresh task, rather than one per SettingsBuilder. The
+         * default is null - not shared.
+         *
+         * @return A key or null
+         */
+        protected Object sharingKey() {
+            return null;
+        }
     }
 
     private static final class FixedPropertiesSource extends PropertiesSource {
@@ -974,12 +1097,89 @@ public final class SettingsBuilder {
             return System.getProperties();
         }
 
+        @Override
+        protected Object sharingKey() {
+            return "system-properties";
+        }
+
         @Override
         public String toString() {
             return "System Properties";
         }
     }
 
+    private static final class EnvironmentSource extends PropertiesSource {
+
+        private final Set<String> keys;
+
+        EnvironmentSource(Set<String> keys) {
+            this.keys = keys.isEmpty() ? Collections.emptySet()
+                    : Collections.unmodifiableSet(new TreeSet<>(keys));
+        }
+
+        @Override
+        public Properties getProperties() throws IOException {
+            return new EnvironmentProperties(keys);
+        }
+
+        @Override
+        protected Object sharingKey() {
+            return "env:" + keys;
+        }
+
+        @Override
+        public String toString() {
+            return keys.isEmpty() ? "Environment" : "Environment " + keys;
+        }
+    }
+
+    private static final class ClasspathSource extends PropertiesSource {
+
+        private final String location;
+        private final ClasspathLayers.Entry entry;
+        private final List<URL> urls;
+        private final String key;
+
+        ClasspathSource(String location, ClasspathLayers.Entry entry) {
+            this.location = location;
+            this.entry = entry;
+            this.urls = entry.urls;
+            StringBuilder sb = new StringBuilder("classpath:").append(location);
+            for (URL url : urls) {
+                // Use the string form - URL.equals() may do DNS lookups
+                sb.append('|').append(url.toExternalForm());
+            }
+            this.key = sb.toString();
+        }
+
+        static ClasspathSource locate(String location) throws IOException {
+            ClassLoader ldr = Thread.currentThread().getContextClassLoader();
+            if (ldr == null) {
+                ldr = SettingsBuilder.class.getClassLoader();
+            }
+            if (ldr == null) {
+                return null;
+            }
+            ClasspathLayers.Entry entry = ClasspathLayers.locate(ldr, location);
+            return entry.isEmpty() ? null : new ClasspathSource(location, entry);
+        }
+
+        @Override
+        public Properties getProperties() throws IOException {
+            return entry.properties();
+        }
+
+        @Override
+        protected Object sharingKey() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return "Classpath: " + location + " " + urls;
+        }
+    }
+
     private static final class UrlPropertiesSource extends PropertiesSource {
 
         private final URL url;
@@ -0,0 +1,524 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the changes made to a MutableSettings, so runtime
+ * changes survive a restart. Writers only queue a record and return; a single
+ * background thread per journal appends everything queued since its last pass
+ * in one write followed by one fsync, so at most one sync interval's worth of
+ * changes can be lost in a crash. When the file has grown well past the number
+ * of live keys, the same thread rewrites it as a snapshot of current state and
+ * atomically replaces the old file.
+ * <p>
+ * Each record is one line - <code>S</code> (set) or <code>C</code> (clear),
+ * the escaped key and value, and a CRC32 of the record, so a torn final write
+ * is detected and dropped on replay.
+ * </p>
+ * <p>
+ * Only one journal per file is open at a time: opening the same namespace and
+ * directory again in this JVM returns the journal already open, and an
+ * exclusive lock on a <code>.lock</code> file beside the journal keeps other
+ * processes from appending to it (or compacting it out from under us).
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+final class SettingsJournal {
+
+    static final String JOURNAL_EXTENSION = ".journal";
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final String LOCK_EXTENSION = ".lock";
+    // Open journals by real path; guarded by itself
+    private static final Map<Path, SettingsJournal> OPEN = new HashMap<>();
+    private static volatile boolean hookInstalled;
+    private final Path file;
+    private final long syncIntervalMillis;
+    // Current state - a null value is a cleared key
+    private final Map<String, String> state = new LinkedHashMap<>();
+    private List<String> pending = new ArrayList<>();
+    private final Object lock = new Object();
+    private final Object fileLock = new Object();
+    private int recordsInFile;
+    private boolean needsCompaction;
+    private volatile boolean closed;
+    private FileChannel channel;
+    private final FileChannel lockChannel;
+    private final FileLock fileSystemLock;
+    private final List<Reference<MutableSettings>> owners = new ArrayList<>();
+    private boolean started;
+
+    private SettingsJournal(Path file, long syncIntervalMillis) throws IOException {
+        this.file = file;
+        this.syncIntervalMillis = syncIntervalMillis;
+        Path lockFile = file.resolveSibling(file.getFileName() + LOCK_EXTENSION);
+        lockChannel = FileChannel.open(lockFile, CREATE, WRITE);
+        FileLock lk;
+        try {
+            lk = lockChannel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            lk = null;
+        }
+        if (lk == null) {
+            lockChannel.close();
+            throw new IOException("Settings journal " + file
+                    + " is in use by another process");
+        }
+        fileSystemLock = lk;
+    }
+
+    /**
+     * Open (creating if necessary) the journal for a namespace in the passed
+     * directory and replay it. If the journal for that file is already open
+     * in this JVM, that journal is returned.
+     *
+     * @param dir The directory
+     * @param namespace The settings namespace
+     * @param syncIntervalMillis The maximum time between a change and its
+     * being synced to disk
+     * @return A journal
+     * @throws IOException If the file cannot be read or created, or another
+     * process has it open
+     */
+    static SettingsJournal open(Path dir, String namespace, long syncIntervalMillis) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.toRealPath().resolve(namespace.replace('/', '_')
+                .replace('\\', '_') + JOURNAL_EXTENSION);
+        synchronized (OPEN) {
+            SettingsJournal result = OPEN.get(file);
+            if (result != null && !result.isClosed()) {
+                return result;
+            }
+            result = new SettingsJournal(file, syncIntervalMillis);
+            try {
+                result.replay();
+            } catch (IOException | RuntimeException ex) {
+                result.releaseLock();
+                throw ex;
+            }
+            OPEN.put(file, result);
+            return result;
+        }
+    }
+
+    /**
+     * Start writing changes to disk; writing stops, after a final sync, once
+     * every owner is garbage collected or the JVM exits.
+     *
+     * @param owner The settings whose changes are journaled
+     */
+    void start(MutableSettings owner) {
+        installShutdownHook();
+        synchronized (lock) {
+            owners.add(new WeakReference<>(owner));
+            if (started) {
+                return;
+            }
+            started = true;
+        }
+        Thread t = new Thread(new Flusher(this), "settings-journal-"
+                + file.getFileName());
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private boolean hasOwners() {
+        synchronized (lock) {
+            for (Iterator<Reference<MutableSettings>> it = owners.iterator(); it.hasNext();) {
+                if (it.next().get() == null) {
+                    it.remove();
+                }
+            }
+            return !owners.isEmpty();
+        }
+    }
+
+    private static void installShutdownHook() {
+        if (!hookInstalled) {
+            synchronized (OPEN) {
+                if (!hookInstalled) {
+                    hookInstalled = true;
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        List<SettingsJournal> all;
+                        synchronized (OPEN) {
+                            all = new ArrayList<>(OPEN.values());
+                        }
+                        for (SettingsJournal j : all) {
+                            j.close();
+                        }
+                    }, "settings-journal-shutdown"));
+                }
+            }
+        }
+    }
+
+    /**
+     * The replayed state, in the order keys were first written; a null value
+     * means the key was cleared.
+     *
+     * @return The state
+     */
+    Map<String, String> state() {
+        synchronized (lock) {
+            return new LinkedHashMap<>(state);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    void set(String key, String value) {
+        enqueue(key, value, record("S\t" + escape(key) + '\t' + escape(value)));
+    }
+
+    void clear(String key) {
+        enqueue(key, null, record("C\t" + escape(key)));
+    }
+
+    private void enqueue(String key, String value, String record) {
+        synchronized (lock) {
+            state.remove(key);
+            state.put(key, value);
+            pending.add(record);
+        }
+    }
+
+    /**
+     * Write and fsync anything queued, compacting if the file has grown
+     * large; called from the flusher thread, and directly by tests and on
+     * close.
+     *
+     * @throws IOException If writing fails
+     */
+    void sync() throws IOException {
+        synchronized (fileLock) {
+            List<String> toWrite;
+            synchronized (lock) {
+                toWrite = pending;
+                if (toWrite.isEmpty() && !needsCompaction) {
+                    return;
+                }
+                pending = new ArrayList<>();
+            }
+            if (!toWrite.isEmpty()) {
+                StringBuilder sb = new StringBuilder(toWrite.size() * 32);
+                for (String rec : toWrite) {
+                    sb.append(rec).append('\n');
+                }
+                FileChannel ch = channel();
+                ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(UTF_8));
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+                ch.force(false);
+                recordsInFile += toWrite.size();
+            }
+            int live;
+            synchronized (lock) {
+                live = state.size();
+            }
+            if (needsCompaction || (recordsInFile > MIN_COMPACTION_RECORDS
+                    && recordsInFile > live * 4)) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal as one record per live key. The snapshot may
+     * include changes which are still queued; since records replay in order
+     * and the queued ones are appended afterwards, that is harmless.
+     *
+     * @throws IOException If writing fails
+     */
+    void compact() throws IOException {
+        synchronized (fileLock) {
+            Map<String, String> snapshot = state();
+            StringBuilder sb = new StringBuilder(snapshot.size() * 32);
+            for (Map.Entry<String, String> e : snapshot.entrySet()) {
+                if (e.getValue() == null) {
+                    sb.append(record("C\t" + escape(e.getKey())));
+                } else {
+                    sb.append(record("S\t" + escape(e.getKey()) + '\t' + escape(e.getValue())));
+                }
+                sb.append('\n');
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(UTF_8));
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+                ch.force(true);
+            }
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            recordsInFile = snapshot.size();
+            needsCompaction = false;
+        }
+    }
+
+    int recordsInFile() {
+        synchronized (fileLock) {
+            return recordsInFile;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+        }
+        return channel;
+    }
+
+    void close() {
+        synchronized (OPEN) {
+            OPEN.remove(file, this);
+        }
+        synchronized (fileLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                sync();
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+            } finally {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ex) {
+                        ex.printStackTrace(System.err);
+                    }
+                    channel = null;
+                }
+                releaseLock();
+            }
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            fileSystemLock.release();
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+        } finally {
+            try {
+                lockChannel.close();
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+            }
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(file, UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String payload = verify(line);
+                if (payload == null) {
+                    // Torn or corrupted write - rewrite the file on first sync
+                    // so new records are not appended to a partial line
+                    needsCompaction = true;
+                    continue;
+                }
+                recordsInFile++;
+                int tab = payload.indexOf('\t', 2);
+                if (payload.startsWith("S\t") && tab > 0) {
+                    String key = unescape(payload.substring(2, tab));
+                    state.remove(key);
+                    state.put(key, unescape(payload.substring(tab + 1)));
+                } else if (payload.startsWith("C\t") && tab < 0) {
+                    String key = unescape(payload.substring(2));
+                    state.remove(key);
+                    state.put(key, null);
+                } else {
+                    needsCompaction = true;
+                }
+            }
+        }
+    }
+
+    private static String record(String payload) {
+        return payload + '\t' + Long.toHexString(crc(payload));
+    }
+
+    private static String verify(String line) {
+        int ix = line.lastIndexOf('\t');
+        if (ix <= 0) {
+            return null;
+        }
+        String payload = line.substring(0, ix);
+        try {
+            return Long.parseLong(line.substring(ix + 1), 16) == crc(payload)
+                    ? payload : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static long crc(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(UTF_8));
+        return crc.getValue();
+    }
+
+    static String escape(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String rep;
+            switch (c) {
+                case '\\':
+                    rep = "\\\\";
+                    break;
+                case '\t':
+                    rep = "\\t";
+                    break;
+                case '\n':
+                    rep = "\\n";
+                    break;
+                case '\r':
+                    rep = "\\r";
+                    break;
+                default:
+                    rep = null;
+            }
+            if (rep != null && sb == null) {
+                sb = new StringBuilder(s.length() + 8).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (rep != null) {
+                    sb.append(rep);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i < s.length() - 1) {
+                char next = s.charAt(++i);
+                switch (next) {
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    default:
+                        sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "SettingsJournal(" + file + ")";
+    }
+
+    private static final class Flusher implements Runnable {
+
+        private final SettingsJournal journal;
+
+        Flusher(SettingsJournal journal) {
+            this.journal = journal;
+        }
+
+        @Override
+        public void run() {
+            while (!journal.isClosed()) {
+                try {
+                    Thread.sleep(journal.syncIntervalMillis);
+                } catch (InterruptedException ex) {
+                    break;
+                }
+                if (!journal.hasOwners()) {
+                    break;
+                }
+                try {
+                    journal.sync();
+                } catch (IOException ex) {
+                    ex.printStackTrace(System.err);
+                }
+            }
+            journal.close();
+        }
+    }
+}
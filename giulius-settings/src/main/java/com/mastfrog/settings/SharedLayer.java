@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import com.mastfrog.settings.SettingsBuilder.PropertiesSource;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single loaded layer of settings for a physical source (system properties,
+ * the environment, a set of classpath resources) which is shared by every
+ * Settings built over that source, regardless of namespace. Each Settings which
+ * uses the layer holds a lease on it; the layer is refreshed by one timer task
+ * no matter how many leases there are, and is discarded once every lease has
+ * been released or its owner garbage collected.
+ *
+ * @author Tim Boudreau
+ */
+final class SharedLayer extends TimerTask {
+
+    private static final Map<Object, SharedLayer> LAYERS = new HashMap<>();
+    private final Object key;
+    private final PropertiesSource src;
+    final PropertiesSettings settings;
+    private final List<Lease> leases = new ArrayList<>(4);
+
+    private SharedLayer(Object key, PropertiesSource src) {
+        this.key = key;
+        this.src = src;
+        this.settings = new PropertiesSettings(src + "");
+    }
+
+    static Lease acquire(Object key, PropertiesSource src) throws IOException {
+        synchronized (LAYERS) {
+            pruneAll();
+            SharedLayer result = LAYERS.get(key);
+            if (result == null) {
+                result = new SharedLayer(key, src);
+                result.settings.setDelegate(src.getProperties());
+                LAYERS.put(key, result);
+                src.getPollInterval().add(result);
+            }
+            Lease lease = new Lease(result);
+            result.leases.add(lease);
+            return lease;
+        }
+    }
+
+    static int leaseCount(Object key) {
+        synchronized (LAYERS) {
+            SharedLayer layer = LAYERS.get(key);
+            if (layer == null) {
+                return 0;
+            }
+            layer.prune();
+            return layer.leases.size();
+        }
+    }
+
+    private static void pruneAll() {
+        for (Iterator<Map.Entry<Object, SharedLayer>> it = LAYERS.entrySet().iterator(); it.hasNext();) {
+            SharedLayer layer = it.next().getValue();
+            if (layer.prune()) {
+                it.remove();
+                layer.cancel();
+            }
+        }
+    }
+
+    /**
+     * Drop leases whose owners have been garbage collected.
+     *
+     * @return true if no leases remain
+     */
+    private boolean prune() {
+        for (Iterator<Lease> it = leases.iterator(); it.hasNext();) {
+            Lease lease = it.next();
+            if (lease.isDead()) {
+                lease.released.set(true);
+                it.remove();
+            }
+        }
+        return leases.isEmpty();
+    }
+
+    private void release(Lease lease) {
+        synchronized (LAYERS) {
+            leases.remove(lease);
+            if (leases.isEmpty()) {
+                LAYERS.remove(key, this);
+                cancel();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        synchronized (LAYERS) {
+            if (prune()) {
+                LAYERS.remove(key, this);
+                cancel();
+                return;
+            }
+        }
+        try {
+            settings.setDelegate(src.getProperties());
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SharedLayer(" + key + ")";
+    }
+
+    /**
+     * A reference-counted claim on a shared layer by one Settings.
+     */
+    static final class Lease {
+
+        private final SharedLayer layer;
+        private volatile Reference<Settings> owner;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(SharedLayer layer) {
+            this.layer = layer;
+        }
+
+        Settings settings() {
+            return layer.settings;
+        }
+
+        void ownedBy(Settings owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        boolean isDead() {
+            Reference<Settings> ref = owner;
+            return ref != null && ref.get() == null;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                layer.release(this);
+            }
+        }
+    }
+}
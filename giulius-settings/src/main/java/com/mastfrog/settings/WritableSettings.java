@@ -26,6 +26,7 @@ package com.mastfrog.settings;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -40,10 +41,38 @@ final class WritableSettings implements MutableSettings {
     private final Object lock = new Object();
     private final Properties writeLayer = new Properties();
     private final Set<String> cleared = Collections.synchronizedSet(new HashSet<>());
+    private final SettingsJournal journal;
 
     WritableSettings(String ns, Settings settings) {
+        this(ns, settings, null);
+    }
+
+    WritableSettings(String ns, Settings settings, SettingsJournal journal) {
         this.ns = ns;
         this.settings = settings;
+        this.journal = journal;
+        if (journal != null) {
+            for (Map.Entry<String, String> e : journal.state().entrySet()) {
+                if (e.getValue() == null) {
+                    cleared.add(e.getKey());
+                } else {
+                    writeLayer.setProperty(e.getKey(), e.getValue());
+                }
+            }
+            journal.start(this);
+        }
+    }
+
+    SettingsJournal journal() {
+        return journal;
+    }
+
+    private void set(String name, String value) {
+        cleared.remove(name);
+        writeLayer.setProperty(name, value);
+        if (journal != null) {
+            journal.set(name, value);
+        }
     }
     
     @Override
@@ -53,32 +82,27 @@ final class WritableSettings implements MutableSettings {
 
     @Override
     public void setInt(String name, int value) {
-        cleared.remove(name);
-        writeLayer.setProperty(name, "" + value);
+        set(name, "" + value);
     }
 
     @Override
     public void setBoolean(String name, boolean val) {
-        cleared.remove(name);
-        writeLayer.setProperty(name, "" + val);
+        set(name, "" + val);
     }
 
     @Override
     public void setDouble(String name, double val) {
-        cleared.remove(name);
-        writeLayer.setProperty(name, "" + val);
+        set(name, "" + val);
     }
 
     @Override
     public void setLong(String name, long val) {
-        cleared.remove(name);
-        writeLayer.setProperty(name, "" + val);
+        set(name, "" + val);
     }
 
     @Override
     public void setString(String name, String val) {
-        cleared.remove(name);
-        writeLayer.setProperty(name, "" + val);
+        set(name, "" + val);
     }
 
     @Override
@@ -90,6 +114,9 @@ final class WritableSettings implements MutableSettings {
     public void clear(String name) {
         cleared.add(name);
         writeLayer.remove(name);
+        if (journal != null) {
+            journal.clear(name);
+        }
     }
 
     @Override
@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings.flags;
+
+import com.mastfrog.settings.RefreshInterval;
+import com.mastfrog.settings.Settings;
+import static com.mastfrog.util.preconditions.Checks.notNull;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feature flags defined in Settings, compiled once per refresh rather than
+ * parsed on every check. A flag named <code>foo</code> is defined by the
+ * setting <code>flag.foo</code> (the prefix is configurable), whose value is
+ * one or more of the following rules, separated by <code>;</code> - the flag
+ * is enabled for a subject if any rule matches it:
+ * <ul>
+ * <li><code>true</code> / <code>on</code>, <code>false</code> /
+ * <code>off</code> - enabled or disabled for everyone</li>
+ * <li><code>percent:12.5</code> - enabled for a stable 12.5% of subjects,
+ * chosen by hashing the subject with the flag name</li>
+ * <li><code>in:acme,initech,42</code> - enabled for the listed subjects</li>
+ * <li><code>range:1000..1999</code> - enabled for numeric subjects in the
+ * inclusive range</li>
+ * </ul>
+ * So <code>flag.newCheckout=in:acme;percent:5</code> turns on
+ * <code>newCheckout</code> for the tenant <code>acme</code> and for 5% of
+ * everyone else. Flags which are not defined are disabled.
+ * <p>
+ * Obtain a {@link Flag} once and hold it; checking it is lock-free and
+ * allocation-free, and each Flag counts its evaluations.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class FeatureFlags {
+
+    /**
+     * The default prefix for settings which define flags,
+     * <code>flag.</code>.
+     */
+    public static final String DEFAULT_PREFIX = "flag.";
+    private final Settings settings;
+    private final String prefix;
+    private final Map<String, Flag> flags = new ConcurrentHashMap<>();
+
+    private FeatureFlags(Settings settings, String prefix) {
+        this.settings = settings;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Create a FeatureFlags over the passed settings, using the default
+     * prefix. Flags are compiled once, and again only when
+     * <code>refresh()</code> is called.
+     *
+     * @param settings The settings
+     * @return A FeatureFlags
+     * @throws IllegalArgumentException if a flag definition is invalid
+     */
+    public static FeatureFlags create(Settings settings) {
+        return create(settings, DEFAULT_PREFIX);
+    }
+
+    /**
+     * Create a FeatureFlags over the passed settings. Flags are compiled
+     * once, and again only when <code>refresh()</code> is called.
+     *
+     * @param settings The settings
+     * @param prefix The prefix for settings keys which define flags
+     * @return A FeatureFlags
+     * @throws IllegalArgumentException if a flag definition is invalid
+     */
+    public static FeatureFlags create(Settings settings, String prefix) {
+        FeatureFlags result = new FeatureFlags(notNull("settings", settings),
+                notNull("prefix", prefix));
+        result.refresh();
+        return result;
+    }
+
+    /**
+     * Create a FeatureFlags over the passed settings which recompiles its
+     * flags on the passed interval - typically the same interval used for
+     * the settings source the flags are defined in. Refreshing stops once the
+     * returned instance is garbage collected. An invalid definition
+     * encountered on refresh is logged and the previous rules are kept.
+     *
+     * @param settings The settings
+     * @param prefix The prefix for settings keys which define flags
+     * @param interval The refresh interval
+     * @return A FeatureFlags
+     * @throws IllegalArgumentException if a flag definition is invalid at
+     * creation time
+     */
+    public static FeatureFlags create(Settings settings, String prefix, RefreshInterval interval) {
+        FeatureFlags result = create(settings, prefix);
+        notNull("interval", interval).add(new RefreshTask(result));
+        return result;
+    }
+
+    /**
+     * Re-read flag definitions from settings and swap in the compiled rules;
+     * Flag instances already handed out see the new rules. Refreshes are
+     * serialized, so a manual refresh and a scheduled one cannot leave flags
+     * with rules from different passes.
+     *
+     * @throws IllegalArgumentException if a flag definition is invalid, in
+     * which case no rules are changed
+     */
+    public synchronized void refresh() {
+        Map<String, FlagRule> rules = new HashMap<>();
+        for (String key : settings.allKeys()) {
+            if (key.startsWith(prefix) && key.length() > prefix.length()) {
+                String def = settings.getString(key);
+                if (def != null) {
+                    String name = key.substring(prefix.length());
+                    rules.put(name, FlagRule.parse(name, def.trim()));
+                }
+            }
+        }
+        for (Map.Entry<String, Flag> e : flags.entrySet()) {
+            FlagRule rule = rules.remove(e.getKey());
+            e.getValue().setRule(rule == null ? FlagRule.NEVER : rule);
+        }
+        for (Map.Entry<String, FlagRule> e : rules.entrySet()) {
+            Flag flag = flags.computeIfAbsent(e.getKey(), nm -> new Flag(nm, e.getValue()));
+            flag.setRule(e.getValue());
+        }
+    }
+
+    /**
+     * Get the flag with the passed name, which may be held and checked
+     * repeatedly. A flag which is not defined is disabled, but will pick up a
+     * definition added later on refresh.
+     *
+     * @param name The flag name, without the settings prefix
+     * @return A flag
+     */
+    public Flag flag(String name) {
+        Flag result = flags.get(notNull("name", name));
+        if (result == null) {
+            result = flags.computeIfAbsent(name, nm -> new Flag(nm, FlagRule.NEVER));
+        }
+        return result;
+    }
+
+    /**
+     * Convenience method for <code>flag(name).isEnabled(subject)</code>.
+     *
+     * @param name The flag name
+     * @param subject The subject
+     * @return true if the flag is enabled for the subject
+     */
+    public boolean isEnabled(String name, String subject) {
+        return flag(name).isEnabled(subject);
+    }
+
+    /**
+     * Convenience method for <code>flag(name).isEnabled(subject)</code>.
+     *
+     * @param name The flag name
+     * @param subject The subject
+     * @return true if the flag is enabled for the subject
+     */
+    public boolean isEnabled(String name, long subject) {
+        return flag(name).isEnabled(subject);
+    }
+
+    /**
+     * Get the number of times each known flag has been evaluated.
+     *
+     * @return A sorted map of flag name to evaluation count
+     */
+    public Map<String, Long> evaluationCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, Flag> e : flags.entrySet()) {
+            result.put(e.getKey(), e.getValue().evaluations());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureFlags(" + prefix + ") " + new TreeMap<>(flags).values();
+    }
+
+    private static final class RefreshTask extends TimerTask {
+
+        private final Reference<FeatureFlags> ref;
+
+        RefreshTask(FeatureFlags flags) {
+            this.ref = new WeakReference<>(flags);
+        }
+
+        @Override
+        public void run() {
+            FeatureFlags flags = ref.get();
+            if (flags == null) {
+                cancel();
+                return;
+            }
+            try {
+                flags.refresh();
+            } catch (IllegalArgumentException ex) {
+                ex.printStackTrace(System.err);
+            }
+        }
+    }
+}
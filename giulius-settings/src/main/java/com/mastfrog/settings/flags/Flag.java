@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings.flags;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A handle to a single feature flag. Handles are stable across refreshes of
+ * the FeatureFlags that created them - the compiled rule behind the handle is
+ * swapped atomically when settings are re-read - so hot code paths should look
+ * a Flag up once and hold onto it.
+ * <p>
+ * Evaluation neither locks nor allocates. Percentage rollouts hash the subject
+ * together with the flag name, so a given subject is consistently in or out of
+ * a rollout, and raising the percentage only ever adds subjects. A string
+ * subject which is a number hashes the same as that number, so a subject
+ * lands in the same bucket whichever way it is checked.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class Flag {
+
+    private final String name;
+    private final long salt;
+    private volatile FlagRule rule;
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder enabled = new LongAdder();
+
+    Flag(String name, FlagRule rule) {
+        this.name = name;
+        this.rule = rule;
+        this.salt = mix(name.hashCode() * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * The name of the flag, without the settings prefix.
+     *
+     * @return The name
+     */
+    public String name() {
+        return name;
+    }
+
+    void setRule(FlagRule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Determine if this flag is enabled for some subject, such as a tenant or
+     * user id.
+     *
+     * @param subject The subject
+     * @return true if the flag is enabled for it
+     */
+    public boolean isEnabled(String subject) {
+        evaluations.increment();
+        boolean result = rule.test(subject, hash(subject));
+        if (result) {
+            enabled.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Determine if this flag is enabled for some numeric subject, such as a
+     * tenant or user id.
+     *
+     * @param subject The subject
+     * @return true if the flag is enabled for it
+     */
+    public boolean isEnabled(long subject) {
+        evaluations.increment();
+        boolean result = rule.test(subject, hash(subject));
+        if (result) {
+            enabled.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Determine if this flag is enabled without regard to any subject - only
+     * meaningful for flags which are simply on or off.
+     *
+     * @return true if the flag is enabled
+     */
+    public boolean isEnabled() {
+        return isEnabled(0L);
+    }
+
+    /**
+     * The number of times this flag has been evaluated.
+     *
+     * @return A count
+     */
+    public long evaluations() {
+        return evaluations.sum();
+    }
+
+    /**
+     * The number of evaluations of this flag which returned true.
+     *
+     * @return A count
+     */
+    public long enabledCount() {
+        return enabled.sum();
+    }
+
+    private long hash(String subject) {
+        if (FlagRule.isLong(subject)) {
+            return hash(Long.parseLong(subject));
+        }
+        // FNV-1a over the chars, seeded with the flag's salt
+        long h = 0xCBF29CE484222325L ^ salt;
+        for (int i = 0; i < subject.length(); i++) {
+            h ^= subject.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private long hash(long subject) {
+        return mix(salt ^ subject);
+    }
+
+    private static long mix(long h) {
+        // MurmurHash3 finalizer, to spread FNV's weak low bits
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + rule + " (" + evaluations() + " evaluations, "
+                + enabledCount() + " enabled)";
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings.flags;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A compiled flag definition. Rules are parsed once when flags are refreshed,
+ * and evaluated without parsing or allocating.
+ *
+ * @author Tim Boudreau
+ */
+abstract class FlagRule {
+
+    static final FlagRule ALWAYS = new Constant(true);
+    static final FlagRule NEVER = new Constant(false);
+
+    abstract boolean test(String subject, long hash);
+
+    abstract boolean test(long subject, long hash);
+
+    /**
+     * Parse a flag definition, which is one or more rules separated by
+     * <code>;</code>, any of which may enable the flag.
+     *
+     * @param flag The flag name, for error messages
+     * @param definition The definition
+     * @return A rule
+     * @throws IllegalArgumentException if the definition cannot be parsed
+     */
+    static FlagRule parse(String flag, String definition) {
+        String[] parts = definition.split(";");
+        FlagRule[] rules = new FlagRule[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            FlagRule rule = parseOne(flag, part);
+            if (rule == ALWAYS) {
+                return ALWAYS;
+            } else if (rule != NEVER) {
+                rules[count++] = rule;
+            }
+        }
+        switch (count) {
+            case 0:
+                return NEVER;
+            case 1:
+                return rules[0];
+            default:
+                return new AnyOf(Arrays.copyOf(rules, count));
+        }
+    }
+
+    /**
+     * Determine if a subject is a decimal number which fits in a long, so it
+     * can be treated the same as the numeric subject it represents; checks
+     * by hand rather than with Long.parseLong() to avoid allocating an
+     * exception for subjects which are not.
+     *
+     * @param subject A subject
+     * @return true if Long.parseLong() will succeed on it
+     */
+    static boolean isLong(String subject) {
+        int len = subject.length();
+        if (len == 0) {
+            return false;
+        }
+        boolean negative = subject.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        if (start == len || len - start > 19) {
+            return false;
+        }
+        // Accumulate negatively, as Long.parseLong() does, since the
+        // magnitude of Long.MIN_VALUE does not fit in a positive long
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long value = 0;
+        for (int i = start; i < len; i++) {
+            char c = subject.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            int digit = c - '0';
+            if (value < multiplyMin) {
+                return false;
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                return false;
+            }
+            value -= digit;
+        }
+        return true;
+    }
+
+    private static FlagRule parseOne(String flag, String rule) {
+        switch (rule.toLowerCase()) {
+            case "true":
+            case "on":
+                return ALWAYS;
+            case "false":
+            case "off":
+                return NEVER;
+        }
+        int ix = rule.indexOf(':');
+        if (ix < 0) {
+            throw new IllegalArgumentException("Bad rule '" + rule
+                    + "' for flag " + flag + " - expected true, false, "
+                    + "percent:N, in:a,b,c or range:N..M");
+        }
+        String kind = rule.substring(0, ix).trim().toLowerCase();
+        String arg = rule.substring(ix + 1).trim();
+        switch (kind) {
+            case "percent":
+                return Percentage.parse(flag, arg);
+            case "in":
+                return new Members(arg);
+            case "range":
+                return Range.parse(flag, arg);
+            default:
+                throw new IllegalArgumentException("Unknown rule type '" + kind
+                        + "' for flag " + flag + " in '" + rule + "'");
+        }
+    }
+
+    private static final class Constant extends FlagRule {
+
+        private final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(String subject, long hash) {
+            return value;
+        }
+
+        @Override
+        boolean test(long subject, long hash) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return Boolean.toString(value);
+        }
+    }
+
+    private static final class AnyOf extends FlagRule {
+
+        private final FlagRule[] rules;
+
+        AnyOf(FlagRule[] rules) {
+            this.rules = rules;
+        }
+
+        @Override
+        boolean test(String subject, long hash) {
+            for (FlagRule rule : rules) {
+                if (rule.test(subject, hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean test(long subject, long hash) {
+            for (FlagRule rule : rules) {
+                if (rule.test(subject, hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (FlagRule rule : rules) {
+                if (sb.length() > 0) {
+                    sb.append(';');
+                }
+                sb.append(rule);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Enabled for a stable percentage of subjects, by hash bucket, in hundredths
+     * of a percent.
+     */
+    private static final class Percentage extends FlagRule {
+
+        private final int basisPoints;
+
+        Percentage(int basisPoints) {
+            this.basisPoints = basisPoints;
+        }
+
+        static FlagRule parse(String flag, String arg) {
+            double pct;
+            try {
+                pct = Double.parseDouble(arg);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad percentage '" + arg
+                        + "' for flag " + flag, ex);
+            }
+            if (pct < 0 || pct > 100) {
+                throw new IllegalArgumentException("Percentage for flag "
+                        + flag + " must be between 0 and 100, but got " + arg);
+            }
+            int bp = (int) Math.round(pct * 100);
+            return bp == 0 ? NEVER : bp == 10000 ? ALWAYS : new Percentage(bp);
+        }
+
+        @Override
+        boolean test(String subject, long hash) {
+            return Math.floorMod(hash, 10000L) < basisPoints;
+        }
+
+        @Override
+        boolean test(long subject, long hash) {
+            return Math.floorMod(hash, 10000L) < basisPoints;
+        }
+
+        @Override
+        public String toString() {
+            return "percent:" + (basisPoints / 100D);
+        }
+    }
+
+    private static final class Members extends FlagRule {
+
+        private final Set<String> members = new HashSet<>();
+        private final long[] numericMembers;
+
+        Members(String arg) {
+            long[] numeric = new long[8];
+            int numericCount = 0;
+            for (String s : arg.split(",")) {
+                s = s.trim();
+                if (!s.isEmpty()) {
+                    members.add(s);
+                    try {
+                        long val = Long.parseLong(s);
+                        if (numericCount == numeric.length) {
+                            numeric = Arrays.copyOf(numeric, numeric.length * 2);
+                        }
+                        numeric[numericCount++] = val;
+                    } catch (NumberFormatException ex) {
+                        // not a numeric member - fine
+                    }
+                }
+            }
+            numericMembers = Arrays.copyOf(numeric, numericCount);
+            Arrays.sort(numericMembers);
+        }
+
+        @Override
+        boolean test(String subject, long hash) {
+            return members.contains(subject);
+        }
+
+        @Override
+        boolean test(long subject, long hash) {
+            return Arrays.binarySearch(numericMembers, subject) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return "in:" + String.join(",", members);
+        }
+    }
+
+    /**
+     * Enabled for numeric subjects within an inclusive range.
+     */
+    private static final class Range extends FlagRule {
+
+        private final long min;
+        private final long max;
+
+        Range(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        static FlagRule parse(String flag, String arg) {
+            int ix = arg.indexOf("..");
+            if (ix < 0) {
+                throw new IllegalArgumentException("Range for flag " + flag
+                        + " should be in the form N..M but got " + arg);
+            }
+            try {
+                long min = Long.parseLong(arg.substring(0, ix).trim());
+                long max = Long.parseLong(arg.substring(ix + 2).trim());
+                if (max < min) {
+                    throw new IllegalArgumentException("Range for flag " + flag
+                            + " ends before it starts: " + arg);
+                }
+                return new Range(min, max);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad range '" + arg
+                        + "' for flag " + flag, ex);
+            }
+        }
+
+        @Override
+        boolean test(String subject, long hash) {
+            // Numbers too large for a long are outside any range
+            return isLong(subject) && test(Long.parseLong(subject), hash);
+        }
+
+        @Override
+        boolean test(long subject, long hash) {
+            return subject >= min && subject <= max;
+        }
+
+        @Override
+        public String toString() {
+            return "range:" + min + ".." + max;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class OverlaySettingsTest {
+
+    @Test
+    public void testOverlay() throws IOException {
+        Settings base = new SettingsBuilder()
+                .add("a", 1)
+                .add("b", "bee")
+                .add("c", true)
+                .build();
+        Settings over = base.overlay(new String[]{"a", "c", "d"},
+                new String[]{"2", null, "dee"});
+
+        assertEquals(2, over.getInt("a", -1));
+        assertEquals("bee", over.getString("b"));
+        assertNull(over.getString("c"));
+        assertFalse(over.getBoolean("c", false));
+        assertEquals("dee", over.getString("d"));
+        assertEquals("x", over.getString("c", "x"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "d")), over.allKeys());
+
+        Properties p = over.toProperties();
+        assertEquals("2", p.getProperty("a"));
+        assertFalse(p.containsKey("c"));
+
+        // The base is untouched
+        assertEquals(1, base.getInt("a", -1));
+        assertTrue(base.getBoolean("c", false));
+
+        Settings nested = over.overlay(new String[]{"b"}, new String[]{"buzz"});
+        assertEquals("buzz", nested.getString("b"));
+        assertEquals(2, nested.getInt("a", -1));
+
+        assertSame(base, base.overlay(new String[0], new String[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedArrays() throws IOException {
+        Settings.EMPTY.overlay(new String[]{"a", "b"}, new String[]{"a"});
+    }
+}
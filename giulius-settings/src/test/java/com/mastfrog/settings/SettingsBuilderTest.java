@@ -2,6 +2,11 @@ package com.mastfrog.settings;
 
 import com.mastfrog.util.collections.CollectionUtils;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -114,4 +119,99 @@ public class SettingsBuilderTest {
         b.add("a", "d");
         assertEquals(4, b.sourceCount());
     }
+
+    @Test
+    public void testBaseLayersAreSharedAcrossNamespaces() throws IOException {
+        String envKey = "env:[sharedLayerTest]";
+        assertEquals(0, SharedLayer.leaseCount(envKey));
+        SettingsBuilder ab = new SettingsBuilder("a")
+                .restrictEnvironmentProperties("sharedLayerTest")
+                .addEnv().addSystemProperties().add("x", "a");
+        SettingsBuilder bb = new SettingsBuilder("b")
+                .restrictEnvironmentProperties("sharedLayerTest")
+                .addEnv().addSystemProperties().add("x", "b");
+        Settings a = ab.build();
+        Settings b = bb.build();
+        assertEquals(2, SharedLayer.leaseCount(envKey));
+        assertTrue(SharedLayer.leaseCount("system-properties") >= 2);
+        assertEquals("a", a.getString("x"));
+        assertEquals("b", b.getString("x"));
+        assertEquals(System.getProperty("java.version"), a.getString("java.version"));
+        assertEquals(System.getProperty("java.version"), b.getString("java.version"));
+
+        ab.onShutdownRunnable().run();
+        assertEquals(1, SharedLayer.leaseCount(envKey));
+        // Releasing twice must not drop another owner's lease
+        ab.onShutdownRunnable().run();
+        assertEquals(1, SharedLayer.leaseCount(envKey));
+        bb.onShutdownRunnable().run();
+        assertEquals(0, SharedLayer.leaseCount(envKey));
+    }
+
+    @Test
+    public void testClasspathLayersAreCachedPerClassLoader() throws IOException {
+        Path dir = Files.createTempDirectory("classpath-layers");
+        Path file = dir.resolve("cpcache.properties");
+        Files.write(file, "x=1\n".getBytes("UTF-8"));
+        ClassLoader old = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader ldr = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+            Thread.currentThread().setContextClassLoader(ldr);
+            SettingsBuilder ab = new SettingsBuilder("a").add("cpcache.properties");
+            Settings a = ab.build();
+            ClasspathLayers.Entry entry = ClasspathLayers.locate(ldr, "cpcache.properties");
+            assertSame(entry, ClasspathLayers.locate(ldr, "cpcache.properties"));
+            assertSame(entry.properties(), entry.properties());
+            assertEquals("1", a.getString("x"));
+            // Release the shared layer, so the next build loads it again
+            ab.onShutdownRunnable().run();
+
+            Files.write(file, "x=2\n".getBytes("UTF-8"));
+            SettingsBuilder bb = new SettingsBuilder("b").add("cpcache.properties");
+            Settings b = bb.build();
+            assertEquals("Classpath should be read once per loader", "1", b.getString("x"));
+            bb.onShutdownRunnable().run();
+
+            SettingsBuilder.clearClasspathCache();
+            Settings c = new SettingsBuilder("c").add("cpcache.properties").build();
+            assertEquals("2", c.getString("x"));
+            assertNotSame(entry, ClasspathLayers.locate(ldr, "cpcache.properties"));
+        } finally {
+            Thread.currentThread().setContextClassLoader(old);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testLocationsMissingFromSnapshotAreStillLoaded() throws IOException {
+        Path dir = Files.createTempDirectory("classpath-unsnapshotted");
+        Files.write(dir.resolve("unsnapshotted.properties"), "x=1\n".getBytes("UTF-8"));
+        try (URLClassLoader ldr = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+            assertNull(ClasspathSnapshot.get("unsnapshotted.properties"));
+            ClasspathLayers.Entry entry = ClasspathLayers.locate(ldr, "unsnapshotted.properties", true);
+            assertFalse(entry.isEmpty());
+            assertEquals("1", entry.properties().getProperty("x"));
+        } finally {
+            Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testClasspathSnapshotCapturesListedNamespaces() throws IOException {
+        Path dir = Files.createTempDirectory("classpath-snapshot");
+        Path settingsDir = Files.createDirectories(dir.resolve("META-INF/settings"));
+        Files.write(settingsDir.resolve("namespaces.list"), "# comment\nsnap\n".getBytes("UTF-8"));
+        Files.write(settingsDir.resolve("snap.properties"), "x=1\n".getBytes("UTF-8"));
+        Files.write(settingsDir.resolve("generated-snap.properties"), "y=2\n".getBytes("UTF-8"));
+        Files.write(settingsDir.resolve("defaults.properties"), "z=3\n".getBytes("UTF-8"));
+        try (URLClassLoader ldr = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+            Map<String, Properties> snapshot = ClasspathSnapshot.capture(ldr);
+            assertEquals("1", snapshot.get("META-INF/settings/snap.properties").getProperty("x"));
+            assertEquals("2", snapshot.get("META-INF/settings/generated-snap.properties").getProperty("y"));
+            assertEquals("3", snapshot.get("META-INF/settings/defaults.properties").getProperty("z"));
+            assertFalse(snapshot.containsKey("META-INF/settings/generated-defaults.properties"));
+        } finally {
+            Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
 }
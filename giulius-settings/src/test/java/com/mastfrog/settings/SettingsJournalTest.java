@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class SettingsJournalTest {
+
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("settings-journal");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> all = Files.walk(dir)) {
+            all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private SettingsBuilder builder() {
+        return new SettingsBuilder("journaltest")
+                .add("base", "original")
+                .add("other", "untouched")
+                .journal(dir, Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void testChangesAreReplayed() throws IOException {
+        WritableSettings first = (WritableSettings) builder().buildMutableSettings();
+        first.setString("base", "changed");
+        first.setInt("count", 3);
+        first.setString("odd", "tab\there\nnewline\\backslash");
+        first.clear("other");
+        assertTrue("Nothing should be written before sync",
+                !Files.exists(first.journal().file()) || Files.size(first.journal().file()) == 0);
+        first.journal().sync();
+        first.journal().close();
+
+        MutableSettings second = builder().buildMutableSettings();
+        assertEquals("changed", second.getString("base"));
+        assertEquals(3, second.getInt("count", 0));
+        assertEquals("tab\there\nnewline\\backslash", second.getString("odd"));
+        assertNull(second.getString("other"));
+        assertFalse(second.allKeys().contains("other"));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        WritableSettings first = (WritableSettings) builder().buildMutableSettings();
+        for (int i = 0; i < 3000; i++) {
+            first.setInt("count", i);
+            first.setInt("other" + (i % 3), i);
+        }
+        first.journal().sync();
+        assertTrue("Should have compacted to a few records but have "
+                + first.journal().recordsInFile(), first.journal().recordsInFile() < 10);
+        assertEquals(4, Files.readAllLines(first.journal().file()).size());
+        first.journal().close();
+
+        MutableSettings second = builder().buildMutableSettings();
+        assertEquals(2999, second.getInt("count", 0));
+        assertEquals(2999, second.getInt("other2", 0));
+    }
+
+    @Test
+    public void testTornWriteIsDropped() throws IOException {
+        WritableSettings first = (WritableSettings) builder().buildMutableSettings();
+        first.setString("base", "changed");
+        first.journal().close();
+        Files.write(first.journal().file(), "S\tbase\thalf-writ".getBytes(),
+                StandardOpenOption.APPEND);
+
+        WritableSettings second = (WritableSettings) builder().buildMutableSettings();
+        assertEquals("changed", second.getString("base"));
+        second.setString("after", "torn");
+        second.journal().close();
+
+        MutableSettings third = builder().buildMutableSettings();
+        assertEquals("changed", third.getString("base"));
+        assertEquals("torn", third.getString("after"));
+    }
+
+    @Test
+    public void testSameFileIsSharedWithinTheJvm() throws IOException {
+        WritableSettings first = (WritableSettings) builder().buildMutableSettings();
+        WritableSettings second = (WritableSettings) builder().buildMutableSettings();
+        assertSame(first.journal(), second.journal());
+        first.setString("fromFirst", "a");
+        second.setString("fromSecond", "b");
+        // Compaction replaces the file; both writers must still land in it
+        first.journal().compact();
+        first.setString("afterCompaction", "c");
+        second.journal().sync();
+        first.journal().close();
+
+        MutableSettings third = builder().buildMutableSettings();
+        assertEquals("a", third.getString("fromFirst"));
+        assertEquals("b", third.getString("fromSecond"));
+        assertEquals("c", third.getString("afterCompaction"));
+        assertNotSame(first.journal(), ((WritableSettings) third).journal());
+        ((WritableSettings) third).journal().close();
+    }
+
+    @Test
+    public void testLockedFileCannotBeOpened() throws IOException {
+        Path lockFile = dir.resolve("journaltest" + SettingsJournal.JOURNAL_EXTENSION + ".lock");
+        try (FileChannel ch = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock lock = ch.lock()) {
+            builder().buildMutableSettings();
+            fail("Should not open a journal locked by someone else");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("in use"));
+        }
+        WritableSettings settings = (WritableSettings) builder().buildMutableSettings();
+        settings.setString("base", "unlocked");
+        settings.journal().close();
+    }
+}
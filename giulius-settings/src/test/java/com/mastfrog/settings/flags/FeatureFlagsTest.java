@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.settings.flags;
+
+import com.mastfrog.settings.MutableSettings;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.settings.SettingsBuilder;
+import java.io.IOException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class FeatureFlagsTest {
+
+    @Test
+    public void testRules() throws IOException {
+        Settings settings = new SettingsBuilder()
+                .add("flag.on", "true")
+                .add("flag.off", "off")
+                .add("flag.members", "in:acme, initech,42")
+                .add("flag.range", "range:1000..1999")
+                .add("flag.negative", "range:-9223372036854775808..0")
+                .add("flag.combined", "in:acme;percent:0")
+                .add("notaflag", "true")
+                .build();
+        FeatureFlags flags = FeatureFlags.create(settings);
+
+        assertTrue(flags.isEnabled("on", "anyone"));
+        assertTrue(flags.flag("on").isEnabled());
+        assertFalse(flags.isEnabled("off", "anyone"));
+        assertFalse(flags.isEnabled("undefined", "anyone"));
+        assertFalse(flags.isEnabled("notaflag", "anyone"));
+
+        assertTrue(flags.isEnabled("members", "acme"));
+        assertTrue(flags.isEnabled("members", "initech"));
+        assertTrue(flags.isEnabled("members", 42));
+        assertTrue(flags.isEnabled("members", "42"));
+        assertFalse(flags.isEnabled("members", "globex"));
+        assertFalse(flags.isEnabled("members", 43));
+
+        assertTrue(flags.isEnabled("range", 1000));
+        assertTrue(flags.isEnabled("range", "1999"));
+        assertFalse(flags.isEnabled("range", 2000));
+        assertFalse(flags.isEnabled("range", "abc"));
+        assertFalse(flags.isEnabled("range", "9999999999999999999"));
+        assertFalse(flags.isEnabled("range", "-9223372036854775809"));
+        // Would wrap around to a negative number if parsed naively
+        assertTrue(flags.isEnabled("negative", "-5"));
+        assertFalse(flags.isEnabled("negative", "9999999999999999999"));
+
+        assertTrue(flags.isEnabled("combined", "acme"));
+        assertFalse(flags.isEnabled("combined", "globex"));
+
+        assertEquals(Long.valueOf(6), flags.evaluationCounts().get("members"));
+    }
+
+    @Test
+    public void testPercentageIsStableAndMonotonic() throws IOException {
+        MutableSettings settings = new SettingsBuilder()
+                .add("flag.rollout", "percent:25")
+                .buildMutableSettings();
+        FeatureFlags flags = FeatureFlags.create(settings);
+        Flag rollout = flags.flag("rollout");
+        boolean[] at25 = new boolean[10000];
+        int count = 0;
+        for (int i = 0; i < at25.length; i++) {
+            at25[i] = rollout.isEnabled("user-" + i);
+            assertEquals(at25[i], rollout.isEnabled("user-" + i));
+            if (at25[i]) {
+                count++;
+            }
+        }
+        assertTrue("Expected about 2500 but got " + count, count > 2300 && count < 2700);
+
+        settings.setString("flag.rollout", "percent:50");
+        flags.refresh();
+        assertSame(rollout, flags.flag("rollout"));
+        for (int i = 0; i < at25.length; i++) {
+            if (at25[i]) {
+                assertTrue(rollout.isEnabled("user-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void testNumericStringsBucketLikeNumbers() throws IOException {
+        Settings settings = new SettingsBuilder().add("flag.rollout", "percent:50").build();
+        Flag flag = FeatureFlags.create(settings).flag("rollout");
+        int enabled = 0;
+        for (long i = -500; i < 500; i++) {
+            boolean numeric = flag.isEnabled(i);
+            assertEquals("Different answers for " + i, numeric, flag.isEnabled(Long.toString(i)));
+            if (numeric) {
+                enabled++;
+            }
+        }
+        assertEquals(flag.isEnabled(42L), flag.isEnabled("42"));
+        assertEquals(flag.isEnabled(Long.MIN_VALUE), flag.isEnabled(Long.toString(Long.MIN_VALUE)));
+        assertTrue("Implausible rollout " + enabled, enabled > 400 && enabled < 600);
+    }
+
+    @Test
+    public void testIsLong() {
+        assertTrue(FlagRule.isLong("0"));
+        assertTrue(FlagRule.isLong("-42"));
+        assertTrue(FlagRule.isLong(Long.toString(Long.MAX_VALUE)));
+        assertTrue(FlagRule.isLong(Long.toString(Long.MIN_VALUE)));
+        assertFalse(FlagRule.isLong("9223372036854775808"));
+        assertFalse(FlagRule.isLong("-9223372036854775809"));
+        assertFalse(FlagRule.isLong("9999999999999999999"));
+        assertFalse(FlagRule.isLong("12345678901234567890"));
+        assertFalse(FlagRule.isLong(""));
+        assertFalse(FlagRule.isLong("-"));
+        assertFalse(FlagRule.isLong("4x"));
+    }
+
+    @Test
+    public void testRefreshKeepsHandles() throws IOException {
+        MutableSettings settings = new SettingsBuilder().buildMutableSettings();
+        FeatureFlags flags = FeatureFlags.create(settings);
+        Flag later = flags.flag("later");
+        assertFalse(later.isEnabled("x"));
+        settings.setString("flag.later", "on");
+        flags.refresh();
+        assertTrue(later.isEnabled("x"));
+
+        settings.setString("flag.later", "percent:200");
+        try {
+            flags.refresh();
+            fail("Invalid percentage should have been rejected");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        assertTrue("Old rule should be kept", later.isEnabled("x"));
+    }
+}
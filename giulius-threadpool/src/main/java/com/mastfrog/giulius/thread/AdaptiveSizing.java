@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.mastfrog.settings.Settings;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resizes a standard pool within bounds as its workload changes, sampling its
+ * {@link PoolMetrics} periodically. The number of threads needed is estimated
+ * by Little's law - throughput times mean run time, which includes time
+ * tasks spend blocked - with headroom so threads are not all busy all the
+ * time; while tasks are queueing for longer than a target wait, the pool
+ * grows by a quarter regardless, since what it completes understates what is
+ * being asked of it. To avoid oscillation, the pool grows only once two
+ * consecutive samples call for it, and shrinks gradually, only after five
+ * consecutive samples find it comfortably oversized.
+ *
+ * @author Tim Boudreau
+ */
+final class AdaptiveSizing extends TimerTask {
+
+    private static final Logger LOG = Logger.getLogger(AdaptiveSizing.class.getName());
+    static final double TARGET_UTILIZATION = 0.75;
+    static final double SHRINK_THRESHOLD = 0.8;
+    static final int GROW_SAMPLES = 2;
+    static final int SHRINK_SAMPLES = 5;
+    static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    static final long DEFAULT_TARGET_WAIT_MILLIS = 10;
+    static final long DEFAULT_KEEP_ALIVE_SECONDS = 30;
+    private final String name;
+    final int min;
+    final int max;
+    private final long intervalMillis;
+    private final double targetWaitSeconds;
+    private int growStreak;
+    private int shrinkStreak;
+    private ThreadPoolExecutor exe;
+    private PoolMetrics metrics;
+    private Timer timer;
+    private long lastNanos;
+    private long lastFinished;
+    private long lastRunCount;
+    private long lastRunSum;
+    private long lastWaitCount;
+    private long lastWaitSum;
+
+    AdaptiveSizing(String name, int min, int max, long intervalMillis, long targetWaitMillis) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Bad bounds for adaptive sizing of "
+                    + name + ": " + min + " to " + max);
+        }
+        if (intervalMillis <= 0 || targetWaitMillis < 0) {
+            throw new IllegalArgumentException("Bad interval " + intervalMillis
+                    + " or target wait " + targetWaitMillis + " for " + name);
+        }
+        this.name = name;
+        this.min = min;
+        this.max = max;
+        this.intervalMillis = intervalMillis;
+        this.targetWaitSeconds = targetWaitMillis / 1000D;
+    }
+
+    /**
+     * Create an instance if adaptive sizing is enabled for a pool, by the
+     * builder or by <code>bindingName.adaptive</code>.
+     *
+     * @param name The binding name
+     * @param settings The settings
+     * @param min The minimum from the builder, or 0
+     * @param max The maximum from the builder, or 0
+     * @param threads The pool's thread count
+     * @return An instance, or null
+     */
+    static AdaptiveSizing forPool(String name, Settings settings, int min, int max, int threads) {
+        if (!settings.getBoolean(name + ".adaptive", min > 0)) {
+            return null;
+        }
+        min = settings.getInt(name + ".adaptive.min", min > 0 ? min : 1);
+        max = settings.getInt(name + ".adaptive.max", max > 0 ? max : Math.max(min, threads * 4));
+        return new AdaptiveSizing(name, min, max,
+                settings.getLong(name + ".adaptive.intervalMillis", DEFAULT_INTERVAL_MILLIS),
+                settings.getLong(name + ".adaptive.targetWaitMillis", DEFAULT_TARGET_WAIT_MILLIS));
+    }
+
+    int clamp(int size) {
+        return Math.max(min, Math.min(max, size));
+    }
+
+    synchronized void start(ThreadPoolExecutor exe, PoolMetrics metrics) {
+        this.exe = exe;
+        this.metrics = metrics;
+        lastNanos = System.nanoTime();
+        timer = new Timer(name + "-sizer", true);
+        timer.schedule(this, intervalMillis, intervalMillis);
+    }
+
+    synchronized void stop() {
+        cancel();
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    @Override
+    public synchronized void run() {
+        if (exe.isShutdown()) {
+            stop();
+            return;
+        }
+        long now = System.nanoTime();
+        long finished = metrics.completed() + metrics.failed();
+        long runCount = metrics.runTime().count();
+        long runSum = metrics.runTime().sumNanos();
+        long waitCount = metrics.waitTime().count();
+        long waitSum = metrics.waitTime().sumNanos();
+        double seconds = (now - lastNanos) / 1_000_000_000D;
+        double throughput = (finished - lastFinished) / seconds;
+        double meanRun = mean(runSum - lastRunSum, runCount - lastRunCount);
+        double meanWait = mean(waitSum - lastWaitSum, waitCount - lastWaitCount);
+        lastNanos = now;
+        lastFinished = finished;
+        lastRunCount = runCount;
+        lastRunSum = runSum;
+        lastWaitCount = waitCount;
+        lastWaitSum = waitSum;
+
+        int current = exe.getCorePoolSize();
+        int next = next(current, throughput, meanRun, meanWait, metrics.queued());
+        if (next != current) {
+            LOG.log(Level.FINE, "Resize {0} from {1} to {2} threads at {3} tasks/s",
+                    new Object[]{name, current, next, throughput});
+            exe.setCorePoolSize(next);
+        }
+    }
+
+    private static double mean(long sumNanos, long count) {
+        return count <= 0 ? 0 : (sumNanos / (double) count) / 1_000_000_000D;
+    }
+
+    /**
+     * Decide the next core pool size from one sample.
+     *
+     * @param current The current core pool size
+     * @param throughput Tasks completed per second since the last sample
+     * @param meanRunSeconds Mean time running of those tasks
+     * @param meanWaitSeconds Mean time tasks started since the last sample
+     * waited
+     * @param queued The number of tasks waiting now
+     * @return The new size, which may be the same
+     */
+    int next(int current, double throughput, double meanRunSeconds,
+            double meanWaitSeconds, long queued) {
+        int target = (int) Math.ceil(throughput * meanRunSeconds / TARGET_UTILIZATION);
+        if (queued > 0 && meanWaitSeconds > targetWaitSeconds) {
+            target = Math.max(target, current + Math.max(1, current / 4));
+        }
+        target = clamp(target);
+        if (target > current) {
+            shrinkStreak = 0;
+            if (++growStreak >= GROW_SAMPLES) {
+                growStreak = 0;
+                return target;
+            }
+        } else if (target < current * SHRINK_THRESHOLD) {
+            growStreak = 0;
+            if (++shrinkStreak >= SHRINK_SAMPLES) {
+                shrinkStreak = 0;
+                return clamp(Math.max(target, current - Math.max(1, current / 8)));
+            }
+        } else {
+            growStreak = 0;
+            shrinkStreak = 0;
+        }
+        return clamp(current);
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveSizing(" + name + " " + min + "-" + max + ")";
+    }
+}
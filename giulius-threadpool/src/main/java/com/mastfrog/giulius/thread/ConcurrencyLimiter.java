@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of submitted tasks which may run at once in an executor
+ * which would otherwise run all of them - such as one that starts a virtual
+ * thread per task - by having each acquire a permit on the thread it runs on
+ * before running.
+ *
+ * @author Tim Boudreau
+ */
+final class ConcurrencyLimiter implements ExecutionWrapper {
+
+    private final Semaphore permits;
+    private final int max;
+
+    ConcurrencyLimiter(int max) {
+        this.max = max;
+        this.permits = new Semaphore(max, true);
+    }
+
+    int available() {
+        return permits.availablePermits();
+    }
+
+    int waiting() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public Runnable wrap(Runnable work) {
+        return () -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                // Executor shut down while waiting - do not run the work, and
+                // fail rather than letting a Future for it complete normally
+                Thread.currentThread().interrupt();
+                CancellationException ce = new CancellationException(
+                        "Interrupted waiting for a permit to run " + work);
+                ce.initCause(ex);
+                throw ce;
+            }
+            try {
+                work.run();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    @Override
+    public <V> Callable<V> wrap(Callable<V> work) {
+        return () -> {
+            permits.acquire();
+            try {
+                return work.call();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter(" + max + ")";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Injectable registry of the metrics of every executor bound by a
+ * ThreadModule with metrics enabled, either by
+ * {@link ExecutorServiceBuilder#withMetrics()} or by setting
+ * <code>bindingName.metrics</code> to true. An executor's metrics are
+ * present once it has been created.
+ *
+ * @author Tim Boudreau
+ */
+@Singleton
+public final class ExecutorMetrics implements Iterable<PoolMetrics> {
+
+    private final Map<String, PoolMetrics> pools = new ConcurrentSkipListMap<>();
+
+    @Inject
+    ExecutorMetrics() {
+    }
+
+    /**
+     * Get the metrics for an executor.
+     *
+     * @param bindingName The name it is bound with
+     * @return The metrics, if it has been created and has metrics enabled
+     */
+    public Optional<PoolMetrics> get(String bindingName) {
+        return Optional.ofNullable(pools.get(bindingName));
+    }
+
+    /**
+     * Get the names of executors which have metrics.
+     *
+     * @return A set of binding names
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(pools.keySet());
+    }
+
+    @Override
+    public Iterator<PoolMetrics> iterator() {
+        return Collections.unmodifiableCollection(new ArrayList<>(pools.values())).iterator();
+    }
+
+    PoolMetrics create(String bindingName) {
+        return pools.computeIfAbsent(bindingName, PoolMetrics::new);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ExecutorMetrics:");
+        for (PoolMetrics pool : this) {
+            sb.append('\n').append(pool);
+        }
+        return sb.toString();
+    }
+}
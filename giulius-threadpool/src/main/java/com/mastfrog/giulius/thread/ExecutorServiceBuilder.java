@@ -63,6 +63,12 @@ public abstract class ExecutorServiceBuilder {
     RejectedExecutionPolicy rejectedPolicy
             = RejectedExecutionPolicy.defaultPolicy();
     ShutdownBatch shutdownBatch = ShutdownBatch.DEFAULT;
+    int maxConcurrency;
+    boolean metrics;
+    QueueType queueType = QueueType.UNBOUNDED;
+    int queueCapacity = QueueType.DEFAULT_CAPACITY;
+    int adaptiveMin;
+    int adaptiveMax;
     final List<ExecutionWrapper> wrappers = new ArrayList<>();
 
     ExecutorServiceBuilder(String bindingName) {
@@ -81,16 +87,11 @@ public abstract class ExecutorServiceBuilder {
      * Use one or more ExecutionWrappers to run submit/before/after logic on all
      * submitted runnables or callables - this is useful for propagating
      * thread-local context, incrementing concurrency counters and similar.
-     * <p>
-     * Note, ExecutionWrappers <i>cannot</i> be used with fork-join /
-     * work-stealing pools - there are too many internal paths by which work
-     * passed to the pool may be executed to guarantee that wrappers will always
-     * be run.
-     * </p>
      *
      * @param wrapper A wrapper
      * @param moreWrappers Some more wrappers
      * @return this
+     * @see ThreadPoolType#FORK_JOIN for how wrappers apply to fork-join pools
      */
     public ExecutorServiceBuilder wrappingSubmissionsWith(ExecutionWrapper wrapper, ExecutionWrapper... moreWrappers) {
         wrappers.add(wrapper);
@@ -103,15 +104,10 @@ public abstract class ExecutorServiceBuilder {
     /**
      * Wrap all submitted runnables and callables in before/after logic using
      * the passed converter.
-     * <p>
-     * Note, ExecutionWrappers <i>cannot</i> be used with fork-join /
-     * work-stealing pools - there are too many internal paths by which work
-     * passed to the pool may be executed to guarantee that wrappers will always
-     * be run.
-     * </p>
      *
      * @param cvt A converter
      * @return this
+     * @see ThreadPoolType#FORK_JOIN for how wrappers apply to fork-join pools
      */
     public ExecutorServiceBuilder wrappingSubmissionsWith(CallableConverter cvt) {
         wrappers.add(executionWrapper(cvt));
@@ -121,15 +117,10 @@ public abstract class ExecutorServiceBuilder {
     /**
      * Wrap all submitted runnables and callables in before/after logic using
      * the passed function.
-     * <p>
-     * Note, ExecutionWrappers <i>cannot</i> be used with fork-join /
-     * work-stealing pools - there are too many internal paths by which work
-     * passed to the pool may be executed to guarantee that wrappers will always
-     * be run.
-     * </p>
      *
      * @param cvt A converter
      * @return this
+     * @see ThreadPoolType#FORK_JOIN for how wrappers apply to fork-join pools
      */
     public ExecutorServiceBuilder wrappingSubmissionsWith(Function<Runnable, Runnable> cvt) {
         wrappers.add(executionWrapper(cvt));
@@ -140,16 +131,11 @@ public abstract class ExecutorServiceBuilder {
      * Propagate the value of the passed ThreadLocal (if any) at the time of
      * submission to the same ThreadLocal before invoking any runnable/callable,
      * resetting it for the worker thread after the work has been run.
-     * <p>
-     * Note, ExecutionWrappers <i>cannot</i> be used with fork-join /
-     * work-stealing pools - there are too many internal paths by which work
-     * passed to the pool may be executed to guarantee that wrappers will always
-     * be run.
-     * </p>
      *
      * @param <X> The thread local's parameter type
      * @param tl A thread local
      * @return this
+     * @see ThreadPoolType#FORK_JOIN for how wrappers apply to fork-join pools
      */
     public <X> ExecutorServiceBuilder propagatingThreadLocal(ThreadLocal<X> tl) {
         wrappers.add(ExecutionWrapper.propagatingThreadLocal(tl));
@@ -302,6 +288,81 @@ public abstract class ExecutorServiceBuilder {
         return this;
     }
 
+    /**
+     * For {@link ThreadPoolType#VIRTUAL} pools, set the maximum number of
+     * tasks which may run at once; further tasks wait, on their own virtual
+     * threads, for one to finish. Overridden by
+     * <code>bindingName.maxConcurrency</code> in settings. By default there is
+     * no limit.
+     *
+     * @param maxConcurrency The maximum number of concurrently running tasks
+     * @return this
+     */
+    public ExecutorServiceBuilder withMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = greaterThanZero("maxConcurrency", maxConcurrency);
+        return this;
+    }
+
+    /**
+     * For {@link ThreadPoolType#STANDARD} pools, set the kind of queue work
+     * waits in, and its capacity if bounded. Overridden by
+     * <code>bindingName.queue</code> and <code>bindingName.queueCapacity</code>
+     * in settings. Once a bounded queue is full and all threads are busy,
+     * further work is handled according to the
+     * {@link #withRejectedExecutionPolicy(RejectedExecutionPolicy) rejected execution policy}.
+     *
+     * @param type The queue type
+     * @param capacity The capacity, ignored for unbounded queues
+     * @return this
+     */
+    public ExecutorServiceBuilder withQueue(QueueType type, int capacity) {
+        this.queueType = notNull("type", type);
+        this.queueCapacity = greaterThanZero("capacity", capacity);
+        return this;
+    }
+
+    /**
+     * For {@link ThreadPoolType#STANDARD} pools, periodically resize the
+     * pool between the passed bounds according to its observed throughput,
+     * task run time and queueing - useful where load varies widely over the
+     * day. The thread count becomes the initial size. May also be enabled by
+     * setting <code>bindingName.adaptive</code> to true; the bounds may be
+     * overridden with <code>bindingName.adaptive.min</code> and
+     * <code>bindingName.adaptive.max</code>, and
+     * <code>bindingName.adaptive.intervalMillis</code> and
+     * <code>bindingName.adaptive.targetWaitMillis</code> set how often the
+     * pool is sampled (default 1000) and how long tasks may wait in the queue
+     * before it grows regardless of the estimate (default 10). Idle threads
+     * above the current size exit after <code>bindingName.keepAliveSeconds</code>,
+     * or 30 seconds if that is not set.
+     *
+     * @param min The minimum number of threads
+     * @param max The maximum number of threads
+     * @return this
+     */
+    public ExecutorServiceBuilder withAdaptiveSizing(int min, int max) {
+        this.adaptiveMin = greaterThanZero("min", min);
+        if (max < min) {
+            throw new IllegalArgumentException("max " + max + " < min " + min);
+        }
+        this.adaptiveMax = max;
+        return this;
+    }
+
+    /**
+     * Record counters and wait and run time histograms for every task run by
+     * this executor, available from the injectable {@link ExecutorMetrics}.
+     * May also be enabled by setting <code>bindingName.metrics</code> to
+     * true. For fork-join and work-stealing pools, only tasks submitted to the
+     * pool are counted, not subtasks they fork.
+     *
+     * @return this
+     */
+    public ExecutorServiceBuilder withMetrics() {
+        this.metrics = true;
+        return this;
+    }
+
     /**
      * Handles the case that for backward compatibility, some applications may
      * use a different name for the binding which has been deprecated.
@@ -362,6 +423,16 @@ public abstract class ExecutorServiceBuilder {
         return this.withThreadPoolType(ThreadPoolType.SCHEDULED);
     }
 
+    /**
+     * Convenience method for
+     * <code>withThreadPoolType(ThreadPoolType.VIRTUAL)</code>
+     *
+     * @return this
+     */
+    public ExecutorServiceBuilder virtual() {
+        return this.withThreadPoolType(ThreadPoolType.VIRTUAL);
+    }
+
     public ExecutorServiceBuilder withRejectedExecutionPolicy(RejectedExecutionPolicy policy) {
         this.rejectedPolicy = policy;
         return this;
@@ -378,9 +449,6 @@ public abstract class ExecutorServiceBuilder {
                                 + "RejectedExecutionPolicy - ForkJoinPool does not support "
                                 + "RejectedExecutionHandlers, but have policy " + rejectedPolicy);
                     }
-                    if (!wrappers.isEmpty()) {
-                        throw new IllegalArgumentException("Cannot wrap runnables in a Fork-Join pool");
-                    }
             }
         }
     }
@@ -33,10 +33,10 @@ import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
 import com.mastfrog.settings.Settings;
 import com.mastfrog.shutdown.hooks.ShutdownHookRegistry;
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -61,12 +61,22 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
     private final RejectedExecutionPolicy rejectedPolicy;
     private final ShutdownBatch shutdownBatch;
     private final ExecutionWrapper[] wrappers;
+    private final int maxConcurrency;
+    private final Provider<ExecutorMetrics> metricsRegistry;
+    private final boolean metrics;
+    private final QueueType queueType;
+    private final int queueCapacity;
+    private final int adaptiveMin;
+    private final int adaptiveMax;
+    private volatile AdaptiveSizing sizing;
 
     ExecutorServiceProvider(GiuliusThreadFactory tf, ThreadCount count, Provider<Settings> settings,
             Provider<Thread.UncaughtExceptionHandler> uncaught,
             ThreadPoolType type, Provider<ShutdownHookRegistry> reg,
             RejectedExecutionPolicy rejectedPolicy, ShutdownBatch shutdownBatch,
-            ExecutionWrapper[] wrappers) {
+            ExecutionWrapper[] wrappers, int maxConcurrency,
+            Provider<ExecutorMetrics> metricsRegistry, boolean metrics,
+            QueueType queueType, int queueCapacity, int adaptiveMin, int adaptiveMax) {
         this.tf = tf;
         this.count = count;
         this.settings = settings;
@@ -76,6 +86,13 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
         this.rejectedPolicy = rejectedPolicy;
         this.shutdownBatch = shutdownBatch;
         this.wrappers = wrappers;
+        this.maxConcurrency = maxConcurrency;
+        this.metricsRegistry = metricsRegistry;
+        this.metrics = metrics;
+        this.queueType = queueType;
+        this.queueCapacity = queueCapacity;
+        this.adaptiveMin = adaptiveMin;
+        this.adaptiveMax = adaptiveMax;
     }
 
     ThreadPoolType type() {
@@ -93,22 +110,72 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
         return type;
     }
 
+    private PoolMetrics metrics(ThreadPoolType type) {
+        if (!settings.get().getBoolean(tf.name() + ".metrics", metrics)) {
+            return null;
+        }
+        return metricsRegistry.get().create(tf.name());
+    }
+
+    private QueueType queueType() {
+        String name = settings.get().getString(tf.name() + ".queue");
+        if (name == null) {
+            return queueType;
+        }
+        try {
+            return QueueType.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(tf.name() + ".queue must be one of "
+                    + Arrays.toString(QueueType.values()) + " but is '" + name + "'", ex);
+        }
+    }
+
+    private static boolean shouldWrap(ExecutionWrapper[] wrappers, PoolMetrics metrics) {
+        return metrics != null || (wrappers != null && wrappers.length > 0);
+    }
+
+    private static void trackQueue(PoolMetrics metrics, ExecutorService exe) {
+        if (metrics != null && exe instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) exe;
+            metrics.queueDepth(() -> tpe.getQueue().size());
+        } else if (metrics != null && exe instanceof ForkJoinPool) {
+            ForkJoinPool fjp = (ForkJoinPool) exe;
+            metrics.queueDepth(fjp::getQueuedSubmissionCount);
+        }
+    }
+
+    private ForkJoinPool wrappingForkJoinPool(int threads, boolean async, int corePoolSize,
+            long keepAliveSeconds, PoolMetrics pm) {
+        if (!rejectedPolicy.isDefault() || corePoolSize != threads || keepAliveSeconds != Long.MAX_VALUE) {
+            Logger.getLogger(ExecutorServiceProvider.class.getName()).log(Level.WARNING,
+                    "corePoolSize and keepAliveSeconds are not supported for fork-join pool "
+                    + "''{0}'' with ExecutionWrappers or metrics", tf.name());
+        }
+        WrappingForkJoinPool result = new WrappingForkJoinPool(threads, tf, uncaught.get(), async,
+                new WrapperChain(pm, wrappers));
+        trackQueue(pm, result);
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     private T create() {
         int threads = count.get();
         int corePoolSize = settings.get().getInt(tf.name() + ".corePoolSize", threads);
         threads = Math.max(corePoolSize, threads);
-        long keepAliveSeconds = settings.get().getLong(tf.name() + ".keepAliveSeconds", Long.MAX_VALUE);
+        Long explicitKeepAlive = settings.get().getLong(tf.name() + ".keepAliveSeconds");
+        long keepAliveSeconds = explicitKeepAlive == null ? Long.MAX_VALUE : explicitKeepAlive;
         if (keepAliveSeconds < 0) {
             throw new IllegalArgumentException(tf.name() + ".keepAliveSeconds may not be < 0 but is " + keepAliveSeconds);
         }
         if (corePoolSize < 0) {
             throw new IllegalArgumentException(tf.name() + ".corePoolSize may not be < 0 but is " + corePoolSize);
         }
-        switch (type()) {
+        ThreadPoolType type = type();
+        PoolMetrics pm = metrics(type);
+        switch (type) {
             case FORK_JOIN:
-                if (wrappers != null && wrappers.length > 0) {
-                    throw new IllegalStateException("Cannot use ExecutionWrappers with a fork-join pool");
+                if (shouldWrap(wrappers, pm)) {
+                    return (T) wrappingForkJoinPool(threads, false, corePoolSize, keepAliveSeconds, pm);
                 }
                 if (!rejectedPolicy.isDefault() || corePoolSize != threads || keepAliveSeconds != Long.MAX_VALUE) {
                     T result = (T) reflectivelyCreateJDK11ForkJoinPool(threads, corePoolSize, keepAliveSeconds);
@@ -118,8 +185,8 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
                 }
                 return (T) new ForkJoinPool(threads, tf, uncaught.get(), false);
             case WORK_STEALING:
-                if (wrappers != null && wrappers.length > 0) {
-                    throw new IllegalStateException("Cannot use ExecutionWrappers with a fork-join pool");
+                if (shouldWrap(wrappers, pm)) {
+                    return (T) wrappingForkJoinPool(threads, true, corePoolSize, keepAliveSeconds, pm);
                 }
                 if (!rejectedPolicy.isDefault() || corePoolSize != threads || keepAliveSeconds != Long.MAX_VALUE) {
                     T result = (T) reflectivelyCreateJDK11ForkJoinPool(threads, corePoolSize, keepAliveSeconds);
@@ -130,26 +197,77 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
                 return (T) new ForkJoinPool(threads, tf, uncaught.get(), true);
             case STANDARD:
                 ExecutorService exe;
-                if (!rejectedPolicy.isDefault() || corePoolSize != threads || keepAliveSeconds != Long.MAX_VALUE) {
-                    exe = new ThreadPoolExecutor(corePoolSize, threads, keepAliveSeconds, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), tf, rejectedPolicy.policy());
+                QueueType queue = queueType();
+                int capacity = settings.get().getInt(tf.name() + ".queueCapacity", queueCapacity);
+                if (capacity <= 0) {
+                    throw new IllegalArgumentException(tf.name() + ".queueCapacity must be > 0 but is " + capacity);
+                }
+                AdaptiveSizing adaptive = AdaptiveSizing.forPool(tf.name(), settings.get(), adaptiveMin, adaptiveMax, threads);
+                if (adaptive != null) {
+                    // The controller needs metrics, whether or not they are published
+                    if (pm == null) {
+                        pm = new PoolMetrics(tf.name());
+                    }
+                    corePoolSize = adaptive.clamp(threads);
+                    threads = adaptive.max;
+                    if (explicitKeepAlive == null) {
+                        keepAliveSeconds = AdaptiveSizing.DEFAULT_KEEP_ALIVE_SECONDS;
+                    }
+                }
+                if (adaptive != null || !rejectedPolicy.isDefault() || !queue.isDefault() || corePoolSize != threads || keepAliveSeconds != Long.MAX_VALUE) {
+                    exe = new ThreadPoolExecutor(corePoolSize, threads, keepAliveSeconds, TimeUnit.SECONDS, queue.create(capacity), tf,
+                            pm == null || rejectedPolicy.isDefault() ? rejectedPolicy.policy() : pm.counting(rejectedPolicy.policy()));
                 } else {
                     exe = (threads == 1 ? Executors.newSingleThreadExecutor(tf) : Executors.newFixedThreadPool(threads, tf));
                 }
-                if (wrappers != null && wrappers.length > 0) {
-                    return (T) new WrappingExecutor(exe, wrappers);
+                trackQueue(pm, exe);
+                if (adaptive != null) {
+                    adaptive.start((ThreadPoolExecutor) exe, pm);
+                    sizing = adaptive;
+                }
+                if (shouldWrap(wrappers, pm)) {
+                    return (T) new WrappingExecutor(exe, pm, wrappers);
                 }
                 return (T) exe;
             case SCHEDULED:
                 ScheduledExecutorService sched;
                 if (!rejectedPolicy.isDefault()) {
-                    sched = new ScheduledThreadPoolExecutor(threads, tf, rejectedPolicy.policy());
+                    sched = new ScheduledThreadPoolExecutor(threads, tf,
+                            pm == null ? rejectedPolicy.policy() : pm.counting(rejectedPolicy.policy()));
                 } else {
                     sched = (threads == 1 ? Executors.newSingleThreadScheduledExecutor() : Executors.newScheduledThreadPool(threads, tf));
                 }
-                if (wrappers != null && wrappers.length > 0) {
-                    return (T) new WrappingScheduledExecutor(sched, wrappers);
+                trackQueue(pm, sched);
+                if (shouldWrap(wrappers, pm)) {
+                    return (T) new WrappingScheduledExecutor(sched, pm, wrappers);
                 }
                 return (T) sched;
+            case VIRTUAL:
+                int limit = settings.get().getInt(tf.name() + ".maxConcurrency", maxConcurrency);
+                if (limit < 0) {
+                    throw new IllegalArgumentException(tf.name() + ".maxConcurrency may not be < 0 but is " + limit);
+                }
+                ExecutorService virt = VirtualThreads.newThreadPerTaskExecutor(tf.name(), uncaught.get());
+                ExecutionWrapper[] wraps = wrappers;
+                if (virt == null) {
+                    // Older JDK - the pool size is the limit
+                    int poolSize = limit > 0 ? limit : threads;
+                    virt = poolSize == 1 ? Executors.newSingleThreadExecutor(tf) : Executors.newFixedThreadPool(poolSize, tf);
+                } else if (limit > 0) {
+                    // Outermost, so other wrappers run only once a permit is acquired
+                    ConcurrencyLimiter limiter = new ConcurrencyLimiter(limit);
+                    if (wraps == null) {
+                        wraps = new ExecutionWrapper[]{limiter};
+                    } else {
+                        wraps = Arrays.copyOf(wraps, wraps.length + 1);
+                        wraps[wraps.length - 1] = limiter;
+                    }
+                }
+                trackQueue(pm, virt);
+                if (shouldWrap(wraps, pm)) {
+                    return (T) new WrappingExecutor(virt, pm, wraps);
+                }
+                return (T) virt;
             default:
                 throw new AssertionError(type);
         }
@@ -223,6 +341,11 @@ final class ExecutorServiceProvider<T extends ExecutorService> implements Provid
                 if (service == null) {
                     this.svc = service = create();
                     shutdownBatch.apply(service, reg.get());
+                    AdaptiveSizing adaptive = sizing;
+                    if (adaptive != null) {
+                        // Added after the pool, so run before it is shut down
+                        reg.get().add((Runnable) adaptive::stop);
+                    }
                 }
             }
         }
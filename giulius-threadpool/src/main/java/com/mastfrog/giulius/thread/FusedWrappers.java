@@ -0,0 +1,259 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
+import com.mastfrog.giulius.thread.wrap.GranularExecutionWrapper;
+import static com.mastfrog.util.preconditions.Exceptions.chuck;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Several consecutive GranularExecutionWrappers fused into one, so wrapping a
+ * task allocates a single object, plus one flat array for what the wrappers
+ * return from onSubmit and onBeforeRun - which is not allocated at all if
+ * they all return null - rather than a closure per wrapper. Behaves exactly
+ * as the wrappers would nested: onSubmit is called in order, onBeforeRun from
+ * the last wrapper to the first, onAfterRun from the first to the last, and
+ * an exception - from the work or any callback - or its suppression by
+ * onAfterRun is seen by each wrapper outside where it occurred.
+ *
+ * @author Tim Boudreau
+ */
+final class FusedWrappers implements ExecutionWrapper {
+
+    private final GranularExecutionWrapper<Object, Object>[] wrappers;
+
+    @SuppressWarnings("unchecked")
+    FusedWrappers(List<GranularExecutionWrapper<?, ?>> wrappers) {
+        this.wrappers = wrappers.toArray(new GranularExecutionWrapper[wrappers.size()]);
+    }
+
+    int size() {
+        return wrappers.length;
+    }
+
+    /**
+     * Replace each run of two or more consecutive wrappers which can be fused
+     * with a single FusedWrappers.
+     *
+     * @param wrappers Some wrappers
+     * @return An array of wrappers with the same effect
+     */
+    static ExecutionWrapper[] fuse(ExecutionWrapper[] wrappers) {
+        List<ExecutionWrapper> result = new ArrayList<>(wrappers.length);
+        List<GranularExecutionWrapper<?, ?>> run = new ArrayList<>();
+        for (ExecutionWrapper w : wrappers) {
+            if (isFusable(w)) {
+                run.add((GranularExecutionWrapper<?, ?>) w);
+            } else {
+                flush(run, result);
+                result.add(w);
+            }
+        }
+        flush(run, result);
+        return result.toArray(new ExecutionWrapper[result.size()]);
+    }
+
+    private static void flush(List<GranularExecutionWrapper<?, ?>> run, List<ExecutionWrapper> into) {
+        if (run.size() == 1) {
+            // Nothing to gain
+            into.add(run.get(0));
+        } else if (run.size() > 1) {
+            into.add(new FusedWrappers(run));
+        }
+        run.clear();
+    }
+
+    /**
+     * A granular wrapper can be fused only if it uses the default wrap()
+     * methods, which the fused ones replicate.
+     */
+    static boolean isFusable(ExecutionWrapper w) {
+        if (!(w instanceof GranularExecutionWrapper<?, ?>)) {
+            return false;
+        }
+        try {
+            return w.getClass().getMethod("wrap", Runnable.class).getDeclaringClass() == GranularExecutionWrapper.class
+                    && w.getClass().getMethod("wrap", Callable.class).getDeclaringClass() == GranularExecutionWrapper.class;
+        } catch (NoSuchMethodException | SecurityException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public Runnable wrap(Runnable work) {
+        FusedRunnable result = new FusedRunnable(work);
+        result.submit();
+        return result;
+    }
+
+    @Override
+    public <V> Callable<V> wrap(Callable<V> work) {
+        FusedCallable<V> result = new FusedCallable<>(work);
+        result.submit();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FusedWrappers(");
+        for (int i = 0; i < wrappers.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(wrappers[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * The state of one wrapped task: slot i holds what wrapper i returned from
+     * onSubmit, slot n + i what it returned from onBeforeRun.
+     */
+    private abstract class Fused {
+
+        private Object[] slots;
+
+        final void submit() {
+            for (int i = 0; i < wrappers.length; i++) {
+                set(i, wrappers[i].onSubmit());
+            }
+        }
+
+        private void set(int slot, Object value) {
+            if (slots == null) {
+                if (value == null) {
+                    return;
+                }
+                slots = new Object[wrappers.length * 2];
+            }
+            slots[slot] = value;
+        }
+
+        private Object get(int slot) {
+            return slots == null ? null : slots[slot];
+        }
+
+        abstract Object work() throws Exception;
+
+        /**
+         * Run the work within the wrappers, as nested wrappers would.
+         *
+         * @return The result of the work
+         */
+        final Object execute() {
+            int n = wrappers.length;
+            Throwable thrown = null;
+            Object result = null;
+            // From the outermost in; if one throws, the ones outside it are
+            // the ones which were entered
+            int i = n - 1;
+            try {
+                for (; i >= 0; i--) {
+                    set(n + i, wrappers[i].onBeforeRun(get(i)));
+                }
+            } catch (Throwable t) {
+                thrown = t;
+            }
+            if (thrown == null) {
+                try {
+                    result = work();
+                } catch (Throwable t) {
+                    thrown = t;
+                }
+            }
+            for (int j = i + 1; j < n; j++) {
+                boolean rethrow;
+                try {
+                    rethrow = wrappers[j].onAfterRun(get(j), get(n + j), thrown);
+                } catch (Throwable t) {
+                    // Wrappers outside this one never see the result
+                    thrown = t;
+                    result = null;
+                    continue;
+                }
+                if (!rethrow) {
+                    thrown = null;
+                }
+            }
+            if (thrown != null) {
+                return chuck(thrown);
+            }
+            // As when nested, an exception suppressed by onAfterRun yields null
+            return result;
+        }
+    }
+
+    private final class FusedRunnable extends Fused implements Runnable {
+
+        private final Runnable work;
+
+        FusedRunnable(Runnable work) {
+            this.work = work;
+        }
+
+        @Override
+        Object work() {
+            work.run();
+            return null;
+        }
+
+        @Override
+        public void run() {
+            execute();
+        }
+
+        @Override
+        public String toString() {
+            return work.toString();
+        }
+    }
+
+    private final class FusedCallable<V> extends Fused implements Callable<V> {
+
+        private final Callable<V> work;
+
+        FusedCallable(Callable<V> work) {
+            this.work = work;
+        }
+
+        @Override
+        Object work() throws Exception {
+            return work.call();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V call() {
+            return (V) execute();
+        }
+
+        @Override
+        public String toString() {
+            return work.toString();
+        }
+    }
+}
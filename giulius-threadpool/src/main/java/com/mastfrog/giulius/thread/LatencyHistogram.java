@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, in the style of
+ * HdrHistogram: values are counted in buckets which double in width for each
+ * power of two, each split into eight linear sub-buckets, so any recorded
+ * value or percentile is accurate to within 12.5%, at a fixed cost of a few
+ * kilobytes and one atomic increment per value.
+ *
+ * @author Tim Boudreau
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketFor(nanos));
+        total.increment();
+        sum.add(nanos);
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return The count
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    long sumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return The maximum
+     */
+    public Duration max() {
+        return Duration.ofNanos(max.get());
+    }
+
+    /**
+     * Get the mean of the values recorded.
+     *
+     * @return The mean, or zero if none have been
+     */
+    public Duration mean() {
+        long count = total.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(sum.sum() / count);
+    }
+
+    /**
+     * Get the value below which the passed percentage of recorded values
+     * fall, such as 99.0 for the 99th percentile.
+     *
+     * @param percentile A percentage from 0 to 100
+     * @return The value at that percentile, or zero if none have been recorded
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between "
+                    + "0 and 100 but is " + percentile);
+        }
+        long count = total.sum();
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * (percentile / 100D)));
+        long seen = 0;
+        long highest = max.get();
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                long upper = i + 1 < BUCKETS ? lowestValueIn(i + 1) - 1 : Long.MAX_VALUE;
+                return Duration.ofNanos(Math.min(upper, highest));
+            }
+        }
+        return Duration.ofNanos(highest);
+    }
+
+    private static String millis(Duration d) {
+        return String.format("%.3fms", d.toNanos() / 1_000_000D);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count() + " mean=" + millis(mean())
+                + " p50=" + millis(percentile(50))
+                + " p90=" + millis(percentile(90))
+                + " p99=" + millis(percentile(99))
+                + " max=" + millis(max());
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import static com.mastfrog.util.preconditions.Checks.notNull;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free multi-producer, multi-consumer queue over a ring
+ * buffer, after Dmitry Vyukov's design: each slot carries a sequence number
+ * which tells producers and consumers whether it is free to write or ready
+ * to read, so offering and polling each cost a single compare-and-set with no
+ * lock. Consumers which find the queue empty spin briefly and then park until
+ * a producer wakes them; producers which find it full fail (or, in
+ * <code>put()</code>, back off and retry), so under a ThreadPoolExecutor a
+ * full queue is handled by its RejectedExecutionPolicy.
+ * <p>
+ * Capacity is rounded up to a power of two. Elements cannot be removed from
+ * the middle of the queue, so <code>remove(Object)</code> always returns
+ * false, and <code>ThreadPoolExecutor.remove()</code> and
+ * <code>purge()</code> have no effect.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+final class MpmcRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final int SPINS = 64;
+    private static final long MAX_BACKOFF_NANOS = 1_000_000;
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    MpmcRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Bad capacity " + capacity);
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        mask = size - 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        notNull("e", e);
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.lazySet(index, e);
+                    // Publishes the item to consumers
+                    sequences.set(index, pos + 1);
+                    if (!waiters.isEmpty()) {
+                        signal();
+                    }
+                    return true;
+                }
+            } else if (diff < 0) {
+                // Not yet consumed since the last lap - full
+                return false;
+            }
+            pos = tail.get();
+        }
+    }
+
+    @Override
+    public E poll() {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E result = items.get(index);
+                    items.lazySet(index, null);
+                    // Frees the slot for the producer's next lap
+                    sequences.set(index, pos + mask + 1);
+                    return result;
+                }
+            } else if (diff < 0) {
+                // Not yet written - empty
+                return null;
+            }
+            pos = head.get();
+        }
+    }
+
+    @Override
+    public E peek() {
+        long pos = head.get();
+        int index = (int) (pos & mask);
+        return sequences.get(index) == pos + 1 ? items.get(index) : null;
+    }
+
+    private void signal() {
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private E await(boolean timed, long nanos) throws InterruptedException {
+        E result = poll();
+        for (int i = 0; result == null && i < SPINS; i++) {
+            result = poll();
+        }
+        if (result != null) {
+            return result;
+        }
+        long deadline = timed ? System.nanoTime() + nanos : 0;
+        Thread me = Thread.currentThread();
+        for (;;) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            // Register before the final check, so an offer between the
+            // check and parking always sees us and unparks us
+            waiters.add(me);
+            result = poll();
+            if (result != null) {
+                if (!waiters.remove(me) && !isEmpty()) {
+                    // A producer's wakeup was meant for us - pass it on
+                    signal();
+                }
+                return result;
+            }
+            if (timed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    if (!waiters.remove(me) && !isEmpty()) {
+                        signal();
+                    }
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            waiters.remove(me);
+            result = poll();
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return await(false, 0);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        long backoff = 1_000;
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (nanos != Long.MAX_VALUE && remaining <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, nanos == Long.MAX_VALUE ? backoff : Math.min(backoff, remaining));
+            backoff = Math.min(MAX_BACKOFF_NANOS, backoff * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        // Read head first, so a concurrent poll cannot make the result negative
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity(), t - h));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null && head.get() >= tail.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int result = 0;
+        E e;
+        while (result < maxElements && (e = poll()) != null) {
+            c.add(e);
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a weakly consistent snapshot of the elements present when
+     * called, which does not support removal.
+     *
+     * @return An iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+            int index = (int) (pos & mask);
+            E item = items.get(index);
+            if (item != null && sequences.get(index) == pos + 1) {
+                snapshot.add(item);
+            }
+        }
+        Iterator<E> iter = snapshot.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return iter.next();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "MpmcRingBuffer(" + size() + "/" + capacity() + ")";
+    }
+}
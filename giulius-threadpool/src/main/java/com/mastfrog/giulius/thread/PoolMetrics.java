@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and histograms for one executor bound by ThreadModule with
+ * metrics enabled, recorded by wrapping each submitted task. Obtain these
+ * from the injectable {@link ExecutorMetrics}.
+ *
+ * @author Tim Boudreau
+ */
+public final class PoolMetrics {
+
+    private final String name;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder active = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private volatile LongSupplier queueDepth;
+
+    PoolMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the binding name of the executor.
+     *
+     * @return The name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Get the number of tasks submitted, including any which were rejected.
+     *
+     * @return The count
+     */
+    public long submitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Get the number of tasks which ran to completion without throwing.
+     *
+     * @return The count
+     */
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * Get the number of tasks which threw an exception.
+     *
+     * @return The count
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Get the number of tasks rejected by the executor.
+     *
+     * @return The count
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the number of tasks currently running, which is the number of
+     * threads actively doing work.
+     *
+     * @return The count
+     */
+    public long active() {
+        return active.sum();
+    }
+
+    /**
+     * Get the number of tasks waiting to run - the size of the executor's
+     * queue where it has one, otherwise the number submitted but not yet
+     * started.
+     *
+     * @return The queue depth
+     */
+    public long queued() {
+        LongSupplier depth = queueDepth;
+        if (depth != null) {
+            return depth.getAsLong();
+        }
+        return Math.max(0, submitted.sum() - started.sum() - rejected.sum());
+    }
+
+    /**
+     * Get the time tasks spent between submission and starting to run.
+     * Periodic and delayed tasks on scheduled executors are not included.
+     *
+     * @return A histogram
+     */
+    public LatencyHistogram waitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Get the time tasks spent running.
+     *
+     * @return A histogram
+     */
+    public LatencyHistogram runTime() {
+        return runTime;
+    }
+
+    void queueDepth(LongSupplier depth) {
+        this.queueDepth = depth;
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    RejectedExecutionHandler counting(RejectedExecutionHandler handler) {
+        return (r, exe) -> {
+            rejected.increment();
+            handler.rejectedExecution(r, exe);
+        };
+    }
+
+    Runnable wrap(Runnable run) {
+        submitted.increment();
+        return new MeteredRunnable(run, System.nanoTime());
+    }
+
+    <T> Callable<T> wrap(Callable<T> call) {
+        submitted.increment();
+        return new MeteredCallable<>(call, System.nanoTime());
+    }
+
+    /**
+     * Wrap a task which will run after a delay or repeatedly, which is
+     * counted, but whose waiting time is not meaningful.
+     */
+    Runnable wrapScheduled(Runnable run) {
+        submitted.increment();
+        return new MeteredRunnable(run, -1);
+    }
+
+    <T> Callable<T> wrapScheduled(Callable<T> call) {
+        submitted.increment();
+        return new MeteredCallable<>(call, -1);
+    }
+
+    private long beforeRun(long submittedAt) {
+        long now = System.nanoTime();
+        if (submittedAt >= 0) {
+            waitTime.record(now - submittedAt);
+        }
+        started.increment();
+        active.increment();
+        return now;
+    }
+
+    private void afterRun(long startedAt, boolean success) {
+        runTime.record(System.nanoTime() - startedAt);
+        active.decrement();
+        if (success) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ": submitted=" + submitted() + " completed=" + completed()
+                + " failed=" + failed() + " rejected=" + rejected()
+                + " active=" + active() + " queued=" + queued()
+                + "\n  wait: " + waitTime + "\n  run:  " + runTime;
+    }
+
+    private final class MeteredRunnable implements Runnable {
+
+        private final Runnable delegate;
+        private final long submittedAt;
+
+        MeteredRunnable(Runnable delegate, long submittedAt) {
+            this.delegate = delegate;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            long start = beforeRun(submittedAt);
+            boolean success = false;
+            try {
+                delegate.run();
+                success = true;
+            } finally {
+                afterRun(start, success);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    private final class MeteredCallable<T> implements Callable<T> {
+
+        private final Callable<T> delegate;
+        private final long submittedAt;
+
+        MeteredCallable(Callable<T> delegate, long submittedAt) {
+            this.delegate = delegate;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public T call() throws Exception {
+            long start = beforeRun(submittedAt);
+            boolean success = false;
+            try {
+                T result = delegate.call();
+                success = true;
+                return result;
+            } finally {
+                afterRun(start, success);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
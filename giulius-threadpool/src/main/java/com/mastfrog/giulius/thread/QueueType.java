@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The work queue a {@link ThreadPoolType#STANDARD} pool should use, set with
+ * {@link ExecutorServiceBuilder#withQueue(QueueType, int)} or the settings
+ * <code>bindingName.queue</code> and <code>bindingName.queueCapacity</code>.
+ * With any but the default, work submitted when the queue is full and every
+ * thread is busy is handled by the pool's
+ * {@link ExecutorServiceBuilder.RejectedExecutionPolicy}.
+ *
+ * @author Tim Boudreau
+ */
+public enum QueueType {
+    /**
+     * An unbounded <code>LinkedBlockingQueue</code> - the default, which
+     * never rejects work, and so can grow without limit under overload.
+     */
+    UNBOUNDED,
+    /**
+     * A <code>LinkedBlockingQueue</code> with a capacity.
+     */
+    BOUNDED,
+    /**
+     * An <code>ArrayBlockingQueue</code> - preallocated, with a single lock
+     * shared by producers and consumers.
+     */
+    ARRAY,
+    /**
+     * A lock-free multi-producer, multi-consumer ring buffer, for pools where
+     * contention on the queue's locks is a bottleneck at high submission
+     * rates. Capacity is rounded up to a power of two, and queued work cannot
+     * be removed individually with <code>ThreadPoolExecutor.remove()</code>.
+     */
+    MPMC;
+
+    /**
+     * The capacity used for bounded queues if none is specified.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    boolean isDefault() {
+        return this == UNBOUNDED;
+    }
+
+    BlockingQueue<Runnable> create(int capacity) {
+        switch (this) {
+            case UNBOUNDED:
+                return new LinkedBlockingQueue<>();
+            case BOUNDED:
+                return new LinkedBlockingQueue<>(capacity);
+            case ARRAY:
+                return new ArrayBlockingQueue<>(capacity);
+            case MPMC:
+                return new MpmcRingBuffer<>(capacity);
+            default:
+                throw new AssertionError(this);
+        }
+    }
+}
@@ -49,7 +49,8 @@ import java.util.concurrent.ThreadFactory;
  * thread count; if settings contains "foo.priority" that's the priority. THe
  * thread group, thread factory and executor service will all be bound with the
  * binding name, so any of those can be injected with &#064Named. foo.type can
- * determine which ThreadPoolType is used.
+ * determine which ThreadPoolType is used, and if foo.metrics is true, task
+ * counts and timings are recorded in the injectable {@link ExecutorMetrics}.
  * <p>
  * Binds both the types ExecutorService and Executor (and
  * ScheduledExecutorService if that type is set). You also get a binding to
@@ -65,7 +66,9 @@ import java.util.concurrent.ThreadFactory;
  * Dependencies.shutdown() is called.
  * <p>
  * Limitations: ForkJoinPools offer less flexibility, so some features (thread
- * group, stack size) are not supported for them.
+ * group, stack size) are not supported for them. Nor are they for virtual
+ * thread pools, whose threads are never returned by the &#064;Named Thread
+ * binding.
  *
  * @author Tim Boudreau
  */
@@ -122,6 +125,7 @@ public class ThreadModule extends AbstractModule {
             Provider<ShutdownHookRegistry> shutdown = binder.getProvider(ShutdownHookRegistry.class);
             Provider<UncaughtExceptionHandler> ueh = this.handler == null ? binder.getProvider(UncaughtExceptionHandler.class) : this.handler;
             Provider<Settings> settings = binder.getProvider(Settings.class);
+            Provider<ExecutorMetrics> metricsRegistry = binder.getProvider(ExecutorMetrics.class);
 
             GiuliusThreadFactory threadFactory = new GiuliusThreadFactory(bindingName, ueh, priority, settings, supplier, stackSize);
             binder.bind(ThreadGroup.class).annotatedWith(Names.named(bindingName)).toInstance(threadFactory.tg);
@@ -138,7 +142,9 @@ public class ThreadModule extends AbstractModule {
                     .toInstance(threadFactory);
             if (type != ThreadPoolType.SCHEDULED) {
                 Provider<ExecutorService> exeProvider = new ExecutorServiceProvider<>(threadFactory,
-                        threadCount, settings, ueh, type, shutdown, rejectedPolicy, shutdownBatch, wrappers());
+                        threadCount, settings, ueh, type, shutdown, rejectedPolicy, shutdownBatch, wrappers(), maxConcurrency,
+                        metricsRegistry, metrics, queueType, queueCapacity,
+                        adaptiveMin, adaptiveMax);
                 bindOne(binder, ExecutorService.class, bindingName, exeProvider);
                 bindOne(binder, Executor.class, bindingName, exeProvider);
                 bindOne(binder, Thread.class, bindingName, threadFactory);
@@ -155,7 +161,9 @@ public class ThreadModule extends AbstractModule {
                 }
             } else {
                 Provider<ScheduledExecutorService> exeProvider = new ExecutorServiceProvider<>(threadFactory,
-                        threadCount, settings, ueh, type, shutdown, rejectedPolicy, shutdownBatch, wrappers());
+                        threadCount, settings, ueh, type, shutdown, rejectedPolicy, shutdownBatch, wrappers(), maxConcurrency,
+                        metricsRegistry, metrics, queueType, queueCapacity,
+                        adaptiveMin, adaptiveMax);
                 bindOne(binder, ScheduledExecutorService.class, bindingName, exeProvider);
                 bindOne(binder, ExecutorService.class, bindingName, exeProvider);
                 bindOne(binder, Executor.class, bindingName, exeProvider);
@@ -32,16 +32,29 @@ public enum ThreadPoolType {
      * <code>Executors.newCachedThreadPool()</code> .
      */
     STANDARD, /**
-     * Create a fork-join pool.
+     * Create a fork-join pool. Execution wrappers, such as propagated thread
+     * locals, are run around each task submitted to the pool, on the thread
+     * it starts on; subtasks it forks which are stolen by other workers run
+     * without them, as the JDK offers no hook into stealing.
      */
     FORK_JOIN, /**
      * Create a work-stealing pool (a fork join pool with its async parameter
-     * set to true)..
+     * set to true).. Wrappers apply as they do for {@link #FORK_JOIN}.
      */
     WORK_STEALING, /**
      * Create a scheduled executor service and bind ScheduledExecutorService for
      * it, in addition to ExecutorService and Executor.
      */
-    SCHEDULED
+    SCHEDULED,
+    /**
+     * Create an executor which runs each task on a new virtual thread, for
+     * blocking I/O workloads, optionally limited in how many tasks may run at
+     * once by <code>bindingName.maxConcurrency</code> or
+     * {@link ExecutorServiceBuilder#withMaxConcurrency(int)}. The thread count
+     * is not used. On JDKs older than 21, falls back to a standard pool of
+     * platform threads, sized by the concurrency limit if there is one and
+     * the thread count if not.
+     */
+    VIRTUAL
 
 }
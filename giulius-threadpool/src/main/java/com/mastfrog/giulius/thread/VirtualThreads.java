@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reflective access to JDK 21 virtual threads, so this library can still be
+ * built for and run on older JDKs.
+ *
+ * @author Tim Boudreau
+ */
+final class VirtualThreads {
+
+    private static volatile boolean unsupported;
+    private static Method ofVirtual;
+    private static Method name;
+    private static Method uncaught;
+    private static Method factory;
+    private static Method newThreadPerTaskExecutor;
+
+    private VirtualThreads() {
+        throw new AssertionError();
+    }
+
+    private static synchronized boolean init() {
+        if (unsupported) {
+            return false;
+        } else if (newThreadPerTaskExecutor != null) {
+            return true;
+        }
+        // XXX jdk21 get rid of this when we can assume a newer JDK than 8
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, Long.TYPE);
+            uncaught = builder.getMethod("uncaughtExceptionHandler",
+                    Thread.UncaughtExceptionHandler.class);
+            factory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod(
+                    "newThreadPerTaskExecutor", ThreadFactory.class);
+            return true;
+        } catch (Exception | Error e) {
+            unsupported = true;
+            Logger.getLogger(VirtualThreads.class.getName()).log(Level.WARNING,
+                    "Virtual threads not supported on JDK {0}",
+                    System.getProperty("java.version"));
+            return false;
+        }
+    }
+
+    /**
+     * Determine whether this JDK supports virtual threads.
+     *
+     * @return true if virtual threads can be created
+     */
+    static boolean isSupported() {
+        return !unsupported && init();
+    }
+
+    /**
+     * Create an executor which starts a new virtual thread for each task,
+     * named <code>bindingName-0</code>, <code>bindingName-1</code>, etc.
+     *
+     * @param bindingName The binding name
+     * @param ueh The uncaught exception handler
+     * @return An executor, or null if virtual threads are not supported or
+     * creating one fails
+     */
+    static ExecutorService newThreadPerTaskExecutor(String bindingName,
+            Thread.UncaughtExceptionHandler ueh) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Object builder = ofVirtual.invoke(null);
+            builder = name.invoke(builder, bindingName + "-", 0L);
+            if (ueh != null) {
+                builder = uncaught.invoke(builder, ueh);
+            }
+            ThreadFactory tf = (ThreadFactory) factory.invoke(builder);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, tf);
+        } catch (Exception | Error e) {
+            Logger.getLogger(VirtualThreads.class.getName()).log(Level.WARNING,
+                    "Error reflectively creating virtual thread executor for " + bindingName, e);
+            return null;
+        }
+    }
+}
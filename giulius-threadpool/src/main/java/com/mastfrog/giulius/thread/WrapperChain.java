@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The metrics and ExecutionWrappers applied to every task submitted to a
+ * pool, shared by the wrapping executor types. Consecutive granular wrappers
+ * are fused, so each task is wrapped in one object rather than one per
+ * wrapper.
+ *
+ * @author Tim Boudreau
+ */
+final class WrapperChain {
+
+    private final ExecutionWrapper[] wrappers;
+    final PoolMetrics metrics;
+
+    WrapperChain(PoolMetrics metrics, ExecutionWrapper... wrappers) {
+        this.metrics = metrics;
+        this.wrappers = wrappers == null ? new ExecutionWrapper[0] : FusedWrappers.fuse(wrappers);
+    }
+
+    RejectedExecutionException rejected(RejectedExecutionException ex) {
+        if (metrics != null) {
+            metrics.onRejected();
+        }
+        return ex;
+    }
+
+    Runnable wrap(Runnable run) {
+        // Metrics innermost, so waiting time includes any wrapper's setup
+        if (metrics != null) {
+            run = metrics.wrap(run);
+        }
+        for (ExecutionWrapper e : wrappers) {
+            run = e.wrap(run);
+        }
+        return run;
+    }
+
+    <T> Callable<T> wrap(Callable<T> call) {
+        if (metrics != null) {
+            call = metrics.wrap(call);
+        }
+        for (ExecutionWrapper e : wrappers) {
+            call = e.wrap(call);
+        }
+        return call;
+    }
+
+    Runnable wrapScheduled(Runnable run) {
+        if (metrics != null) {
+            run = metrics.wrapScheduled(run);
+        }
+        for (ExecutionWrapper e : wrappers) {
+            run = e.wrap(run);
+        }
+        return run;
+    }
+
+    <T> Callable<T> wrapScheduled(Callable<T> call) {
+        if (metrics != null) {
+            call = metrics.wrapScheduled(call);
+        }
+        for (ExecutionWrapper e : wrappers) {
+            call = e.wrap(call);
+        }
+        return call;
+    }
+
+    <T> List<Callable<T>> wrap(Collection<? extends Callable<T>> calls) {
+        List<Callable<T>> result = new ArrayList<>(calls.size());
+        for (Callable<T> c : calls) {
+            result.add(wrap(c));
+        }
+        return result;
+    }
+}
@@ -24,13 +24,13 @@
 package com.mastfrog.giulius.thread;
 
 import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -41,11 +41,15 @@ import java.util.concurrent.TimeoutException;
 class WrappingExecutor<E extends ExecutorService> implements ExecutorService {
 
     final E delegate;
-    private final ExecutionWrapper[] wrappers;
+    private final WrapperChain chain;
 
     WrappingExecutor(E delegate, ExecutionWrapper... wrappers) {
+        this(delegate, null, wrappers);
+    }
+
+    WrappingExecutor(E delegate, PoolMetrics metrics, ExecutionWrapper... wrappers) {
         this.delegate = delegate;
-        this.wrappers = wrappers;
+        this.chain = new WrapperChain(metrics, wrappers);
     }
 
     @Override
@@ -75,17 +79,32 @@ class WrappingExecutor<E extends ExecutorService> implements ExecutorService {
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return delegate.submit(wrap(task));
+        Callable<T> wrapped = wrap(task);
+        try {
+            return delegate.submit(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
-        return delegate.submit(wrap(task), result);
+        Runnable wrapped = wrap(task);
+        try {
+            return delegate.submit(wrapped, result);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        return delegate.submit(wrap(task));
+        Runnable wrapped = wrap(task);
+        try {
+            return delegate.submit(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
@@ -110,29 +129,35 @@ class WrappingExecutor<E extends ExecutorService> implements ExecutorService {
 
     @Override
     public void execute(Runnable command) {
-        delegate.execute(wrap(command));
+        Runnable wrapped = wrap(command);
+        try {
+            delegate.execute(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
+    }
+
+    RejectedExecutionException rejected(RejectedExecutionException ex) {
+        return chain.rejected(ex);
     }
 
     Runnable wrap(Runnable run) {
-        for (ExecutionWrapper e : wrappers) {
-            run = e.wrap(run);
-        }
-        return run;
+        return chain.wrap(run);
     }
 
     <T> Callable<T> wrap(Callable<T> call) {
-        for (ExecutionWrapper e : wrappers) {
-            call = e.wrap(call);
-        }
-        return call;
+        return chain.wrap(call);
     }
 
-    private <T> List<Callable<T>> wrap(Collection<? extends Callable<T>> call) {
-        List<Callable<T>> result = new ArrayList<>();
-        for (Callable<T> c : call) {
-            result.add(wrap(c));
-        }
-        return result;
+    Runnable wrapScheduled(Runnable run) {
+        return chain.wrapScheduled(run);
     }
 
+    <T> Callable<T> wrapScheduled(Callable<T> call) {
+        return chain.wrapScheduled(call);
+    }
+
+    private <T> List<Callable<T>> wrap(Collection<? extends Callable<T>> calls) {
+        return chain.wrap(calls);
+    }
 }
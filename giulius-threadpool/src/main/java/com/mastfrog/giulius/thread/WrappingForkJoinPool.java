@@ -0,0 +1,263 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A ForkJoinPool which applies ExecutionWrappers (and metrics) to every task
+ * submitted to it. A submitted ForkJoinTask is run by a wrapped task which
+ * invokes it in place on the worker which picks it up, so subtasks it forks
+ * are pushed onto that worker's own deque and stolen as usual - work-stealing
+ * within the computation is untouched, with the limits described on
+ * {@link ThreadPoolType#FORK_JOIN}. Work submitted back to the pool from
+ * within a task, via its submit, execute or invoke methods, is wrapped like
+ * any other.
+ *
+ * @author Tim Boudreau
+ */
+final class WrappingForkJoinPool extends ForkJoinPool {
+
+    private final WrapperChain chain;
+    // Routes the timed invokeAll and invokeAny through execute(), which wraps
+    private final AbstractExecutorService invoker = new Invoker();
+
+    WrappingForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory,
+            Thread.UncaughtExceptionHandler handler, boolean asyncMode,
+            WrapperChain chain) {
+        super(parallelism, factory, handler, asyncMode);
+        this.chain = chain;
+    }
+
+    private <T> ForkJoinTask<T> adapt(ForkJoinTask<T> task) {
+        return new WrappedTask<>(task, chain);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof ForkJoinTask<?>) {
+            execute((ForkJoinTask<?>) task);
+            return;
+        }
+        Runnable wrapped = chain.wrap(task);
+        try {
+            super.execute(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+    }
+
+    @Override
+    public void execute(ForkJoinTask<?> task) {
+        ForkJoinTask<?> wrapped = adapt(task);
+        try {
+            super.execute(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        // The passed task completes when the wrapper invokes it, or is
+        // settled by the wrapper if it never gets to
+        execute(task);
+        return task;
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        Callable<T> wrapped = chain.wrap(task);
+        try {
+            return super.submit(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        Runnable wrapped = chain.wrap(task);
+        try {
+            return super.submit(wrapped, result);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+    }
+
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        if (task instanceof ForkJoinTask<?>) {
+            return submit((ForkJoinTask<?>) task);
+        }
+        Runnable wrapped = chain.wrap(task);
+        try {
+            return super.submit(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+    }
+
+    @Override
+    public <T> T invoke(ForkJoinTask<T> task) {
+        ForkJoinTask<T> wrapped = adapt(task);
+        try {
+            super.invoke(wrapped);
+        } catch (RejectedExecutionException ex) {
+            throw chain.rejected(ex);
+        }
+        // Throws CancellationException if a wrapper skipped it
+        return task.join();
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+        return super.invokeAll(chain.wrap(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks,
+            long timeout, TimeUnit unit) throws InterruptedException {
+        return invoker.invokeAll(tasks, timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        return invoker.invokeAny(tasks);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+            long timeout, TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        return invoker.invokeAny(tasks, timeout, unit);
+    }
+
+    private final class Invoker extends AbstractExecutorService {
+
+        @Override
+        public void execute(Runnable command) {
+            WrappingForkJoinPool.this.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            WrappingForkJoinPool.this.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return WrappingForkJoinPool.this.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return WrappingForkJoinPool.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return WrappingForkJoinPool.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return WrappingForkJoinPool.this.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Runs a submitted ForkJoinTask through the wrappers, and settles that
+     * task if it never gets to run - because the pool cancelled this adapter
+     * in shutdownNow(), or a wrapper failed or skipped the work - so that
+     * whoever waits on the task they submitted is not left waiting forever.
+     */
+    static final class WrappedTask<T> extends ForkJoinTask<T> {
+
+        private final ForkJoinTask<T> task;
+        private final Callable<T> wrapped;
+        private T result;
+
+        WrappedTask(ForkJoinTask<T> task, WrapperChain chain) {
+            this.task = task;
+            Callable<T> invoke = task::invoke;
+            this.wrapped = chain.wrap(invoke);
+        }
+
+        @Override
+        public T getRawResult() {
+            return result;
+        }
+
+        @Override
+        protected void setRawResult(T value) {
+            result = value;
+        }
+
+        @Override
+        protected boolean exec() {
+            try {
+                result = wrapped.call();
+                return true;
+            } catch (RuntimeException | Error ex) {
+                settle(ex);
+                throw ex;
+            } catch (Exception ex) {
+                settle(ex);
+                throw new RuntimeException(ex);
+            } finally {
+                if (!task.isDone()) {
+                    // A wrapper returned without running it
+                    task.cancel(false);
+                }
+            }
+        }
+
+        private void settle(Throwable ex) {
+            if (!task.isDone()) {
+                task.completeExceptionally(ex);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                task.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+    }
+}
@@ -25,6 +25,7 @@ package com.mastfrog.giulius.thread;
 
 import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -39,23 +40,43 @@ final class WrappingScheduledExecutor extends WrappingExecutor<ScheduledExecutor
         super(delegate, wrappers);
     }
 
+    WrappingScheduledExecutor(ScheduledExecutorService delegate, PoolMetrics metrics, ExecutionWrapper... wrappers) {
+        super(delegate, metrics, wrappers);
+    }
+
     @Override
     public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-        return delegate.schedule(wrap(command), delay, unit);
+        try {
+            return delegate.schedule(wrapScheduled(command), delay, unit);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-        return delegate.schedule(wrap(callable), delay, unit);
+        try {
+            return delegate.schedule(wrapScheduled(callable), delay, unit);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-        return delegate.scheduleAtFixedRate(wrap(command), initialDelay, period, unit);
+        try {
+            return delegate.scheduleAtFixedRate(wrapScheduled(command), initialDelay, period, unit);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-        return delegate.scheduleWithFixedDelay(wrap(command), initialDelay, delay, unit);
+        try {
+            return delegate.scheduleWithFixedDelay(wrapScheduled(command), initialDelay, delay, unit);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(ex);
+        }
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.Dependencies;
+import com.mastfrog.settings.Settings;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class AdaptiveSizingTest {
+
+    @Test
+    public void testDecisions() {
+        AdaptiveSizing sizing = new AdaptiveSizing("x", 2, 16, 1000, 10);
+        // 100 tasks/s at 60ms each needs 6 threads busy, 8 with headroom
+        assertEquals("Should not grow on one sample", 4, sizing.next(4, 100, 0.06, 0, 0));
+        assertEquals(8, sizing.next(4, 100, 0.06, 0, 0));
+        // Within the hysteresis band - stays put
+        for (int i = 0; i < 10; i++) {
+            assertEquals(8, sizing.next(8, 90, 0.06, 0, 0));
+        }
+        // Queueing beyond the target wait grows by a quarter even if the
+        // estimate does not call for it
+        sizing.next(8, 10, 0.01, 0.5, 100);
+        assertEquals(10, sizing.next(8, 10, 0.01, 0.5, 100));
+        // Idle - shrinks only after five samples, then gradually
+        for (int i = 0; i < AdaptiveSizing.SHRINK_SAMPLES - 1; i++) {
+            assertEquals(16, sizing.next(16, 0, 0, 0, 0));
+        }
+        assertEquals(14, sizing.next(16, 0, 0, 0, 0));
+        // Never outside the bounds
+        sizing.next(16, 10_000, 1, 1, 1000);
+        assertEquals(16, sizing.next(16, 10_000, 1, 1, 1000));
+        for (int i = 0; i < AdaptiveSizing.SHRINK_SAMPLES; i++) {
+            assertEquals(2, sizing.next(2, 0, 0, 0, 0));
+        }
+    }
+
+    @Test
+    public void testPoolGrowsUnderLoad() throws Exception {
+        ThreadModule tm = new ThreadModule();
+        tm.builder("elastic")
+                .standard()
+                .withExplicitThreadCount(1)
+                .withAdaptiveSizing(1, 6)
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                })
+                .bind();
+        Dependencies deps = new Dependencies(Settings.builder()
+                .add("elastic.adaptive.intervalMillis", 50).build(), tm);
+        try {
+            ExecutorService exe = deps.getInstance(Key.get(ExecutorService.class, Names.named("elastic")));
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) ((WrappingExecutor<?>) exe).delegate;
+            assertEquals(1, tpe.getCorePoolSize());
+            assertEquals(6, tpe.getMaximumPoolSize());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (tpe.getCorePoolSize() < 4 && System.nanoTime() < deadline) {
+                for (int i = 0; i < 10; i++) {
+                    exe.submit(() -> {
+                        Thread.sleep(10);
+                        return null;
+                    });
+                }
+                Thread.sleep(20);
+            }
+            assertTrue("Pool did not grow: " + tpe, tpe.getCorePoolSize() >= 4);
+        } finally {
+            deps.shutdown();
+        }
+    }
+}
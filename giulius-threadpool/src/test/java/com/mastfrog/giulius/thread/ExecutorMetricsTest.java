@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.Dependencies;
+import com.mastfrog.settings.Settings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ExecutorMetricsTest {
+
+    @Test
+    public void testPoolMetrics() throws Exception {
+        ThreadModule tm = new ThreadModule();
+        tm.builder("metered")
+                .standard()
+                .withExplicitThreadCount(2)
+                .withMetrics()
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                })
+                .bind();
+        tm.builder("plain")
+                .standard()
+                .withExplicitThreadCount(1)
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                })
+                .bind();
+        Dependencies deps = new Dependencies(Settings.builder().build(), tm);
+        ExecutorService metered = deps.getInstance(Key.get(ExecutorService.class, Names.named("metered")));
+        deps.getInstance(Key.get(ExecutorService.class, Names.named("plain")));
+        ExecutorMetrics registry = deps.getInstance(ExecutorMetrics.class);
+        assertTrue(registry.names().toString(), registry.names().contains("metered"));
+        assertTrue(registry.names().toString(), !registry.names().contains("plain"));
+        PoolMetrics pool = registry.get("metered").get();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            boolean fail = i == 9;
+            futures.add(metered.submit(() -> {
+                Thread.sleep(20);
+                if (fail) {
+                    throw new IllegalStateException("fail");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(10, pool.submitted());
+        assertEquals(9, pool.completed());
+        assertEquals(1, pool.failed());
+        assertEquals(0, pool.active());
+        assertEquals(0, pool.queued());
+        assertEquals(10, pool.runTime().count());
+        assertEquals(10, pool.waitTime().count());
+        assertTrue(pool.toString(), pool.runTime().percentile(50).toMillis() >= 20);
+        assertTrue(pool.toString(), pool.waitTime().max().toMillis() >= 20);
+
+        deps.shutdown();
+        try {
+            metered.execute(() -> {
+            });
+            fail("Should have been rejected");
+        } catch (RejectedExecutionException ex) {
+            // ok
+        }
+        assertEquals(1, pool.rejected());
+    }
+
+    @Test
+    public void testHistogramAccuracy() {
+        LatencyHistogram histo = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histo.record(i * 1000);
+        }
+        assertEquals(1000, histo.count());
+        assertEquals(1_000_000, histo.max().toNanos());
+        assertEquals(500_500, histo.mean().toNanos());
+        for (int pct : new int[]{10, 50, 90, 99}) {
+            long expected = pct * 10_000L;
+            long got = histo.percentile(pct).toNanos();
+            assertTrue(pct + "th percentile " + got + " vs " + expected,
+                    got >= expected && got <= expected * 1.125);
+        }
+        for (long v : new long[]{0, 1, 7, 8, 9, 15, 16, 1023, 1024, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketFor(v);
+            assertTrue(v + " in " + bucket, LatencyHistogram.lowestValueIn(bucket) <= v);
+            if (v < Long.MAX_VALUE) {
+                assertTrue(v + " in " + bucket, LatencyHistogram.lowestValueIn(bucket + 1) > v);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.Dependencies;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ForkJoinWrappingTest {
+
+    private static final ThreadLocal<String> LOC = new ThreadLocal<>();
+
+    @Test
+    public void testForkJoinWrapping() throws Exception {
+        testWrapping(ThreadPoolType.FORK_JOIN);
+    }
+
+    @Test
+    public void testWorkStealingWrapping() throws Exception {
+        testWrapping(ThreadPoolType.WORK_STEALING);
+    }
+
+    private void testWrapping(ThreadPoolType type) throws Exception {
+        ThreadModule tm = new ThreadModule();
+        tm.builder("fj")
+                .withThreadPoolType(type)
+                .withExplicitThreadCount(4)
+                .propagatingThreadLocal(LOC)
+                .withMetrics()
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                    e.printStackTrace();
+                })
+                .bind();
+        Dependencies deps = new Dependencies(Settings.builder().build(), tm);
+        LOC.set("ctx");
+        try {
+            ExecutorService exe = deps.getInstance(Key.get(ExecutorService.class, Names.named("fj")));
+            assertTrue(exe instanceof ForkJoinPool);
+            ForkJoinPool pool = (ForkJoinPool) exe;
+
+            Callable<String> read = LOC::get;
+            assertEquals("ctx", pool.submit(read).get(10, TimeUnit.SECONDS));
+            List<Callable<String>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                reads.add(read);
+            }
+            for (Future<String> f : pool.invokeAll(reads)) {
+                assertEquals("ctx", f.get());
+            }
+            for (Future<String> f : pool.invokeAll(reads, 10, TimeUnit.SECONDS)) {
+                assertEquals("ctx", f.get());
+            }
+            assertEquals("ctx", pool.invokeAny(reads));
+
+            Sum sum = new Sum(0, 100_000);
+            ForkJoinTask<Long> submitted = pool.submit(sum);
+            assertSame(sum, submitted);
+            assertEquals(Long.valueOf(sumOf(0, 100_000)), submitted.get(10, TimeUnit.SECONDS));
+            assertEquals("ctx", sum.rootContext);
+            Sum invoked = new Sum(0, 50_000);
+            assertEquals(Long.valueOf(sumOf(0, 50_000)), pool.invoke(invoked));
+            assertEquals("ctx", invoked.rootContext);
+
+            PoolMetrics metrics = deps.getInstance(ExecutorMetrics.class).get("fj").get();
+            assertTrue(metrics.toString(), metrics.completed() >= 20);
+        } finally {
+            LOC.remove();
+            deps.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSubmittedTaskIsCancelledByShutdownNow() throws Exception {
+        WrappingForkJoinPool pool = new WrappingForkJoinPool(1,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+                new WrapperChain(null, ExecutionWrapper.propagatingThreadLocal(LOC)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                // shutting down
+            }
+        });
+        running.await();
+        Sum sum = new Sum(0, 1000);
+        assertSame(sum, pool.submit(sum));
+        pool.shutdownNow();
+        release.countDown();
+        try {
+            sum.get(10, TimeUnit.SECONDS);
+            fail("Should have been cancelled");
+        } catch (CancellationException ex) {
+            assertTrue(sum.isCancelled());
+        }
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 20000)
+    public void testSkippedTaskIsCancelled() throws Exception {
+        AtomicInteger skipped = new AtomicInteger();
+        WrappingForkJoinPool pool = new WrappingForkJoinPool(2,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+                new WrapperChain(null, new ExecutionWrapper() {
+                    @Override
+                    public Runnable wrap(Runnable work) {
+                        return skipped::incrementAndGet;
+                    }
+
+                    @Override
+                    public <V> Callable<V> wrap(Callable<V> work) {
+                        return () -> {
+                            skipped.incrementAndGet();
+                            return null;
+                        };
+                    }
+                }));
+        try {
+            Sum submitted = new Sum(0, 1000);
+            pool.submit(submitted);
+            try {
+                submitted.get(10, TimeUnit.SECONDS);
+                fail("Should have been cancelled");
+            } catch (CancellationException ex) {
+                // expected
+            }
+            try {
+                pool.invoke(new Sum(0, 1000));
+                fail("Should have been cancelled");
+            } catch (CancellationException ex) {
+                // expected
+            }
+            assertEquals(2, skipped.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long sumOf(long from, long to) {
+        long result = 0;
+        for (long i = from; i < to; i++) {
+            result += i;
+        }
+        return result;
+    }
+
+    static final class Sum extends RecursiveTask<Long> {
+
+        private final long from;
+        private final long to;
+        volatile String rootContext;
+
+        Sum(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            rootContext = LOC.get();
+            if (to - from <= 1000) {
+                return sumOf(from, to);
+            }
+            long mid = (from + to) / 2;
+            Sum left = new Sum(from, mid);
+            Sum right = new Sum(mid, to);
+            left.fork();
+            return right.compute() + left.join();
+        }
+    }
+}
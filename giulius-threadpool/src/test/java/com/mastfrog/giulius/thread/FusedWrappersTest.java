@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.mastfrog.giulius.thread.wrap.ExecutionWrapper;
+import com.mastfrog.giulius.thread.wrap.GranularExecutionWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class FusedWrappersTest {
+
+    private static final ThreadLocal<String> LOC = new ThreadLocal<>();
+
+    @Test
+    public void testFusion() {
+        ExecutionWrapper plain = ExecutionWrapper.executionWrapper((Runnable r) -> r);
+        ExecutionWrapper[] fused = FusedWrappers.fuse(new ExecutionWrapper[]{
+            new Recorder("a", new ArrayList<>(), 0), new Recorder("b", new ArrayList<>(), 0),
+            plain, new Recorder("c", new ArrayList<>(), 0), new Custom(),
+            ExecutionWrapper.propagatingThreadLocal(LOC), new Recorder("d", new ArrayList<>(), 0)});
+        assertEquals(5, fused.length);
+        assertEquals(2, ((FusedWrappers) fused[0]).size());
+        assertTrue(fused[1] == plain);
+        assertTrue(fused[2] instanceof Recorder);
+        assertTrue(fused[3] instanceof Custom);
+        assertEquals(2, ((FusedWrappers) fused[4]).size());
+        assertFalse(FusedWrappers.isFusable(new Custom()));
+    }
+
+    @Test
+    public void testFusedBehavesAsNested() {
+        // Each wrapper may throw before, throw after, or swallow exceptions;
+        // the work may succeed or throw
+        int modes = Recorder.MODES;
+        for (int a = 0; a < modes; a++) {
+            for (int b = 0; b < modes; b++) {
+                for (int c = 0; c < modes; c++) {
+                    for (boolean workThrows : new boolean[]{false, true}) {
+                        int[] config = {a, b, c};
+                        String nested = run(config, workThrows, false, false);
+                        String fused = run(config, workThrows, true, false);
+                        assertEquals("Runnable " + a + b + c + " " + workThrows, nested, fused);
+                        nested = run(config, workThrows, false, true);
+                        fused = run(config, workThrows, true, true);
+                        assertEquals("Callable " + a + b + c + " " + workThrows, nested, fused);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFusedPropagatesThreadLocals() throws Exception {
+        ThreadLocal<String> other = new ThreadLocal<>();
+        ExecutionWrapper[] fused = FusedWrappers.fuse(new ExecutionWrapper[]{
+            ExecutionWrapper.propagatingThreadLocal(LOC),
+            ExecutionWrapper.propagatingThreadLocal(other)});
+        assertEquals(1, fused.length);
+        LOC.set("one");
+        Callable<String> call;
+        try {
+            call = fused[0].wrap(() -> LOC.get() + "," + other.get());
+        } finally {
+            LOC.remove();
+        }
+        other.set("existing");
+        try {
+            assertEquals("one,null", call.call());
+            assertEquals(null, LOC.get());
+            assertEquals("existing", other.get());
+        } finally {
+            other.remove();
+        }
+    }
+
+    private String run(int[] config, boolean workThrows, boolean fuse, boolean callable) {
+        List<String> log = new ArrayList<>();
+        ExecutionWrapper[] wrappers = new ExecutionWrapper[config.length];
+        for (int i = 0; i < config.length; i++) {
+            wrappers[i] = new Recorder(Character.toString((char) ('a' + i)), log, config[i]);
+        }
+        if (fuse) {
+            wrappers = FusedWrappers.fuse(wrappers);
+            assertEquals(1, wrappers.length);
+        }
+        try {
+            if (callable) {
+                Callable<String> call = () -> {
+                    log.add("work");
+                    if (workThrows) {
+                        throw new IllegalStateException("work");
+                    }
+                    return "result";
+                };
+                for (ExecutionWrapper w : wrappers) {
+                    call = w.wrap(call);
+                }
+                log.add("returned " + call.call());
+            } else {
+                Runnable run = () -> {
+                    log.add("work");
+                    if (workThrows) {
+                        throw new IllegalStateException("work");
+                    }
+                };
+                for (ExecutionWrapper w : wrappers) {
+                    run = w.wrap(run);
+                }
+                run.run();
+                log.add("returned");
+            }
+        } catch (Exception ex) {
+            log.add("threw " + ex.getMessage());
+        }
+        return log.toString();
+    }
+
+    static final class Recorder implements GranularExecutionWrapper<String, String> {
+
+        static final int MODES = 4;
+        private final String name;
+        private final List<String> log;
+        private final int mode;
+
+        Recorder(String name, List<String> log, int mode) {
+            this.name = name;
+            this.log = log;
+            this.mode = mode;
+        }
+
+        @Override
+        public String onSubmit() {
+            log.add("submit " + name);
+            return mode == 0 ? null : "sub-" + name;
+        }
+
+        @Override
+        public String onBeforeRun(String t) {
+            log.add("before " + name + " " + t);
+            if (mode == 1) {
+                throw new IllegalArgumentException("before-" + name);
+            }
+            return "before-" + name;
+        }
+
+        @Override
+        public boolean onAfterRun(String fromSubmit, String fromRun, Throwable thrown) {
+            log.add("after " + name + " " + fromSubmit + " " + fromRun + " "
+                    + (thrown == null ? null : thrown.getMessage()));
+            if (mode == 2) {
+                throw new IllegalArgumentException("after-" + name);
+            }
+            return mode != 3;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Custom implements GranularExecutionWrapper<Void, Void> {
+
+        @Override
+        public Runnable wrap(Runnable run) {
+            return run;
+        }
+    }
+}
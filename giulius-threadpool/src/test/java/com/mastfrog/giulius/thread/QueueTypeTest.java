@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.Dependencies;
+import com.mastfrog.settings.Settings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class QueueTypeTest {
+
+    @Test
+    public void testRingBufferBasics() throws Exception {
+        MpmcRingBuffer<Integer> q = new MpmcRingBuffer<>(3);
+        assertEquals(4, q.capacity());
+        assertTrue(q.isEmpty());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(q.offer(i));
+            }
+            assertFalse(q.offer(4));
+            assertEquals(4, q.size());
+            assertEquals(0, q.remainingCapacity());
+            assertEquals(Integer.valueOf(0), q.peek());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), q.poll());
+            }
+            assertNull(q.poll());
+            assertTrue(q.isEmpty());
+        }
+        assertNull(q.poll(10, TimeUnit.MILLISECONDS));
+        q.offer(7);
+        q.offer(8);
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, q.drainTo(drained));
+        assertEquals(2, drained.size());
+    }
+
+    @Test
+    public void testRingBufferConcurrent() throws Exception {
+        MpmcRingBuffer<Long> q = new MpmcRingBuffer<>(64);
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20_000;
+        ExecutorService exe = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            AtomicLong sum = new AtomicLong();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                futures.add(exe.submit(() -> {
+                    for (long i = 1; i <= perProducer; i++) {
+                        q.put(i);
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                futures.add(exe.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(q.take());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            long expected = producers * ((long) perProducer * (perProducer + 1) / 2);
+            assertEquals(expected, sum.get());
+            assertTrue(q.isEmpty());
+        } finally {
+            exe.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBoundedQueueRejects() throws Exception {
+        testBoundedQueueRejects("array", null);
+        testBoundedQueueRejects("bounded", null);
+        testBoundedQueueRejects(null, QueueType.MPMC);
+    }
+
+    private void testBoundedQueueRejects(String setting, QueueType type) throws Exception {
+        ThreadModule tm = new ThreadModule();
+        ExecutorServiceBuilder b = tm.builder("q")
+                .standard()
+                .withExplicitThreadCount(1)
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                });
+        if (type != null) {
+            b.withQueue(type, 2);
+        }
+        b.bind();
+        Settings settings = setting == null ? Settings.builder().build()
+                : Settings.builder().add("q.queue", setting).add("q.queueCapacity", 2).build();
+        Dependencies deps = new Dependencies(settings, tm);
+        try {
+            ExecutorService exe = deps.getInstance(Key.get(ExecutorService.class, Names.named("q")));
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            exe.submit(() -> {
+                running.countDown();
+                release.await();
+                return null;
+            });
+            running.await(10, TimeUnit.SECONDS);
+            Future<?> a = exe.submit(() -> {
+            });
+            Future<?> b2 = exe.submit(() -> {
+            });
+            try {
+                exe.submit(() -> {
+                });
+                fail("Third queued task should be rejected with " + setting + " / " + type);
+            } catch (RejectedExecutionException ex) {
+                // ok
+            }
+            release.countDown();
+            a.get(10, TimeUnit.SECONDS);
+            b2.get(10, TimeUnit.SECONDS);
+        } finally {
+            deps.shutdown();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius.thread;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.Dependencies;
+import com.mastfrog.settings.Settings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class VirtualThreadPoolTest {
+
+    private static final ThreadLocal<String> LOC = new ThreadLocal<>();
+
+    @Test
+    public void testVirtualPoolPropagatesAndLimitsConcurrency() throws Exception {
+        ThreadModule tm = new ThreadModule();
+        tm.builder("io")
+                .virtual()
+                .withMaxConcurrency(2)
+                .propagatingThreadLocal(LOC)
+                .withUncaughtExceptionHandler((Thread t, Throwable e) -> {
+                    e.printStackTrace();
+                })
+                .bind();
+        Dependencies deps = new Dependencies(Settings.builder().build(), tm);
+        ExecutorService io = deps.getInstance(Key.get(ExecutorService.class, Names.named("io")));
+        Concurrency conc = new Concurrency();
+        List<Future<String>> futures = new ArrayList<>();
+        LOC.set("hey");
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(io.submit(conc));
+            }
+            for (Future<String> f : futures) {
+                assertEquals("hey", f.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            LOC.remove();
+        }
+        assertTrue("Ran " + conc.max.get() + " at once", conc.max.get() <= 2);
+        assertEquals(0, conc.running.get());
+        deps.shutdown();
+        assertTrue(io.isShutdown());
+    }
+
+    @Test
+    public void testConcurrencyLimiter() throws Exception {
+        ExecutorService exe = Executors.newCachedThreadPool();
+        try {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(3);
+            Concurrency conc = new Concurrency();
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(exe.submit(limiter.wrap(conc)));
+            }
+            for (Future<String> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue("Ran " + conc.max.get() + " at once", conc.max.get() <= 3);
+            assertEquals(3, limiter.available());
+        } finally {
+            exe.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptedWhileWaitingForPermitFails() throws Exception {
+        ExecutorService exe = Executors.newCachedThreadPool();
+        try {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicBoolean ran = new AtomicBoolean();
+            Future<?> holder = exe.submit(limiter.wrap(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            Future<?> waiter = exe.submit(limiter.wrap(() -> ran.set(true)));
+            for (int i = 0; i < 500 && limiter.waiting() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, limiter.waiting());
+            exe.shutdownNow();
+            try {
+                waiter.get(10, TimeUnit.SECONDS);
+                fail("Task interrupted while waiting for a permit should not complete normally");
+            } catch (ExecutionException ex) {
+                assertTrue(String.valueOf(ex.getCause()), ex.getCause() instanceof CancellationException);
+            }
+            assertFalse(ran.get());
+            holder.get(10, TimeUnit.SECONDS);
+            assertEquals(1, limiter.available());
+        } finally {
+            exe.shutdownNow();
+        }
+    }
+
+    static final class Concurrency implements Callable<String> {
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+
+        @Override
+        public String call() throws Exception {
+            int now = running.incrementAndGet();
+            max.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(30);
+                return LOC.get();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -71,6 +71,8 @@ public class WrappingExecutorTest {
             latch.countDown();
         });
         latch.await(10, TimeUnit.SECONDS);
+        // The latch is released before onAfterRun is called for the work
+        exeWrap.awaitAfterRuns(2, 10, TimeUnit.SECONDS);
         assertEquals("hey", val.get());
         assertEquals("whee", val2.get());
         assertEquals("hey", LOC.get());
@@ -128,6 +130,13 @@ public class WrappingExecutorTest {
             return this;
         }
 
+        public void awaitAfterRuns(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (afterRuns.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+
         public TestExeWrapper rethrow() throws Exception {
             if (!throwns.isEmpty()) {
                 Exception ex = new Exception("Exceptions were thrown");
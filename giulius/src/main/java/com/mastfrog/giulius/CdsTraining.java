@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.mastfrog.settings.Settings;
+import java.io.IOException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AppCDS training mode. When the system property or setting
+ * <code>giulius.cds.training</code> is set, the first call to
+ * {@link Dependencies#getInjector()} creates the injector, asks every binding
+ * for an instance so the classes behind it are loaded and linked, writes the
+ * classes it saw to the file the property names in the <code>classlist</code>
+ * format <code>-XX:SharedClassListFile</code> expects, runs shutdown hooks and
+ * exits the JVM with status 0.
+ * <p>
+ * The list only covers what is reachable from the injector; because the JVM
+ * exits normally, the complete picture can instead be had by running the
+ * training run with <code>-XX:ArchiveClassesAtExit=app.jsa</code> (JDK 13 and
+ * up) or <code>-XX:DumpLoadedClassList=app.classlist</code>, in which case
+ * set the property to <code>true</code> to skip writing a list. Smart JAR
+ * Merge's <code>--cds</code> switch writes argument files for both the
+ * training and the production run next to the merged JAR.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class CdsTraining {
+
+    /**
+     * System property or setting which turns on training mode - either the
+     * path to write the class list to, or <code>true</code> to exit without
+     * writing one.
+     */
+    public static final String SETTINGS_KEY_CDS_TRAINING = "giulius.cds.training";
+    private final Path classList;
+
+    private CdsTraining(Path classList) {
+        this.classList = classList;
+    }
+
+    static CdsTraining forSettings(Settings settings) {
+        String val = System.getProperty(SETTINGS_KEY_CDS_TRAINING);
+        if (val == null) {
+            val = settings.getString(SETTINGS_KEY_CDS_TRAINING);
+        }
+        if (val == null || val.trim().isEmpty() || "false".equals(val.trim())) {
+            return null;
+        }
+        val = val.trim();
+        return new CdsTraining("true".equals(val) ? null : Paths.get(val));
+    }
+
+    void trainAndExit(Dependencies deps, Injector injector) {
+        int status = 0;
+        try {
+            List<String> classes = train(injector);
+            if (classList != null) {
+                Files.write(classList, classes, UTF_8);
+            }
+            System.out.println("CDS training complete: " + classes.size() + " classes"
+                    + (classList == null ? "" : " written to " + classList));
+        } catch (IOException | RuntimeException ex) {
+            ex.printStackTrace(System.err);
+            status = 1;
+        } finally {
+            try {
+                deps.shutdown();
+            } finally {
+                System.exit(status);
+            }
+        }
+    }
+
+    /**
+     * Instantiate everything bound in the injector and return the binary
+     * names, in internal form, of the classes that involved - supertypes
+     * first, the order the JVM needs to load them in.
+     *
+     * @param injector An injector
+     * @return A list of class names
+     */
+    static List<String> train(Injector injector) {
+        Set<Class<?>> seen = new LinkedHashSet<>();
+        List<String> result = new ArrayList<>();
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            StartupClasses.addBinding(binding, seen, result);
+            try {
+                Object instance = binding.getProvider().get();
+                if (instance != null) {
+                    StartupClasses.add(instance.getClass(), seen, result);
+                }
+            } catch (RuntimeException | LinkageError ex) {
+                // Not everything is constructable outside a request or
+                // other scope - what we got this far is still loaded
+                Dependencies.log("CDS training could not instantiate " + binding.getKey() + ": " + ex);
+            }
+        }
+        result.replaceAll(name -> name.replace('.', '/'));
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.mastfrog.function.throwing.io.IOSupplier;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Holds something derived from classpath resources, such as the contents of
+ * every <code>namespaces.list</code>, once per class loader for the life of
+ * the JVM, so creating many Dependencies - as test suites and multi-tenant
+ * hosts do - only scans the classpath once. Values must be immutable and
+ * must not reference the class loader, which is held weakly.
+ *
+ * @author Tim Boudreau
+ */
+final class ClasspathCache<T> {
+
+    private final Map<ClassLoader, T> values = new WeakHashMap<>();
+
+    static ClassLoader loader() {
+        ClassLoader result = Thread.currentThread().getContextClassLoader();
+        return result == null ? ClasspathCache.class.getClassLoader() : result;
+    }
+
+    T get(IOSupplier<T> loader) throws IOException {
+        ClassLoader ldr = loader();
+        synchronized (values) {
+            T result = values.get(ldr);
+            if (result == null) {
+                result = loader.get();
+                values.put(ldr, result);
+            }
+            return result;
+        }
+    }
+}
@@ -25,16 +25,26 @@ package com.mastfrog.giulius;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
+import com.google.inject.Binding;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.Stage;
 import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matcher;
 import com.google.inject.matcher.Matchers;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InstanceBinding;
 import com.google.inject.spi.ProvisionListener;
 import com.google.inject.spi.ProvisionListener.ProvisionInvocation;
 import com.google.inject.util.Providers;
@@ -43,6 +53,7 @@ import com.mastfrog.function.misc.QuietAutoClosable;
 import com.mastfrog.function.threadlocal.ThreadLocalValue;
 import com.mastfrog.giulius.annotations.Defaults;
 import com.mastfrog.giulius.annotations.Namespace;
+import com.mastfrog.giulius.annotations.RefreshScoped;
 import com.mastfrog.giulius.annotations.Value;
 import com.mastfrog.graal.annotation.Expose;
 import com.mastfrog.graal.annotation.ExposeMany;
@@ -64,6 +75,8 @@ import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.Duration;
@@ -80,6 +93,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -142,9 +156,22 @@ public final class Dependencies implements Instantiator {
     private final ThreadLocalCounter ctr = new ThreadLocalCounter();
     private final boolean mergeNamespaces;
     @SuppressWarnings("deprecation")
-    private final com.mastfrog.giulius.ShutdownHookRegistry reg = com.mastfrog.giulius.ShutdownHookRegistry.get();
+    private com.mastfrog.giulius.ShutdownHookRegistry reg = com.mastfrog.giulius.ShutdownHookRegistry.get();
+    private IsolatedThreads isolated;
     private final Set<Dependencies> others = Collections.<Dependencies>synchronizedSet(new HashSet<>());
     private long shutdownHookWaitMillis;
+    private volatile boolean namespacedSettingsProvider;
+    private boolean useInjectionPointIndex;
+    private final StartupProfile profile = new StartupProfile(settings);
+    private final AtomicBoolean cdsTrainingChecked = new AtomicBoolean();
+    private long configureNanos;
+    private int parallelEagerSingletonThreads;
+    private boolean useGeneratedFactories;
+    private final ShutdownReport shutdownReport = new ShutdownReport();
+    private final RefreshScope refreshScope = new RefreshScope();
+    private final ProvisionMetrics provisionMetrics = new ProvisionMetrics();
+    private StartupClasses startupClasses;
+    private volatile boolean usingNamespaces;
 
     public Dependencies(Module... modules) throws IOException {
         this(SettingsBuilder.createDefault().build(), modules);
@@ -229,8 +256,20 @@ public final class Dependencies implements Instantiator {
      */
     public Injector getInjector() {
         if (injector == null) {
+            Thread current = Thread.currentThread();
+            if (current instanceof ParallelEagerSingletons.StartupThread
+                    && ((ParallelEagerSingletons.StartupThread) current).owner == this) {
+                // One of our eager singletons being created in parallel
+                return ((ParallelEagerSingletons.StartupThread) current).injector;
+            }
+            if (isolated != null && isolated.isInitThread(current)) {
+                // The calling thread holds our monitor, waiting for this one
+                throw new IllegalStateException("Reentrant call to getInjector() "
+                        + "while the injector is being initialized - probably "
+                        + "an eager singleton.  The injector may not be created twice.");
+            }
             if (getStage() == Stage.PRODUCTION) {
-                injector = Guice.createInjector(getStage(), modules);
+                injector = newInjector();
             } else {
                 synchronized (this) {
                     try (ThreadLocalCounter c = ctr.enter()) {
@@ -241,15 +280,175 @@ public final class Dependencies implements Instantiator {
                                     + "an eager singleton.  The injector may not be created twice.");
                         }
                         if (injector == null) {
-                            injector = Guice.createInjector(getStage(), modules);
+                            injector = newInjector();
                         }
                     }
                 }
             }
+            if (!cdsTrainingChecked.getAndSet(true)) {
+                CdsTraining training = CdsTraining.forSettings(getSettings());
+                if (training != null) {
+                    training.trainAndExit(this, injector);
+                }
+            }
         }
         return injector;
     }
 
+    private Injector newInjector() {
+        IsolatedThreads iso = isolated;
+        return iso == null ? createInjector() : iso.call(this::createInjector);
+    }
+
+    private Injector createInjector() {
+        long start = System.nanoTime();
+        Injector result;
+        List<Module> modules = this.modules;
+        if (useGeneratedFactories) {
+            try {
+                modules = Collections.singletonList(GeneratedFactories.load().apply(getStage(), modules));
+            } catch (IOException ex) {
+                throw new ConfigurationError(ex);
+            }
+        }
+        if (parallelEagerSingletonThreads > 0) {
+            ParallelEagerSingletons parallel = new ParallelEagerSingletons(getStage(),
+                    modules, parallelEagerSingletonThreads);
+            result = Guice.createInjector(getStage(), parallel.module());
+            if (namespacedSettingsProvider) {
+                NamespacedSettingsProvider.precompute(result);
+            }
+            long parallelStart = System.nanoTime();
+            profile.phase(StartupProfile.PHASE_CREATE_INJECTOR,
+                    parallelStart - start - configureNanos);
+            parallel.instantiate(this, result, parallel.groups());
+            profile.phase(StartupProfile.PHASE_PARALLEL_EAGER_SINGLETONS,
+                    System.nanoTime() - parallelStart);
+        } else {
+            result = Guice.createInjector(getStage(), modules);
+            if (namespacedSettingsProvider) {
+                NamespacedSettingsProvider.precompute(result);
+            }
+            // Our module's configure() is already counted in its own phases
+            profile.phase(StartupProfile.PHASE_CREATE_INJECTOR,
+                    System.nanoTime() - start - configureNanos);
+        }
+        profile.bindingCount(result.getAllBindings().size());
+        provisionMetrics.injector(result);
+        if (startupClasses != null) {
+            startupClasses.write(result, getSettings());
+            startupClasses = null;
+        }
+        if (Boolean.getBoolean(StartupProfile.SETTINGS_KEY_STARTUP_REPORT)
+                || getSettings().getBoolean(StartupProfile.SETTINGS_KEY_STARTUP_REPORT, false)) {
+            System.out.println(profile);
+        }
+        return result;
+    }
+
+    /**
+     * Get timings and counts for the startup of this Dependencies - how long
+     * it took to load settings, generate bindings and create the injector, and
+     * how many bindings and settings keys resulted. Complete once
+     * <code>getInjector()</code> has returned.
+     *
+     * @return The startup profile
+     */
+    public StartupProfile startupProfile() {
+        return profile;
+    }
+
+    @SuppressWarnings("deprecation")
+    void setIsolated(Duration grace) {
+        // Called before anything is added to the default registry
+        reg = new com.mastfrog.giulius.ShutdownHookRegistry.IsolatedShutdownHookRegistry();
+        isolated = new IsolatedThreads(grace);
+    }
+
+    /**
+     * Determine if this instance was built in isolated mode - see
+     * {@link DependenciesBuilder#isolated(Duration)}.
+     *
+     * @return true if isolated
+     */
+    public boolean isIsolated() {
+        return isolated != null;
+    }
+
+    void setParallelEagerSingletonThreads(int threads) {
+        this.parallelEagerSingletonThreads = threads;
+    }
+
+    void setParallelShutdown(Duration batchBudget) {
+        reg.setParallelShutdown(new ParallelShutdown(batchBudget, shutdownReport));
+    }
+
+    /**
+     * Get the time each shutdown hook took, if hooks are run in parallel
+     * batches - see {@link DependenciesBuilder#parallelShutdown(Duration)}.
+     * Empty until shutdown hooks have run.
+     *
+     * @return The shutdown report
+     */
+    public ShutdownReport shutdownReport() {
+        return shutdownReport;
+    }
+
+    /**
+     * Get the scope which implements
+     * {@link com.mastfrog.giulius.annotations.RefreshScoped} for this
+     * Dependencies' injector; also injectable.
+     *
+     * @return The refresh scope
+     */
+    public RefreshScope refreshScope() {
+        return refreshScope;
+    }
+
+    /**
+     * Get per-binding provision counts, times and scoping suggestions, if
+     * recording was turned on with
+     * {@link DependenciesBuilder#recordProvisionMetrics()} or the
+     * <code>giulius.provision.report</code> setting.
+     *
+     * @return The provision metrics
+     */
+    public ProvisionMetrics provisionMetrics() {
+        return provisionMetrics;
+    }
+
+    void setRecordProvisionMetrics() {
+        provisionMetrics.enable();
+    }
+
+    void setRefreshScopePolling(Duration interval, Duration drain) {
+        refreshScope.pollEvery(interval, drain);
+        reg.add((Runnable) refreshScope::stop);
+    }
+
+    void setUseGeneratedFactories(boolean useGeneratedFactories) {
+        this.useGeneratedFactories = useGeneratedFactories;
+    }
+
+    /**
+     * Bind the listener which makes a class's namespace apply to the settings
+     * injected into it, if this instance uses namespaces, into an injector
+     * created later from this one's bindings, such as a LazyModule's.
+     *
+     * @param binder The binder for the other injector
+     * @param matcher Further restricts what is listened to, so bindings which
+     * delegate to this injector's, and are already listened to here, can be
+     * excluded
+     */
+    void bindNamespaceListener(Binder binder, Matcher<? super Binding<?>> matcher) {
+        if (usingNamespaces) {
+            binder.bindListener(new SettingsInjectionMatcher().and(matcher), new ProvisionListenerImpl());
+        }
+    }
+
+    void setUseInjectionPointIndex(boolean useInjectionPointIndex) {
+        this.useInjectionPointIndex = useInjectionPointIndex;
+    }
 
     void setShutdownHookExecutorWaitMillis(long shutdownHookExecutorWaitMillis) {
         this.shutdownHookWaitMillis = shutdownHookExecutorWaitMillis;
@@ -314,7 +513,11 @@ public final class Dependencies implements Instantiator {
 
     /**
      * Triggers running shutdown hooks; for use with unit tests, servlet
-     * unloading, etc.
+     * unloading, etc.  If this instance is isolated, then waits for every
+     * thread it started to exit.
+     *
+     * @throws IllegalStateException if isolated and threads started by this
+     * instance are still running once the grace period has elapsed
      */
     public void shutdown() {
         try {
@@ -324,6 +527,9 @@ public final class Dependencies implements Instantiator {
                 d.shutdown();
             }
         }
+        if (isolated != null) {
+            isolated.verifyTerminated();
+        }
     }
 
     /**
@@ -401,6 +607,10 @@ public final class Dependencies implements Instantiator {
         return settings.get(namespace);
     }
 
+    Set<String> namespaces() {
+        return new HashSet<>(settings.keySet());
+    }
+
     /**
      * Get the Guice stage, as determined by isProductionMode()
      *
@@ -546,7 +756,13 @@ public final class Dependencies implements Instantiator {
                 bind(com.mastfrog.giulius.ShutdownHooks.class).toInstance(reg);
                 bind(com.mastfrog.shutdown.hooks.ShutdownHooks.class).toInstance(reg.realHooks());
                 bind(com.mastfrog.shutdown.hooks.ShutdownHookRegistry.class).toInstance(reg.realHooks());
+                bindScope(RefreshScoped.class, refreshScope);
+                bind(RefreshScope.class).toInstance(refreshScope);
+                // Only what injects settings needs its depth tracked
+                binder.bindListener(new SettingsInjectionMatcher(false), RefreshScope.INJECTEE_LISTENER);
+                long configureStart = System.nanoTime();
                 Set<String> knownNamespaces = loadNamespaceListsFromClasspath();
+                profile.phase(StartupProfile.PHASE_NAMESPACES, System.nanoTime() - configureStart);
                 log("Loaded namespaces " + knownNamespaces);
                 knownNamespaces.addAll(settings.keySet());
                 knownNamespaces.add(Namespace.DEFAULT);
@@ -571,20 +787,26 @@ public final class Dependencies implements Instantiator {
                 for (String namespace : knownNamespaces) {
                     Settings s = settings.get(namespace);
                     if (s == null) {
+                        long settingsStart = System.nanoTime();
                         s = SettingsBuilder.forNamespace(namespace)
                                 .addGeneratedDefaultsFromClasspath()
                                 .addDefaultsFromClasspath().build();
                         settings.put(namespace, s);
+                        profile.phase(StartupProfile.PHASE_SETTINGS, System.nanoTime() - settingsStart);
                     }
-                    allKeys.addAll(s.allKeys());
+                    Set<String> namespaceKeys = s.allKeys();
+                    profile.settingsKeys(namespace, namespaceKeys.size());
+                    allKeys.addAll(namespaceKeys);
                     Long shutdownWait = s.getLong(SETTINGS_KEY_SHUTDOWN_HOOK_EXECUTOR_WAIT);
                     if (shutdownWait != null) {
                         shutdownTimeout = Math.max(shutdownTimeout, shutdownWait);
                     }
                 }
+                long bindingsStart = System.nanoTime();
                 long finalTimeout = shutdownTimeout == 0
                         ? shutdownHookWaitMillis : shutdownTimeout;
                 reg.setWaitMilliseconds(Math.max(100L, shutdownTimeout));
+                shutdownReport.print = getSettings().getBoolean(ShutdownReport.SETTINGS_KEY_SHUTDOWN_REPORT, false);
                 Provider<Settings> namespacedSettings;
                 if (onlyDefaultNamespace) {
                     // 3.5.0 - for Graal, avoid package lookups which are problematic
@@ -607,100 +829,60 @@ public final class Dependencies implements Instantiator {
                     namespacedSettings = Providers.of(sb.build());
                 } else {
                     namespacedSettings = new NamespacedSettingsProvider(Dependencies.this);
+                    namespacedSettingsProvider = true;
                 }
+                InjectionPointIndex index = useInjectionPointIndex
+                        ? InjectionPointIndex.load() : null;
                 for (String k : allKeys) {
                     Named n = Names.named(k);
                     PropertyProvider p = new PropertyProvider(k, namespacedSettings);
-                    for (SettingsBindings type : settingsBindings) {
-                        switch (type) {
-                            case INT:
-                                binder.bind(Key.get(Integer.class, n)).toProvider(new IntProvider(p));
-                                break;
-                            case STRING:
-                                binder.bind(Key.get(String.class, n)).toProvider(p);
-                                break;
-                            case LONG:
-                                binder.bind(Key.get(Long.class, n)).toProvider(new LongProvider(p));
-                                break;
-                            case BOOLEAN:
-                                binder.bind(Key.get(Boolean.class, n)).toProvider(new BooleanProvider(p));
-                                break;
-                            case BYTE:
-                                binder.bind(Key.get(Byte.class, n)).toProvider(new ByteProvider(p));
-                                break;
-                            case CHARACTER:
-                                binder.bind(Key.get(Character.class, n)).toProvider(new CharacterProvider(p));
-                                break;
-                            case DOUBLE:
-                                binder.bind(Key.get(Double.class, n)).toProvider(new DoubleProvider(p));
-                                break;
-                            case FLOAT:
-                                binder.bind(Key.get(Float.class, n)).toProvider(new FloatProvider(p));
-                                break;
-                            case SHORT:
-                                binder.bind(Key.get(Short.class, n)).toProvider(new ShortProvider(p));
-                                break;
-                            case BIG_DECIMAL:
-                                binder.bind(Key.get(BigDecimal.class, n)).toProvider(new BigDecimalProvider(p));
-                                break;
-                            case BIG_INTEGER:
-                                binder.bind(Key.get(BigInteger.class, n)).toProvider(new BigIntegerProvider(p));
-                                break;
-                            case DURATION:
-                                binder.bind(Key.get(Duration.class, n)).toProvider(new DurationProvider(p));
-                                break;
+                    if (index == null) {
+                        for (SettingsBindings type : settingsBindings) {
+                            bindSetting(binder, type, n, p);
+                        }
+                    } else {
+                        // String bindings for every key remain, so dynamic
+                        // lookups of @Named strings still work
+                        if (settingsBindings.contains(SettingsBindings.STRING)) {
+                            bindSetting(binder, SettingsBindings.STRING, n, p);
+                        }
+                        for (SettingsBindings type : index.named(k)) {
+                            if (type != SettingsBindings.STRING && settingsBindings.contains(type)) {
+                                bindSetting(binder, type, n, p);
+                            }
                         }
                     }
                 }
                 for (String namespace : knownNamespaces) {
                     Settings s = settings.get(namespace);
-                    bind(Settings.class).annotatedWith(new NamespaceImpl(namespace)).toInstance(s);
-                    for (String key : s) {
-                        Provider<String> p = new PropertyProvider(key, Providers.of(s));
-                        Value n = new ValueImpl(key, namespace);
-                        for (SettingsBindings type : settingsBindings) {
-                            switch (type) {
-                                case INT:
-                                    binder.bind(Key.get(Integer.class, n)).toProvider(new IntProvider(p));
-                                    break;
-                                case STRING:
-                                    binder.bind(Key.get(String.class, n)).toProvider(p);
-                                    break;
-                                case LONG:
-                                    binder.bind(Key.get(Long.class, n)).toProvider(new LongProvider(p));
-                                    break;
-                                case BOOLEAN:
-                                    binder.bind(Key.get(Boolean.class, n)).toProvider(new BooleanProvider(p));
-                                    break;
-                                case BYTE:
-                                    binder.bind(Key.get(Byte.class, n)).toProvider(new ByteProvider(p));
-                                    break;
-                                case CHARACTER:
-                                    binder.bind(Key.get(Character.class, n)).toProvider(new CharacterProvider(p));
-                                    break;
-                                case DOUBLE:
-                                    binder.bind(Key.get(Double.class, n)).toProvider(new DoubleProvider(p));
-                                    break;
-                                case FLOAT:
-                                    binder.bind(Key.get(Float.class, n)).toProvider(new FloatProvider(p));
-                                    break;
-                                case SHORT:
-                                    binder.bind(Key.get(Short.class, n)).toProvider(new ShortProvider(p));
-                                    break;
-                                case BIG_DECIMAL:
-                                    binder.bind(Key.get(BigDecimal.class, n)).toProvider(new BigDecimalProvider(p));
-                                    break;
-                                case BIG_INTEGER:
-                                    binder.bind(Key.get(BigInteger.class, n)).toProvider(new BigIntegerProvider(p));
-                                    break;
-                                case DURATION:
-                                    binder.bind(Key.get(Duration.class, n)).toProvider(new DurationProvider(p));
-                                    break;
+                    bind(Settings.class).annotatedWith(new NamespaceImpl(namespace))
+                            .toProvider(new TrackedSettingsProvider(Providers.of(s)));
+                    if (index == null) {
+                        for (String key : s) {
+                            Provider<String> p = new PropertyProvider(key, Providers.of(s));
+                            Value n = new ValueImpl(key, namespace);
+                            for (SettingsBindings type : settingsBindings) {
+                                bindSetting(binder, type, n, p);
+                            }
+                        }
+                    } else {
+                        Set<String> keys = s.allKeys();
+                        for (Map.Entry<String, Set<SettingsBindings>> e : index.values(namespace).entrySet()) {
+                            String key = e.getKey();
+                            if (!keys.contains(key)) {
+                                continue;
+                            }
+                            Provider<String> p = new PropertyProvider(key, Providers.of(s));
+                            Value n = new ValueImpl(key, namespace);
+                            for (SettingsBindings type : e.getValue()) {
+                                if (settingsBindings.contains(type)) {
+                                    bindSetting(binder, type, n, p);
+                                }
                             }
                         }
                     }
                 }
-                bind(Settings.class).toProvider(namespacedSettings);
+                bind(Settings.class).toProvider(new TrackedSettingsProvider(namespacedSettings));
                 //Provide a binding to
                 bind(MutableSettings.class).toProvider(new MutableSettingsProvider(namespacedSettings, currentType));
                 //A hack, but it works
@@ -708,30 +890,227 @@ public final class Dependencies implements Instantiator {
                 boolean isUsingNamespaces = knownNamespaces.size() > 1
                         || (knownNamespaces.size() == 1 && !Namespace.DEFAULT.equals(knownNamespaces.iterator().next()));
 
+                usingNamespaces = isUsingNamespaces;
                 if (isUsingNamespaces) {
-                    binder.bindListener(Matchers.any(), new ProvisionListenerImpl());
+                    binder.bindListener(new SettingsInjectionMatcher(), new ProvisionListenerImpl());
+                }
+                binder.bindListener(new EagerSingletonMatcher(stage), new EagerSingletonTimer(profile));
+                if (Boolean.getBoolean(ProvisionMetrics.SETTINGS_KEY_PROVISION_REPORT)
+                        || getSettings().getBoolean(ProvisionMetrics.SETTINGS_KEY_PROVISION_REPORT, false)) {
+                    provisionMetrics.enable();
+                    reg.add((Runnable) () -> System.out.println(provisionMetrics));
                 }
+                startupClasses = StartupClasses.forRecording(getSettings());
+                if (startupClasses != null) {
+                    binder.bindListener(Matchers.any(), startupClasses.listener());
+                }
+                if (provisionMetrics.isEnabled()) {
+                    binder.bindListener(Matchers.any(), provisionMetrics.listener());
+                    reg.add((Runnable) provisionMetrics::close);
+                }
+                long end = System.nanoTime();
+                profile.phase(StartupProfile.PHASE_BINDINGS, end - bindingsStart);
+                configureNanos += end - configureStart;
             } catch (IOException ioe) {
                 throw new ConfigurationError(ioe);
             }
         }
 
-        private final class ProvisionListenerImpl implements ProvisionListener {
+        private void bindSetting(Binder binder, SettingsBindings type, Annotation annotation, Provider<String> p) {
+            switch (type) {
+                case INT:
+                    binder.bind(Key.get(Integer.class, annotation)).toProvider(new IntProvider(p));
+                    break;
+                case STRING:
+                    binder.bind(Key.get(String.class, annotation)).toProvider(p);
+                    break;
+                case LONG:
+                    binder.bind(Key.get(Long.class, annotation)).toProvider(new LongProvider(p));
+                    break;
+                case BOOLEAN:
+                    binder.bind(Key.get(Boolean.class, annotation)).toProvider(new BooleanProvider(p));
+                    break;
+                case BYTE:
+                    binder.bind(Key.get(Byte.class, annotation)).toProvider(new ByteProvider(p));
+                    break;
+                case CHARACTER:
+                    binder.bind(Key.get(Character.class, annotation)).toProvider(new CharacterProvider(p));
+                    break;
+                case DOUBLE:
+                    binder.bind(Key.get(Double.class, annotation)).toProvider(new DoubleProvider(p));
+                    break;
+                case FLOAT:
+                    binder.bind(Key.get(Float.class, annotation)).toProvider(new FloatProvider(p));
+                    break;
+                case SHORT:
+                    binder.bind(Key.get(Short.class, annotation)).toProvider(new ShortProvider(p));
+                    break;
+                case BIG_DECIMAL:
+                    binder.bind(Key.get(BigDecimal.class, annotation)).toProvider(new BigDecimalProvider(p));
+                    break;
+                case BIG_INTEGER:
+                    binder.bind(Key.get(BigInteger.class, annotation)).toProvider(new BigIntegerProvider(p));
+                    break;
+                case DURATION:
+                    binder.bind(Key.get(Duration.class, annotation)).toProvider(new DurationProvider(p));
+                    break;
+            }
+        }
+    }
+
+    private static final class ProvisionListenerImpl implements ProvisionListener {
+
+        ProvisionListenerImpl() {
+        }
+
+        @Override
+        public <T> void onProvision(ProvisionInvocation<T> provision) {
+
+            TypeLiteral<?> old = currentType.get();
+            prevType.set(old);
+            try (QuietAutoClosable pc = prevType.setTo(currentType.get())) {
+                try (QuietAutoClosable ac = currentType.setTo(provision.getBinding().getKey().getTypeLiteral())) {
+                    T obj = provision.provision();
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches eager singletons, and in production stage, where Guice creates
+     * all singletons eagerly, all singletons.
+     */
+    private static final class EagerSingletonMatcher extends AbstractMatcher<Binding<?>> {
+
+        private final Stage stage;
 
-            ProvisionListenerImpl() {
+        EagerSingletonMatcher(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public boolean matches(Binding<?> binding) {
+            if (binding instanceof InstanceBinding<?>) {
+                // Already exists - Guice reports these as eager singletons
+                return false;
             }
+            return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+                @Override
+                public Boolean visitEagerSingleton() {
+                    return true;
+                }
 
-            @Override
-            public <T> void onProvision(ProvisionInvocation<T> provision) {
+                @Override
+                public Boolean visitScope(Scope scope) {
+                    return scope == ParallelEagerSingletons.StartupSingletonScope.INSTANCE
+                            || (stage == Stage.PRODUCTION && scope == Scopes.SINGLETON);
+                }
+
+                @Override
+                public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                    return stage == Stage.PRODUCTION && (scopeAnnotation == Singleton.class
+                            || scopeAnnotation == javax.inject.Singleton.class);
+                }
+
+                @Override
+                protected Boolean visitOther() {
+                    return false;
+                }
+            });
+        }
+    }
+
+    /**
+     * Times the instantiation of eager singletons, counting only the
+     * outermost one when one eager singleton depends on another; since
+     * singletons are only created once, this costs nothing after startup.
+     */
+    private static final class EagerSingletonTimer implements ProvisionListener {
+
+        private final StartupProfile profile;
+        private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+        EagerSingletonTimer(StartupProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public <T> void onProvision(ProvisionInvocation<T> provision) {
+            int[] d = depth.get();
+            long start = System.nanoTime();
+            d[0]++;
+            try {
+                provision.provision();
+            } finally {
+                if (--d[0] == 0) {
+                    profile.eagerSingleton(System.nanoTime() - start);
+                    depth.remove();
+                } else {
+                    // Already counted in the time of the outermost one
+                    profile.eagerSingleton(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches only those bindings which namespaced settings lookups depend
+     * on - bindings for settings and &#064;Named values themselves, and
+     * bindings whose injection points request them - so that every other
+     * provision skips the listener that tracks what is being injected into.
+     * Without settings bindings, it matches only what injects settings, as
+     * the refresh scope's listener needs.
+     */
+    private static final class SettingsInjectionMatcher extends AbstractMatcher<Binding<?>> {
+
+        private final boolean includeSettingsBindings;
 
-                TypeLiteral<?> old = currentType.get();
-                prevType.set(old);
-                try (QuietAutoClosable pc = prevType.setTo(currentType.get())) {
-                    try (QuietAutoClosable ac = currentType.setTo(provision.getBinding().getKey().getTypeLiteral())) {
-                        T obj = provision.provision();
+        SettingsInjectionMatcher() {
+            this(true);
+        }
+
+        SettingsInjectionMatcher(boolean includeSettingsBindings) {
+            this.includeSettingsBindings = includeSettingsBindings;
+        }
+
+        @Override
+        public boolean matches(Binding<?> binding) {
+            if (isSettingsKey(binding.getKey())) {
+                return includeSettingsBindings;
+            }
+            if (binding instanceof HasDependencies) {
+                try {
+                    for (Dependency<?> dep : ((HasDependencies) binding).getDependencies()) {
+                        if (isSettingsKey(dep.getKey())) {
+                            return true;
+                        }
                     }
+                    return false;
+                } catch (RuntimeException ex) {
+                    // Could not analyze it - be conservative
+                    log("Could not analyze dependencies of " + binding + ": " + ex);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isSettingsKey(Key<?> key) {
+            Class<? extends Annotation> anno = key.getAnnotationType();
+            if (anno == Named.class || anno == javax.inject.Named.class) {
+                return true;
+            }
+            Type type = key.getTypeLiteral().getType();
+            Class<?> raw = key.getTypeLiteral().getRawType();
+            if ((raw == Provider.class || raw == javax.inject.Provider.class)
+                    && type instanceof ParameterizedType) {
+                Type arg = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (arg instanceof ParameterizedType) {
+                    arg = ((ParameterizedType) arg).getRawType();
                 }
+                return arg == Settings.class || arg == MutableSettings.class;
             }
+            return raw == Settings.class || raw == MutableSettings.class;
         }
     }
 
@@ -811,10 +1190,9 @@ public final class Dependencies implements Instantiator {
             return result;
         }
 
-        private Package jdk9getPackage(String pkg) {
+        private static Package jdk9getPackage(ClassLoader ldr, String pkg) {
             Method mth = lookupGetDefinedPackageMethod();
-            if (mth != null) {
-                ClassLoader ldr = Thread.currentThread().getContextClassLoader();
+            if (mth != null && ldr != null) {
                 try {
                     return (Package) mth.invoke(ldr, pkg);
                 } catch (IllegalAccessException ex) {
@@ -858,49 +1236,89 @@ public final class Dependencies implements Instantiator {
             return null;
         }
 
-        @Override
+        /**
+         * Resolved namespaces, including the default, per class - the
+         * annotation and package walk is done at most once per type.
+         */
+        static final ClassValue<String> NAMESPACES = new ClassValue<String>() {
+            @Override
+            protected String computeValue(Class<?> type) {
+                return resolveNamespace(type);
+            }
+        };
+
+        /**
+         * Resolve namespaces for the types of all bindings up front, so
+         * first provisions do not pay for it.
+         *
+         * @param injector The injector
+         */
+        static void precompute(Injector injector) {
+            for (Key<?> key : injector.getAllBindings().keySet()) {
+                NAMESPACES.get(key.getTypeLiteral().getRawType());
+            }
+        }
+
         @SuppressWarnings("deprecation")
-        public Settings get() {
-            TypeLiteral<?> t = deps.prevType.get();
-            String namespace = Namespace.DEFAULT;
-            if (t != null) {
-                Class<?> type = t.getRawType();
-                Namespace ns = type.getAnnotation(Namespace.class);
-                if (ns == null) {
-                    Package pkg = type.getPackage();
-                    if (pkg != null) {
-                        do {
-                            ns = pkg.getAnnotation(Namespace.class);
-                            if (ns == null) {
-                                String nm = pkg.getName();
-                                java.util.regex.Matcher m = PARENT_PACKAGE_PATTERN.matcher(nm);
-                                if (!m.find()) {
+        private static String resolveNamespace(Class<?> type) {
+            Namespace ns = type.getAnnotation(Namespace.class);
+            if (ns == null) {
+                Package pkg = type.getPackage();
+                ClassLoader ldr = type.getClassLoader();
+                if (ldr == null) {
+                    ldr = Thread.currentThread().getContextClassLoader();
+                }
+                if (pkg != null) {
+                    do {
+                        ns = pkg.getAnnotation(Namespace.class);
+                        if (ns == null) {
+                            String nm = pkg.getName();
+                            java.util.regex.Matcher m = PARENT_PACKAGE_PATTERN.matcher(nm);
+                            if (!m.find()) {
+                                break;
+                            } else {
+                                pkg = jdk9getPackage(ldr, m.group(1));
+                                if (pkg == null) {
+//                                    pkg = Package.getPackage(m.group(1));
+                                    pkg = reflectivePackageGetPackage(m.group(1));
+                                }
+                                if (pkg == null || pkg.getName().isEmpty()) {
                                     break;
-                                } else {
-                                    pkg = jdk9getPackage(m.group(1));
-                                    if (pkg == null) {
-//                                        pkg = Package.getPackage(m.group(1));
-                                        pkg = reflectivePackageGetPackage(m.group(1));
-                                    }
-                                    if (pkg == null || pkg.getName().isEmpty()) {
-                                        break;
-                                    }
                                 }
                             }
-                        } while (ns == null);
-                    }
-                }
-                if (ns != null) {
-                    namespace = ns.value();
+                        }
+                    } while (ns == null);
                 }
             }
+            return ns == null ? Namespace.DEFAULT : ns.value();
+        }
+
+        @Override
+        public Settings get() {
+            TypeLiteral<?> t = deps.prevType.get();
+            String namespace = t == null ? Namespace.DEFAULT
+                    : NAMESPACES.get(t.getRawType());
             log("INJECTING INTO " + t + " WITH NAMESPACE " + namespace);
             Settings s = deps.settings.get(namespace);
             return s;
         }
     }
 
+    private static final ClasspathCache<Set<String>> NAMESPACE_LISTS = new ClasspathCache<>();
+
+    /**
+     * Get the namespaces listed in every <code>namespaces.list</code> on the
+     * classpath. The classpath is only read once per class loader; the
+     * result is a copy the caller may modify.
+     *
+     * @return A set of namespaces
+     * @throws IOException If reading fails
+     */
     public static Set<String> loadNamespaceListsFromClasspath() throws IOException {
+        return new HashSet<>(NAMESPACE_LISTS.get(Dependencies::readNamespaceListsFromClasspath));
+    }
+
+    private static Set<String> readNamespaceListsFromClasspath() throws IOException {
         Set<String> all = new HashSet<>();
         String listPathOnClasspath = Defaults.DEFAULT_PATH + "namespaces.list";
         InputStream[] streams = Streams.locate(listPathOnClasspath);
@@ -917,7 +1335,7 @@ public final class Dependencies implements Instantiator {
         } else {
             log("No input streams for namespaces " + all + " - no classpath files " + listPathOnClasspath);
         }
-        return all;
+        return Collections.unmodifiableSet(all);
     }
 
     private static void readNamepaces(Reader reader, Set<? super String> into) throws IOException {
@@ -1063,7 +1481,28 @@ public final class Dependencies implements Instantiator {
 
         @Override
         public String get() {
-            return props.get().getString(key);
+            Settings settings = props.get();
+            String result = settings.getString(key);
+            RefreshScope.read(settings, key, result);
+            return result;
+        }
+    }
+
+    /**
+     * Lets a refresh-scoped instance under construction see which settings
+     * it reads.
+     */
+    private static class TrackedSettingsProvider implements Provider<Settings> {
+
+        private final Provider<Settings> settings;
+
+        TrackedSettingsProvider(Provider<Settings> settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public Settings get() {
+            return RefreshScope.track(settings.get());
         }
     }
 
@@ -25,6 +25,7 @@ package com.mastfrog.giulius;
 
 import com.google.common.collect.Maps;
 import com.google.inject.Module;
+import com.mastfrog.settings.MutableSettings;
 import com.mastfrog.settings.Settings;
 import com.mastfrog.settings.SettingsBuilder;
 import static com.mastfrog.settings.SettingsBuilder.DEFAULT_NAMESPACE;
@@ -37,6 +38,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,6 +109,19 @@ public final class DependenciesBuilder {
         this.modules.addAll(Arrays.asList(modules));
         return this;
     }
+
+    /**
+     * Add a module which is not configured until one of the passed types is
+     * first requested - see {@link LazyModule}.
+     *
+     * @param module A module
+     * @param exposed The types it binds which should be injectable elsewhere
+     * @return this
+     */
+    public DependenciesBuilder addLazy(Module module, Class<?>... exposed) {
+        this.modules.add(LazyModule.of(module, exposed));
+        return this;
+    }
     
     /**
      * Add a folder on disk to look in for configuration files
@@ -288,6 +303,298 @@ public final class DependenciesBuilder {
         return this;
     }
 
+    private boolean useInjectionPointIndex;
+
+    /**
+     * Bind settings only as the types they are actually injected as, using
+     * the index of &#064;Named and &#064;Value injection points which the
+     * giulius annotation processors write to
+     * <code>META-INF/settings/injection-points.list</code>, rather than
+     * binding every key as every type in every namespace. Every key is still
+     * bound as a &#064;Named String, for dynamic lookups; other dynamic lookups
+     * should use Settings directly. Only use this if all code that injects
+     * settings was compiled with the annotation processors on the classpath.
+     *
+     * @return this
+     */
+    public DependenciesBuilder useInjectionPointIndex() {
+        useInjectionPointIndex = true;
+        return this;
+    }
+
+    private boolean useGeneratedFactories;
+
+    /**
+     * Bind types which have an &#064;Inject constructor, and are not bound
+     * explicitly, to the factories the injection reflection indexer's
+     * annotation processor generates for them when run with
+     * <code>-AgenerateInjectionFactories=true</code>, rather than having Guice
+     * create just-in-time bindings that reflectively look up and invoke
+     * constructors. Types with injected fields or methods get no factory and
+     * are unaffected, as are types which nothing bound depends on, which are
+     * only ever requested directly from the injector. Intended for production
+     * deployments where startup time matters; types get an explicit binding in
+     * the root injector, and are scoped according to their scope annotation as
+     * they would have been otherwise. Since Guice does not apply method
+     * interceptors to instances created by providers, types matched by the
+     * class matcher of any <code>bindInterceptor()</code> call keep their
+     * just-in-time bindings.
+     *
+     * @return this
+     */
+    public DependenciesBuilder useGeneratedFactories() {
+        useGeneratedFactories = true;
+        return this;
+    }
+
+    private Duration parallelShutdownBudget;
+
+    /**
+     * Run the shutdown hooks in each batch - those added with
+     * <code>addFirst()</code>, with <code>add()</code>, and with
+     * <code>addLast()</code> - concurrently rather than one after another,
+     * giving each batch at most the passed time before moving on to the
+     * next. Executor services are shut down and awaited within their batch's
+     * budget, in place of the global <code>shutdownHookExecutorWait</code>
+     * wait. Hooks still running when the budget is spent are interrupted and
+     * abandoned, and reported as timed out in
+     * {@link Dependencies#shutdownReport()}, which records how long each hook
+     * took. Hooks within a batch must not depend on running in any
+     * particular order.
+     *
+     * @param budget The maximum time to spend on each batch
+     * @return this
+     */
+    public DependenciesBuilder parallelShutdown(Duration budget) {
+        Checks.notNull("budget", budget);
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Budget must be positive: " + budget);
+        }
+        parallelShutdownBudget = budget;
+        return this;
+    }
+
+    private int preloadThreads;
+
+    /**
+     * Load the classes listed in startup class lists on background threads -
+     * one fewer than there are processors - while the injector is being
+     * created. See {@link StartupClasses}.
+     *
+     * @return this
+     */
+    public DependenciesBuilder preloadStartupClasses() {
+        return preloadStartupClasses(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Load the classes listed in startup class lists on the passed number of
+     * background threads while the injector is being created. See
+     * {@link StartupClasses}.
+     *
+     * @param threads The number of threads
+     * @return this
+     */
+    public DependenciesBuilder preloadStartupClasses(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        preloadThreads = threads;
+        return this;
+    }
+
+    private boolean recordProvisionMetrics;
+
+    /**
+     * Record how many times each binding is provisioned, the time and
+     * allocation that costs, and which unscoped bindings would be worth
+     * scoping - see {@link ProvisionMetrics}. Adds a provision listener to
+     * every binding, so is best used when profiling.
+     *
+     * @return this
+     */
+    public DependenciesBuilder recordProvisionMetrics() {
+        recordProvisionMetrics = true;
+        return this;
+    }
+
+    private Duration refreshPollInterval;
+    private Duration refreshDrain;
+
+    /**
+     * Periodically check whether the settings that
+     * {@link com.mastfrog.giulius.annotations.RefreshScoped} instances were
+     * built from have changed, discarding those which are out of date so they
+     * are rebuilt on next use - see {@link RefreshScope}.
+     *
+     * @param interval How often to check
+     * @param drain How long discarded executor services may finish their
+     * work before being shut down forcibly, or null to leave discarded
+     * instances alone
+     * @return this
+     */
+    public DependenciesBuilder pollRefreshScope(Duration interval, Duration drain) {
+        Checks.notNull("interval", interval);
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        refreshPollInterval = interval;
+        refreshDrain = drain;
+        return this;
+    }
+
+    private Duration isolatedGrace;
+
+    /**
+     * Isolate the built Dependencies from any others in the same JVM, waiting
+     * up to five seconds after shutdown for its threads to exit. See
+     * {@link #isolated(Duration)}.
+     *
+     * @return this
+     */
+    public DependenciesBuilder isolated() {
+        return isolated(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Isolate the built Dependencies from any others in the same JVM, so that
+     * tests may safely run in parallel: its shutdown hooks are run only by
+     * {@link Dependencies#shutdown()}, never by a VM shutdown hook shared
+     * with other instances, and the injector is created on a thread in a
+     * thread group of its own, so the threads started by eager singletons and
+     * thread pools belong to it. Once its shutdown hooks have run,
+     * <code>shutdown()</code> waits for every thread in the group to exit,
+     * and throws an IllegalStateException naming any still running when the
+     * grace period elapses. Threads started later from a caller's own thread
+     * are not tracked.
+     *
+     * @param grace How long to wait for threads to exit after shutdown
+     * @return this
+     */
+    public DependenciesBuilder isolated(Duration grace) {
+        Checks.notNull("grace", grace);
+        if (grace.isNegative()) {
+            throw new IllegalArgumentException("Negative grace period: " + grace);
+        }
+        isolatedGrace = grace;
+        return this;
+    }
+
+    private int parallelEagerSingletonThreads;
+
+    /**
+     * Instantiate eager singletons concurrently, on up to one thread per
+     * processor, once the injector has been created. See
+     * {@link #parallelEagerSingletons(int)}.
+     *
+     * @return this
+     */
+    public DependenciesBuilder parallelEagerSingletons() {
+        return parallelEagerSingletons(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiate eager singletons concurrently once the injector has been
+     * created, rather than one after another while creating it. Eager
+     * singletons whose dependencies, transitively, share any singleton are
+     * created in binding order on the same thread; groups which share
+     * nothing are created in parallel on up to the passed number of threads.
+     * If any fail, the failure thrown is that of the first failing singleton
+     * in binding order, regardless of which thread finished first. Useful
+     * when several eager singletons each connect to a different back end.
+     * Only top-level <code>asEagerSingleton()</code> bindings are affected -
+     * not those in private modules, nor, in production stage, ordinary
+     * singletons.
+     *
+     * @param threads The maximum number of startup threads
+     * @return this
+     */
+    public DependenciesBuilder parallelEagerSingletons(int threads) {
+        Checks.greaterThanZero("threads", threads);
+        parallelEagerSingletonThreads = threads;
+        return this;
+    }
+
+    private final Map<String, Map<String, String>> overrides = new HashMap<>();
+
+    /**
+     * Use the settings of an existing Dependencies for every namespace it
+     * has settings for, as-is, rather than loading them again - typically
+     * combined with {@link #override(String, String)} to cheaply create many
+     * Dependencies (for tests or tenants) which differ from a template in only
+     * a few keys. Modules are not inherited. Since classpath resources are
+     * only read and parsed once per class loader anyway, the savings are in
+     * filesystem and environment lookups and layering.
+     *
+     * @param parent A Dependencies
+     * @return this
+     */
+    public DependenciesBuilder inheritSettings(Dependencies parent) {
+        Checks.notNull("parent", parent);
+        for (String ns : parent.namespaces()) {
+            add(parent.getSettings(ns), ns);
+        }
+        return this;
+    }
+
+    /**
+     * Override a single key in the default namespace, on top of all other
+     * settings for it.
+     *
+     * @param key The key
+     * @param value The value, or null to hide any value the key has
+     * @return this
+     */
+    public DependenciesBuilder override(String key, String value) {
+        return override(DEFAULT_NAMESPACE, key, value);
+    }
+
+    /**
+     * Override a single key in a namespace, on top of all other settings for
+     * it. Overrides are applied as a lightweight overlay (see
+     * {@link Settings#overlay(String[], String[])}) rather than an additional
+     * layer, so are intended for a handful of keys.
+     *
+     * @param namespace The namespace
+     * @param key The key
+     * @param value The value, or null to hide any value the key has
+     * @return this
+     */
+    public DependenciesBuilder override(String namespace, String key, String value) {
+        Checks.notNull("namespace", namespace);
+        Checks.notEmpty("namespace", namespace);
+        Checks.notNull("key", key);
+        overrides.computeIfAbsent(namespace, ns -> new LinkedHashMap<>()).put(key, value);
+        return this;
+    }
+
+    private void applyOverrides(Map<String, Settings> settings) throws IOException {
+        for (Map.Entry<String, Map<String, String>> e : overrides.entrySet()) {
+            Settings base = settings.get(e.getKey());
+            if (base == null) {
+                // What Dependencies would load for a namespace with no settings
+                base = SettingsBuilder.forNamespace(e.getKey())
+                        .addGeneratedDefaultsFromClasspath()
+                        .addDefaultsFromClasspath().build();
+            }
+            if (base instanceof MutableSettings) {
+                // Already a private copy; an overlay would hide the setters
+                for (Map.Entry<String, String> o : e.getValue().entrySet()) {
+                    if (o.getValue() == null) {
+                        ((MutableSettings) base).clear(o.getKey());
+                    } else {
+                        ((MutableSettings) base).setString(o.getKey(), o.getValue());
+                    }
+                }
+            } else {
+                String[] keys = e.getValue().keySet().toArray(new String[e.getValue().size()]);
+                String[] values = e.getValue().values().toArray(new String[e.getValue().size()]);
+                base = base.overlay(keys, values);
+            }
+            settings.put(e.getKey(), base);
+        }
+    }
+
     private Map<String, Settings> collapse() throws IOException {
         Map<String, Settings> result = new HashMap<>();
         for (Map.Entry<String, List<SettingsBuilder>> e : settingsForNamespace.entrySet()) {
@@ -315,8 +622,33 @@ public final class DependenciesBuilder {
      * @throws IOException 
      */
     public Dependencies build() throws IOException {
-        Dependencies result = new Dependencies(mergeNamespaces, collapse(), settingsBindings, modules.toArray(new Module[modules.size()]));
+        if (preloadThreads > 0) {
+            // Start before settings are loaded, to overlap as much as possible
+            StartupClasses.preload(preloadThreads);
+        }
+        long start = System.nanoTime();
+        Map<String, Settings> settings = collapse();
+        applyOverrides(settings);
+        long elapsed = System.nanoTime() - start;
+        Dependencies result = new Dependencies(mergeNamespaces, settings, settingsBindings, modules.toArray(new Module[modules.size()]));
+        result.startupProfile().phase(StartupProfile.PHASE_SETTINGS, elapsed);
+        if (isolatedGrace != null) {
+            // Must precede anything which adds shutdown hooks
+            result.setIsolated(isolatedGrace);
+        }
         result.setShutdownHookExecutorWaitMillis(shutdownHookExecutorWaitMillis);
+        result.setUseInjectionPointIndex(useInjectionPointIndex);
+        result.setParallelEagerSingletonThreads(parallelEagerSingletonThreads);
+        result.setUseGeneratedFactories(useGeneratedFactories);
+        if (recordProvisionMetrics) {
+            result.setRecordProvisionMetrics();
+        }
+        if (refreshPollInterval != null) {
+            result.setRefreshScopePolling(refreshPollInterval, refreshDrain);
+        }
+        if (parallelShutdownBudget != null) {
+            result.setParallelShutdown(parallelShutdownBudget);
+        }
         return result;
     }
     
@@ -0,0 +1,399 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
+import com.google.inject.ImplementedBy;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.ProvidedBy;
+import com.google.inject.ScopeAnnotation;
+import com.google.inject.Scopes;
+import com.google.inject.Stage;
+import com.google.inject.TypeLiteral;
+import com.google.inject.binder.ScopedBindingBuilder;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.InjectionRequest;
+import com.google.inject.spi.InterceptorBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.PrivateElements;
+import com.google.inject.spi.ProviderKeyBinding;
+import com.google.inject.spi.ProviderLookup;
+import com.google.inject.spi.StaticInjectionRequest;
+import com.google.inject.spi.UntargettedBinding;
+import com.mastfrog.function.misc.QuietAutoClosable;
+import com.mastfrog.util.streams.Streams;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Provider;
+import javax.inject.Scope;
+
+/**
+ * Binds types which would otherwise be just-in-time bindings to the
+ * factories generated for them at compile time by the injection reflection
+ * indexer's annotation processor (when run with
+ * <code>-AgenerateInjectionFactories=true</code>), which are listed in
+ * <code>META-INF/injection/factories.list</code>. Each factory calls the
+ * type's &#064;Inject constructor directly, so Guice does not need to
+ * reflectively analyze and invoke it - only the factory's own constructor,
+ * once, since each factory is a singleton that does nothing but store
+ * providers. Only types reachable from the
+ * explicit bindings get a factory binding; types which are only ever
+ * requested directly from the injector remain just-in-time bindings.
+ * <p>
+ * Guice does not apply method interceptors to instances a provider creates,
+ * so any type matched by the class matcher of a <code>bindInterceptor()</code>
+ * call is also left to just-in-time binding, keeping its interceptors.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+final class GeneratedFactories {
+
+    static final String FACTORIES_LIST = "META-INF/injection/factories.list";
+    private final Map<Class<?>, Class<? extends Provider<?>>> factories = new LinkedHashMap<>();
+
+    static GeneratedFactories load() throws IOException {
+        GeneratedFactories result = new GeneratedFactories();
+        InputStream[] streams = Streams.locate(FACTORIES_LIST);
+        if (streams != null) {
+            for (InputStream in : streams) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        result.add(line.trim());
+                    }
+                }
+            }
+        }
+        Dependencies.log("Loaded " + result.factories.size() + " generated injection factories");
+        return result;
+    }
+
+    private static ClassLoader loader() {
+        ClassLoader result = Thread.currentThread().getContextClassLoader();
+        return result == null ? GeneratedFactories.class.getClassLoader() : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(String line) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return;
+        }
+        String[] parts = line.split(" ", 2);
+        if (parts.length != 2) {
+            return;
+        }
+        try {
+            ClassLoader ldr = loader();
+            Class<?> type = Class.forName(parts[0], false, ldr);
+            Class<?> factory = Class.forName(parts[1], false, ldr);
+            if (!Provider.class.isAssignableFrom(factory)) {
+                Dependencies.log("Not a provider: " + factory.getName());
+                return;
+            }
+            // Leave types which tell Guice how to get them some other way alone
+            if (type.getAnnotation(ImplementedBy.class) == null && type.getAnnotation(ProvidedBy.class) == null) {
+                factories.put(type, (Class<? extends Provider<?>>) factory);
+            }
+        } catch (ClassNotFoundException | LinkageError ex) {
+            // Stale entry from a jar that is not all there - let Guice
+            // deal with the type the usual way
+            Dependencies.log("Could not load generated factory for " + parts[0] + ": " + ex);
+        }
+    }
+
+    int size() {
+        return factories.size();
+    }
+
+    /**
+     * Record the elements of the passed modules, and return a module which
+     * replays them, and also binds each type with a generated factory that
+     * is reachable from those bindings' dependencies but not bound explicitly
+     * to that factory, in the scope its scope annotation specifies, if any.
+     * Types nothing depends on are left to just-in-time binding as before, so
+     * Guice does not validate the dependencies of factories which will never
+     * be used.
+     *
+     * @param stage The stage
+     * @param modules The modules
+     * @return A module
+     */
+    Module apply(Stage stage, List<Module> modules) {
+        List<Element> elements = Elements.getElements(stage, modules);
+        Set<Key<?>> bound = new HashSet<>();
+        Deque<Key<?>> pending = new ArrayDeque<>();
+        DependencyCollector collector = new DependencyCollector(pending);
+        List<InterceptorBinding> interceptors = new ArrayList<>();
+        collectInterceptors(elements, interceptors);
+        for (Element el : elements) {
+            if (el instanceof Binding<?>) {
+                Binding<?> b = (Binding<?>) el;
+                bound.add(b.getKey());
+                b.acceptTargetVisitor(collector);
+            } else if (el instanceof PrivateElements) {
+                bound.addAll(((PrivateElements) el).getExposedKeys());
+            } else if (el instanceof InjectionRequest<?>) {
+                addDependencies(((InjectionRequest<?>) el).getInjectionPoints(), pending);
+            } else if (el instanceof StaticInjectionRequest) {
+                addDependencies(((StaticInjectionRequest) el).getInjectionPoints(), pending);
+            } else if (el instanceof ProviderLookup<?>) {
+                pending.add(((ProviderLookup<?>) el).getKey());
+            }
+        }
+        List<Class<?>> unbound = new ArrayList<>();
+        Set<Key<?>> seen = new HashSet<>();
+        while (!pending.isEmpty()) {
+            Key<?> key = unwrapProvider(pending.pop());
+            if (key.getAnnotationType() != null || bound.contains(key) || !seen.add(key)) {
+                continue;
+            }
+            Class<?> type = key.getTypeLiteral().getRawType();
+            Class<? extends Provider<?>> factory = factories.get(type);
+            if (factory != null && key.getTypeLiteral().getType() == type
+                    && !isIntercepted(type, interceptors)) {
+                unbound.add(type);
+                addDependencies(InjectionPoint.forConstructorOf(factory).getDependencies(), pending);
+            } else {
+                // A just-in-time binding Guice will create anyway - what it
+                // needs may have a factory
+                collector.addJustInTimeDependencies(key.getTypeLiteral());
+            }
+        }
+        Dependencies.log("Binding " + unbound.size() + " types to generated factories");
+        Module recorded = Elements.getModule(elements);
+        return binder -> {
+            binder.install(recorded);
+            for (Class<?> type : unbound) {
+                bind(binder, type, factories.get(type));
+            }
+        };
+    }
+
+    private static void collectInterceptors(List<Element> elements, List<InterceptorBinding> into) {
+        for (Element el : elements) {
+            if (el instanceof InterceptorBinding) {
+                into.add((InterceptorBinding) el);
+            } else if (el instanceof PrivateElements) {
+                collectInterceptors(((PrivateElements) el).getElements(), into);
+            }
+        }
+    }
+
+    private static boolean isIntercepted(Class<?> type, List<InterceptorBinding> interceptors) {
+        for (InterceptorBinding ib : interceptors) {
+            if (ib.getClassMatcher().matches(type)) {
+                Dependencies.log("Not using generated factory for intercepted " + type.getName());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Key<?> unwrapProvider(Key<?> key) {
+        Class<?> raw = key.getTypeLiteral().getRawType();
+        if ((raw == Provider.class || raw == com.google.inject.Provider.class)
+                && key.getTypeLiteral().getType() instanceof ParameterizedType) {
+            Type param = ((ParameterizedType) key.getTypeLiteral().getType()).getActualTypeArguments()[0];
+            return key.getAnnotation() != null ? Key.get(param, key.getAnnotation())
+                    : key.getAnnotationType() != null ? Key.get(param, key.getAnnotationType())
+                    : Key.get(param);
+        }
+        return key;
+    }
+
+    private static void addDependencies(Collection<? extends Dependency<?>> deps, Deque<Key<?>> into) {
+        for (Dependency<?> dep : deps) {
+            into.add(dep.getKey());
+        }
+    }
+
+    private static void addDependencies(Set<InjectionPoint> points, Deque<Key<?>> into) {
+        for (InjectionPoint ip : points) {
+            addDependencies(ip.getDependencies(), into);
+        }
+    }
+
+    /**
+     * Collects the keys a binding needs.
+     */
+    private static final class DependencyCollector extends DefaultBindingTargetVisitor<Object, Void> {
+
+        private final Deque<Key<?>> into;
+
+        DependencyCollector(Deque<Key<?>> into) {
+            this.into = into;
+        }
+
+        void addJustInTimeDependencies(TypeLiteral<?> type) {
+            Class<?> raw = type.getRawType();
+            if (raw.isInterface() || raw.isPrimitive() || raw.isArray() || Modifier.isAbstract(raw.getModifiers())
+                    || raw.getName().startsWith("java.")) {
+                return;
+            }
+            try {
+                addDependencies(InjectionPoint.forConstructorOf(type).getDependencies(), into);
+                addDependencies(InjectionPoint.forInstanceMethodsAndFields(type), into);
+            } catch (ConfigurationException ex) {
+                // Not injectable; Guice will report it if anything asks
+            }
+        }
+
+        @Override
+        public Void visit(LinkedKeyBinding<?> binding) {
+            into.add(binding.getLinkedKey());
+            return null;
+        }
+
+        @Override
+        public Void visit(ProviderKeyBinding<?> binding) {
+            into.add(binding.getProviderKey());
+            return null;
+        }
+
+        @Override
+        public Void visit(UntargettedBinding<?> binding) {
+            addJustInTimeDependencies(binding.getKey().getTypeLiteral());
+            return null;
+        }
+
+        @Override
+        protected Void visitOther(Binding<?> binding) {
+            if (binding instanceof HasDependencies) {
+                addDependencies(((HasDependencies) binding).getDependencies(), into);
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void bind(Binder binder, Class<T> type, Class<? extends Provider<?>> factory) {
+        Binder b = binder.withSource(factory);
+        // Factories hold nothing but providers, so one instance serves every
+        // provision of its type
+        b.bind(factory).in(Scopes.SINGLETON);
+        Key<? extends Provider<T>> factoryKey = (Key<? extends Provider<T>>) Key.get(factory);
+        ScopedBindingBuilder bb = b.bind(type).toProvider(new FactoryProvider<>(
+                TypeLiteral.get(type), factoryKey, b.getProvider(factoryKey)));
+        Class<? extends Annotation> scope = scopeAnnotation(type);
+        if (scope != null) {
+            bb.in(scope);
+        }
+    }
+
+    /**
+     * Calls the generated factory with the type it constructs as the current
+     * injection target, as ProvisionListenerImpl does for bindings Guice
+     * constructs itself, so a class-level &#064;Namespace on it applies to the
+     * settings its constructor receives. Reports the factory as its only
+     * dependency, so code which walks the binding graph still sees what the
+     * type needs.
+     */
+    static final class FactoryProvider<T> implements com.google.inject.Provider<T>, HasDependencies {
+
+        private final TypeLiteral<T> type;
+        private final Key<? extends Provider<T>> factoryKey;
+        private final Provider<? extends Provider<T>> factoryProvider;
+        private volatile Provider<T> factory;
+
+        FactoryProvider(TypeLiteral<T> type, Key<? extends Provider<T>> factoryKey,
+                Provider<? extends Provider<T>> factoryProvider) {
+            this.type = type;
+            this.factoryKey = factoryKey;
+            this.factoryProvider = factoryProvider;
+        }
+
+        Key<? extends Provider<T>> factoryKey() {
+            return factoryKey;
+        }
+
+        @Override
+        public Set<Dependency<?>> getDependencies() {
+            return Collections.<Dependency<?>>singleton(Dependency.get(factoryKey));
+        }
+
+        Provider<T> factory() {
+            Provider<T> result = factory;
+            if (result == null) {
+                factory = result = factoryProvider.get();
+            }
+            return result;
+        }
+
+        @Override
+        public T get() {
+            Provider<T> f = factory();
+            try (QuietAutoClosable pc = Dependencies.prevType.setTo(Dependencies.currentType.get())) {
+                try (QuietAutoClosable ac = Dependencies.currentType.setTo(type)) {
+                    return f.get();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "FactoryProvider(" + type + " via " + factoryKey + ")";
+        }
+    }
+
+    private static Class<? extends Annotation> scopeAnnotation(Class<?> type) {
+        for (Annotation anno : type.getAnnotations()) {
+            Class<? extends Annotation> annoType = anno.annotationType();
+            if (annoType.isAnnotationPresent(ScopeAnnotation.class) || annoType.isAnnotationPresent(Scope.class)) {
+                return annoType;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratedFactories(" + factories.size() + ")";
+    }
+}
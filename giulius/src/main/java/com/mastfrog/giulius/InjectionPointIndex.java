@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.mastfrog.util.streams.Streams;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The &#064;Named and &#064;Value injection points recorded at compile time by
+ * the namespace annotation processor in
+ * <code>META-INF/settings/injection-points.list</code>, merged across the
+ * classpath - used to bind only the settings keys and types that something
+ * actually injects.
+ *
+ * @author Tim Boudreau
+ */
+final class InjectionPointIndex {
+
+    static final String INJECTION_POINTS_LIST = "META-INF/settings/injection-points.list";
+    private final Map<String, Set<SettingsBindings>> named = new HashMap<>();
+    private final Map<String, Map<String, Set<SettingsBindings>>> values = new HashMap<>();
+    private int entries;
+
+    private static final ClasspathCache<InjectionPointIndex> INDEXES = new ClasspathCache<>();
+
+    static InjectionPointIndex load() throws IOException {
+        return INDEXES.get(InjectionPointIndex::read);
+    }
+
+    private static InjectionPointIndex read() throws IOException {
+        InjectionPointIndex result = new InjectionPointIndex();
+        InputStream[] streams = Streams.locate(INJECTION_POINTS_LIST);
+        if (streams != null) {
+            for (InputStream in : streams) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        result.add(line.trim());
+                    }
+                }
+            }
+        }
+        Dependencies.log("Loaded " + result.entries + " settings injection points");
+        return result;
+    }
+
+    private void add(String line) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return;
+        }
+        String[] parts = line.split(" ", 4);
+        if (parts.length != 4) {
+            return;
+        }
+        SettingsBindings type = SettingsBindings.forTypeName(parts[1]);
+        if (type == null) {
+            // e.g. @Named("foo") ExecutorService - not a setting
+            return;
+        }
+        Map<String, Set<SettingsBindings>> target;
+        switch (parts[0]) {
+            case "named":
+                target = named;
+                break;
+            case "value":
+                target = values.computeIfAbsent(parts[2], ns -> new HashMap<>());
+                break;
+            default:
+                return;
+        }
+        target.computeIfAbsent(parts[3], k -> EnumSet.noneOf(SettingsBindings.class)).add(type);
+        entries++;
+    }
+
+    /**
+     * Get the types a key is injected as with &#064;Named.
+     *
+     * @param key A settings key
+     * @return A set of types, possibly empty
+     */
+    Set<SettingsBindings> named(String key) {
+        Set<SettingsBindings> result = named.get(key);
+        return result == null ? Collections.emptySet() : result;
+    }
+
+    /**
+     * Get the keys injected with &#064;Value in a namespace, and the types
+     * each is injected as.
+     *
+     * @param namespace A namespace
+     * @return A map of key to types, possibly empty
+     */
+    Map<String, Set<SettingsBindings>> values(String namespace) {
+        Map<String, Set<SettingsBindings>> result = values.get(namespace);
+        return result == null ? Collections.emptyMap() : result;
+    }
+
+    @Override
+    public String toString() {
+        return "InjectionPointIndex(" + entries + " entries)";
+    }
+}
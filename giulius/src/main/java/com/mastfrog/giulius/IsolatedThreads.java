@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The thread group owned by an isolated Dependencies. The injector is created
+ * on a thread in the group, so threads started by eager singletons and the
+ * thread factories they bind, which inherit the group of the thread that
+ * creates them, belong to it too; once shutdown hooks have run, every thread
+ * in the group is expected to have exited.
+ *
+ * @author Tim Boudreau
+ */
+final class IsolatedThreads {
+
+    private static final AtomicInteger IDS = new AtomicInteger();
+    final ThreadGroup group;
+    private final Duration grace;
+    private volatile Thread initThread;
+
+    IsolatedThreads(Duration grace) {
+        this.grace = grace;
+        this.group = new ThreadGroup("giulius-isolated-" + IDS.incrementAndGet());
+    }
+
+    boolean isInitThread(Thread thread) {
+        return thread == initThread;
+    }
+
+    /**
+     * Run some code on a new thread in the group, waiting for it to complete
+     * and rethrowing anything it throws.
+     *
+     * @param <T> The result type
+     * @param supplier The code to run
+     * @return The result
+     */
+    <T> T call(Supplier<T> supplier) {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread thread = new Thread(group, () -> {
+            try {
+                result.set(supplier.get());
+            } catch (RuntimeException | Error e) {
+                thrown.set(e);
+            }
+        }, group.getName() + "-init");
+        initThread = thread;
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted creating injector", ex);
+        } finally {
+            initThread = null;
+        }
+        Throwable t = thrown.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return result.get();
+    }
+
+    /**
+     * Get the threads in the group, and any group nested in it, which are
+     * still alive, other than the calling thread.
+     *
+     * @return A list of threads
+     */
+    List<Thread> liveThreads() {
+        Thread[] threads = new Thread[Math.max(16, group.activeCount() * 2)];
+        int count;
+        while ((count = group.enumerate(threads, true)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        List<Thread> result = new ArrayList<>(Arrays.asList(threads).subList(0, count));
+        result.removeIf(t -> t == Thread.currentThread() || !t.isAlive());
+        return result;
+    }
+
+    /**
+     * Wait up to the grace period for every thread in the group to exit.
+     *
+     * @throws IllegalStateException if any are still alive
+     */
+    void verifyTerminated() {
+        long deadline = System.nanoTime() + grace.toNanos();
+        List<Thread> live = liveThreads();
+        while (!live.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                live.get(0).join(Math.max(1, Math.min(50,
+                        (deadline - System.nanoTime()) / 1_000_000)));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            live = liveThreads();
+        }
+        if (!live.isEmpty()) {
+            StringBuilder sb = new StringBuilder(live.size()
+                    + " thread(s) still running " + grace.toMillis()
+                    + "ms after shutdown of " + group.getName() + ":");
+            for (Thread t : live) {
+                sb.append("\n  ").append(t.getName()).append(" (")
+                        .append(t.getState()).append(')');
+            }
+            throw new IllegalStateException(sb.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IsolatedThreads(" + group.getName() + ")";
+    }
+}
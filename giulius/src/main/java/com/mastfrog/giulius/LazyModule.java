@@ -0,0 +1,281 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.Stage;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.PrivateElements;
+import com.mastfrog.util.preconditions.Checks;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Wraps a module for a rarely used subsystem so it costs nothing until it is
+ * needed: at startup only a placeholder provider is bound for each key the
+ * module exposes; the wrapped module is not even configured until the first
+ * time one of those keys is requested, at which point it is configured, once
+ * and thread-safely, into an injector whose other dependencies resolve
+ * against the injector the placeholder lives in.
+ * <pre>
+ * Dependencies deps = Dependencies.builder()
+ *     .add(new ServerModule())
+ *     .add(LazyModule.of(new ReportingModule(), ReportingService.class))
+ *     .build();
+ * </pre>
+ * Things to be aware of:
+ * <ul>
+ * <li>Only the exposed keys are visible outside; the module may bind whatever
+ * else it likes, but it cannot bind keys its host injector already
+ * binds</li>
+ * <li>A &#064;Singleton-annotated class which neither injector binds
+ * explicitly, and the host has not yet created, gets its own instance in the
+ * lazy module's injector</li>
+ * <li>Errors in the wrapped module surface on first use rather than at
+ * startup</li>
+ * <li>Classes the wrapped module constructs get settings for their own
+ * &#064;Namespace, just as they would if bound in the host</li>
+ * </ul>
+ *
+ * @author Tim Boudreau
+ */
+public final class LazyModule implements Module {
+
+    private final Module module;
+    private final Set<Key<?>> exposed = new LinkedHashSet<>();
+
+    private LazyModule(Module module) {
+        this.module = module;
+    }
+
+    /**
+     * Create a lazy module exposing the passed types.
+     *
+     * @param module The module to defer
+     * @param exposed Types bound by the module which should be injectable
+     * from outside it
+     * @return A lazy module
+     */
+    public static LazyModule of(Module module, Class<?>... exposed) {
+        Checks.notNull("module", module);
+        Checks.notNull("exposed", exposed);
+        LazyModule result = new LazyModule(module);
+        for (Class<?> type : exposed) {
+            result.expose(Key.get(type));
+        }
+        return result;
+    }
+
+    /**
+     * Expose an additional key bound by the wrapped module.
+     *
+     * @param key A key
+     * @return this
+     */
+    public LazyModule expose(Key<?> key) {
+        exposed.add(Checks.notNull("key", key));
+        return this;
+    }
+
+    /**
+     * Get the keys this module binds placeholders for.
+     *
+     * @return The exposed keys
+     */
+    public Set<Key<?>> exposed() {
+        return Collections.unmodifiableSet(exposed);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Binder binder) {
+        Checks.notEmpty("exposed", exposed);
+        Activation activation = new Activation(module, new HashSet<>(exposed));
+        binder.requestInjection(activation);
+        for (Key<?> key : exposed) {
+            binder.bind((Key<Object>) key).toProvider(new Placeholder<>(activation, (Key<Object>) key));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyModule(" + module + " exposing " + exposed + ")";
+    }
+
+    /**
+     * Creates the wrapped module's injector on first use.
+     */
+    static final class Activation {
+
+        private final Module module;
+        private final Set<Key<?>> exposed;
+        private Injector host;
+        private volatile Injector injector;
+
+        Activation(Module module, Set<Key<?>> exposed) {
+            this.module = module;
+            this.exposed = exposed;
+        }
+
+        @Inject
+        void setHost(Injector host) {
+            this.host = host;
+        }
+
+        boolean isActive() {
+            return injector != null;
+        }
+
+        Injector injector() {
+            Injector result = injector;
+            if (result == null) {
+                synchronized (this) {
+                    result = injector;
+                    if (result == null) {
+                        injector = result = activate();
+                    }
+                }
+            }
+            return result;
+        }
+
+        private Injector activate() {
+            if (host == null) {
+                throw new IllegalStateException("Used before the injector " + module
+                        + " belongs to was created");
+            }
+            long start = System.nanoTime();
+            Stage stage = host.getInstance(Stage.class);
+            List<Element> elements = Elements.getElements(stage, module);
+            Set<Key<?>> own = new HashSet<>();
+            for (Element el : elements) {
+                if (el instanceof Binding<?>) {
+                    own.add(((Binding<?>) el).getKey());
+                } else if (el instanceof PrivateElements) {
+                    own.addAll(((PrivateElements) el).getExposedKeys());
+                }
+            }
+            for (Key<?> key : exposed) {
+                if (!own.contains(key)) {
+                    throw new IllegalStateException(module + " does not bind " + key);
+                }
+            }
+            Bridge bridge = new Bridge(host, own);
+            Binding<Dependencies> deps = host.getExistingBinding(Key.get(Dependencies.class));
+            Injector result = Guice.createInjector(stage, Elements.getModule(elements), bridge,
+                    binder -> {
+                        if (deps != null) {
+                            // Bridged bindings are listened to by the host
+                            deps.getProvider().get().bindNamespaceListener(binder,
+                                    new AbstractMatcher<Binding<?>>() {
+                                @Override
+                                public boolean matches(Binding<?> binding) {
+                                    return !bridge.bridges(binding.getKey());
+                                }
+                            });
+                        }
+                    });
+            Dependencies.log("Activated " + module + " in "
+                    + ((System.nanoTime() - start) / 1000000L) + "ms");
+            return result;
+        }
+    }
+
+    /**
+     * Makes the host injector's bindings available to the wrapped module.
+     */
+    private static final class Bridge implements Module {
+
+        private static final Set<Class<?>> BUILT_IN = new HashSet<>(Arrays.asList(
+                Injector.class, Stage.class, Logger.class));
+        private final List<Binding<?>> bindings = new ArrayList<>();
+        private final Set<Key<?>> keys = new HashSet<>();
+
+        Bridge(Injector host, Set<Key<?>> omit) {
+            Set<Key<?>> seen = new HashSet<>(omit);
+            for (Injector inj = host; inj != null; inj = inj.getParent()) {
+                for (Map.Entry<Key<?>, Binding<?>> e : inj.getBindings().entrySet()) {
+                    Key<?> key = e.getKey();
+                    if (!BUILT_IN.contains(key.getTypeLiteral().getRawType()) && seen.add(key)) {
+                        bindings.add(e.getValue());
+                        keys.add(key);
+                    }
+                }
+            }
+        }
+
+        boolean bridges(Key<?> key) {
+            return keys.contains(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void configure(Binder binder) {
+            for (Binding<?> binding : bindings) {
+                binder.withSource(binding.getSource()).bind((Key<Object>) binding.getKey())
+                        .toProvider((Provider<Object>) binding.getProvider());
+            }
+        }
+    }
+
+    /**
+     * Bound in the host injector for each exposed key.
+     */
+    private static final class Placeholder<T> implements Provider<T> {
+
+        private final Activation activation;
+        private final Key<T> key;
+
+        Placeholder(Activation activation, Key<T> key) {
+            this.activation = activation;
+            this.key = key;
+        }
+
+        @Override
+        public T get() {
+            return activation.injector().getInstance(key);
+        }
+
+        @Override
+        public String toString() {
+            return "Placeholder(" + key + ")";
+        }
+    }
+}
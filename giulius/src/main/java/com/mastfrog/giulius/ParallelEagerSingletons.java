@@ -0,0 +1,454 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import com.google.inject.Stage;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.ConstructorBinding;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import com.google.inject.spi.UntargettedBinding;
+import com.mastfrog.util.preconditions.Exceptions;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instantiates eager singletons concurrently. The modules' elements are
+ * recorded, and each eager singleton binding is replayed in a singleton scope
+ * Guice does not instantiate eagerly, so the injector is created without
+ * building them. Eager singletons are then grouped so that two are in the same
+ * group if their transitive dependencies share any singleton, and each group
+ * is instantiated, in binding order, on a bounded pool of startup threads -
+ * so no singleton is ever constructed by two startup threads at once. If any
+ * fail, the failure of the first failing singleton in binding order is thrown,
+ * with any others suppressed, so the error does not depend on scheduling.
+ *
+ * @author Tim Boudreau
+ */
+final class ParallelEagerSingletons {
+
+    private final List<Element> elements;
+    private final List<Key<?>> eager = new ArrayList<>();
+    private final Set<Key<?>> eagerKeys = new HashSet<>();
+    private final Map<Key<?>, Binding<?>> bindings = new HashMap<>();
+    private final int threads;
+
+    ParallelEagerSingletons(Stage stage, List<Module> modules, int threads) {
+        this.elements = Elements.getElements(stage, modules);
+        this.threads = threads;
+        for (Element el : elements) {
+            if (el instanceof Binding<?>) {
+                Binding<?> b = (Binding<?>) el;
+                bindings.put(b.getKey(), b);
+                if (isEager(b) && eagerKeys.add(b.getKey())) {
+                    eager.add(b.getKey());
+                }
+            }
+        }
+    }
+
+    int eagerSingletonCount() {
+        return eager.size();
+    }
+
+    /**
+     * A module which replays the original modules, with eager singletons
+     * made lazy.
+     *
+     * @return A module
+     */
+    Module module() {
+        return binder -> {
+            for (Element el : elements) {
+                if (el instanceof Binding<?> && eagerKeys.contains(((Binding<?>) el).getKey())) {
+                    ((Binding<?>) el).acceptTargetVisitor(new Rebinder<>(binder));
+                } else {
+                    el.applyTo(binder);
+                }
+            }
+        };
+    }
+
+    /**
+     * Compute groups of eager singletons which share no singletons.
+     *
+     * @return A list of groups, each in binding order
+     */
+    List<List<Key<?>>> groups() {
+        Map<Key<?>, Key<?>> parent = new HashMap<>();
+        Map<Key<?>, Key<?>> singletonOwner = new HashMap<>();
+        for (Key<?> root : eager) {
+            parent.put(root, root);
+        }
+        for (Key<?> root : eager) {
+            for (Key<?> dep : closure(root)) {
+                if (dep.equals(root) || isSingleton(dep)) {
+                    Key<?> owner = singletonOwner.putIfAbsent(dep, root);
+                    if (owner != null) {
+                        union(parent, owner, root);
+                    }
+                }
+            }
+        }
+        Map<Key<?>, List<Key<?>>> groups = new LinkedHashMap<>();
+        for (Key<?> root : eager) {
+            groups.computeIfAbsent(find(parent, root), k -> new ArrayList<>()).add(root);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static Key<?> find(Map<Key<?>, Key<?>> parent, Key<?> key) {
+        Key<?> p = parent.get(key);
+        while (!p.equals(key)) {
+            key = p;
+            p = parent.get(key);
+        }
+        return p;
+    }
+
+    private void union(Map<Key<?>, Key<?>> parent, Key<?> a, Key<?> b) {
+        Key<?> ra = find(parent, a);
+        Key<?> rb = find(parent, b);
+        if (!ra.equals(rb)) {
+            // Keep the root that was bound first, so group order follows
+            // binding order
+            if (eager.indexOf(ra) < eager.indexOf(rb)) {
+                parent.put(rb, ra);
+            } else {
+                parent.put(ra, rb);
+            }
+        }
+    }
+
+    private Set<Key<?>> closure(Key<?> root) {
+        Set<Key<?>> result = new HashSet<>();
+        LinkedList<Key<?>> queue = new LinkedList<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Key<?> key = unwrapProvider(queue.pop());
+            if (!result.add(key)) {
+                continue;
+            }
+            for (Key<?> dep : dependenciesOf(key)) {
+                queue.add(dep);
+            }
+        }
+        return result;
+    }
+
+    private List<Key<?>> dependenciesOf(Key<?> key) {
+        List<Key<?>> result = new ArrayList<>();
+        Binding<?> b = bindings.get(key);
+        if (b instanceof InstanceBinding<?>) {
+            return result;
+        } else if (b instanceof LinkedKeyBinding<?>) {
+            result.add(((LinkedKeyBinding<?>) b).getLinkedKey());
+        } else if (b instanceof ProviderKeyBinding<?>) {
+            result.add(((ProviderKeyBinding<?>) b).getProviderKey());
+        } else if (b instanceof HasDependencies) {
+            for (Dependency<?> d : ((HasDependencies) b).getDependencies()) {
+                result.add(d.getKey());
+            }
+        } else if ((b == null || b instanceof UntargettedBinding<?>)
+                && key.getAnnotationType() == null) {
+            // Just-in-time or untargetted - look at the class itself
+            TypeLiteral<?> type = key.getTypeLiteral();
+            int mods = type.getRawType().getModifiers();
+            if (type.getRawType().isInterface() || Modifier.isAbstract(mods)) {
+                return result;
+            }
+            try {
+                for (Dependency<?> d : InjectionPoint.forConstructorOf(type).getDependencies()) {
+                    result.add(d.getKey());
+                }
+                for (InjectionPoint ip : InjectionPoint.forInstanceMethodsAndFields(type)) {
+                    for (Dependency<?> d : ip.getDependencies()) {
+                        result.add(d.getKey());
+                    }
+                }
+            } catch (ConfigurationException ex) {
+                // Guice will report it when the injector is created
+            }
+        }
+        return result;
+    }
+
+    private static Key<?> unwrapProvider(Key<?> key) {
+        Class<?> raw = key.getTypeLiteral().getRawType();
+        Type type = key.getTypeLiteral().getType();
+        if ((raw == Provider.class || raw == javax.inject.Provider.class)
+                && type instanceof ParameterizedType) {
+            Type arg = ((ParameterizedType) type).getActualTypeArguments()[0];
+            return key.getAnnotation() != null ? Key.get(arg, key.getAnnotation())
+                    : key.getAnnotationType() != null ? Key.get(arg, key.getAnnotationType())
+                    : Key.get(arg);
+        }
+        return key;
+    }
+
+    private boolean isSingleton(Key<?> key) {
+        Binding<?> b = bindings.get(key);
+        if (b instanceof InstanceBinding<?>) {
+            // Already exists, so sharing it is harmless
+            return false;
+        }
+        if (b != null) {
+            return Scopes.isSingleton(b) || isEager(b);
+        }
+        Class<?> raw = key.getTypeLiteral().getRawType();
+        return raw.isAnnotationPresent(Singleton.class)
+                || raw.isAnnotationPresent(javax.inject.Singleton.class);
+    }
+
+    static boolean isEager(Binding<?> binding) {
+        if (binding instanceof InstanceBinding<?>) {
+            return false;
+        }
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitEagerSingleton() {
+                return true;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Instantiate all eager singletons on a pool of startup threads.
+     *
+     * @param owner The Dependencies the injector is being created for
+     * @param injector The injector
+     * @param groups The groups, from <code>groups()</code>
+     */
+    void instantiate(Dependencies owner, Injector injector, List<List<Key<?>>> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        AtomicInteger ids = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, groups.size()), r -> {
+            Thread t = new StartupThread(r, owner, injector, ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Map<Key<?>, Throwable> failures = new HashMap<>();
+            List<Future<?>> futures = new ArrayList<>(groups.size());
+            for (List<Key<?>> group : groups) {
+                futures.add(pool.submit(() -> {
+                    for (Key<?> key : group) {
+                        try {
+                            injector.getInstance(key);
+                        } catch (RuntimeException | Error ex) {
+                            synchronized (failures) {
+                                failures.put(key, ex);
+                            }
+                            // Later ones in the group may depend on it
+                            break;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    Exceptions.chuck(ex);
+                } catch (ExecutionException ex) {
+                    Exceptions.chuck(ex.getCause());
+                }
+            }
+            Throwable first = null;
+            for (Key<?> key : eager) {
+                Throwable t = failures.get(key);
+                if (t != null) {
+                    if (first == null) {
+                        first = t;
+                    } else {
+                        first.addSuppressed(t);
+                    }
+                }
+            }
+            if (first != null) {
+                Exceptions.chuck(first);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Thread eager singletons are created on, which can hand out the injector
+     * before it has been published by the Dependencies that owns it.
+     */
+    static final class StartupThread extends Thread {
+
+        final Dependencies owner;
+        final Injector injector;
+
+        StartupThread(Runnable r, Dependencies owner, Injector injector, int id) {
+            super(r, "giulius-startup-" + id);
+            this.owner = owner;
+            this.injector = injector;
+        }
+    }
+
+    /**
+     * Singleton scope which Guice does not instantiate eagerly in production
+     * stage.
+     */
+    static final class StartupSingletonScope implements Scope {
+
+        static final StartupSingletonScope INSTANCE = new StartupSingletonScope();
+        private static final Object NULL = new Object();
+
+        @Override
+        public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped) {
+            return new Provider<T>() {
+                private volatile Object instance;
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T get() {
+                    Object result = instance;
+                    if (result == null) {
+                        synchronized (this) {
+                            result = instance;
+                            if (result == null) {
+                                T obj = unscoped.get();
+                                instance = result = obj == null ? NULL : obj;
+                            }
+                        }
+                    }
+                    return result == NULL ? null : (T) result;
+                }
+
+                @Override
+                public String toString() {
+                    return "StartupSingleton(" + unscoped + ")";
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "StartupSingletonScope";
+        }
+    }
+
+    /**
+     * Replays a binding with the same target in StartupSingletonScope.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class Rebinder<T> extends DefaultBindingTargetVisitor<T, Void> {
+
+        private final Binder binder;
+
+        Rebinder(Binder binder) {
+            this.binder = binder;
+        }
+
+        @Override
+        public Void visit(UntargettedBinding<? extends T> b) {
+            binder.withSource(b.getSource()).bind(b.getKey()).in(StartupSingletonScope.INSTANCE);
+            return null;
+        }
+
+        @Override
+        public Void visit(LinkedKeyBinding<? extends T> b) {
+            binder.withSource(b.getSource()).bind((Key) b.getKey()).to((Key) b.getLinkedKey())
+                    .in(StartupSingletonScope.INSTANCE);
+            return null;
+        }
+
+        @Override
+        public Void visit(ProviderKeyBinding<? extends T> b) {
+            binder.withSource(b.getSource()).bind((Key) b.getKey()).toProvider((Key) b.getProviderKey())
+                    .in(StartupSingletonScope.INSTANCE);
+            return null;
+        }
+
+        @Override
+        public Void visit(ProviderInstanceBinding<? extends T> b) {
+            binder.withSource(b.getSource()).bind((Key) b.getKey())
+                    .toProvider((javax.inject.Provider) b.getUserSuppliedProvider())
+                    .in(StartupSingletonScope.INSTANCE);
+            return null;
+        }
+
+        @Override
+        public Void visit(ConstructorBinding<? extends T> b) {
+            binder.withSource(b.getSource()).bind((Key) b.getKey())
+                    .toConstructor((Constructor) b.getConstructor().getMember(),
+                            (TypeLiteral) b.getConstructor().getDeclaringType())
+                    .in(StartupSingletonScope.INSTANCE);
+            return null;
+        }
+
+        @Override
+        protected Void visitOther(Binding<? extends T> b) {
+            // Nothing else can be an eager singleton
+            b.applyTo(binder);
+            return null;
+        }
+    }
+}
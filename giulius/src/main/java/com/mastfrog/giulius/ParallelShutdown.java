@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.mastfrog.function.throwing.ThrowingRunnable;
+import com.mastfrog.giulius.ShutdownReport.HookTiming;
+import com.mastfrog.giulius.ShutdownReport.Outcome;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the hooks added to each phase of a shutdown hook registry into a
+ * batch, which is registered with the registry as a single hook; when run, it
+ * runs every hook in the batch concurrently, each on its own daemon thread,
+ * and waits for them up to a fixed budget. Executor services are shut down
+ * and awaited within that budget, rather than after the last phase. Hooks
+ * still running when the budget is used up are interrupted and abandoned, so
+ * independent pools and connections close in the time of the slowest, not
+ * the sum of all of them, and one hung hook cannot hold up the next batch
+ * indefinitely.
+ *
+ * @author Tim Boudreau
+ */
+final class ParallelShutdown {
+
+    private final long budgetNanos;
+    private final ShutdownReport report;
+    private final Map<String, Batch> batches = new HashMap<>(4);
+
+    ParallelShutdown(Duration budget, ShutdownReport report) {
+        this.budgetNanos = budget.toNanos();
+        this.report = report;
+    }
+
+    /**
+     * Add a hook to a batch.
+     *
+     * @param batchName The batch - first, default or last
+     * @param hook The hook
+     * @param weak Whether to hold it weakly
+     * @return The batch, if it is new and needs to be registered with the
+     * registry, or null
+     */
+    synchronized ThrowingRunnable add(String batchName, Object hook, boolean weak) {
+        Batch batch = batches.get(batchName);
+        boolean isNew = batch == null;
+        if (isNew) {
+            batch = new Batch(batchName);
+            batches.put(batchName, batch);
+        }
+        batch.hooks.add(weak ? new WeakReference<>(hook) : hook);
+        return isNew ? batch : null;
+    }
+
+    private synchronized List<Object> take(Batch batch) {
+        // Hooks added from here on get a new batch
+        batches.remove(batch.name, batch);
+        List<Object> result = new ArrayList<>(batch.hooks);
+        batch.hooks.clear();
+        return result;
+    }
+
+    /**
+     * Run one hook the same way the registry would.
+     */
+    static void runOne(Object hook, long deadline) throws Exception {
+        if (hook instanceof ExecutorService) {
+            ExecutorService svc = (ExecutorService) hook;
+            if (!svc.isShutdown()) {
+                svc.shutdown();
+            }
+            svc.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } else if (hook instanceof Timer) {
+            ((Timer) hook).cancel();
+        } else if (hook instanceof Thread) {
+            ((Thread) hook).interrupt();
+        } else if (hook instanceof AutoCloseable) {
+            ((AutoCloseable) hook).close();
+        } else if (hook instanceof Callable<?>) {
+            ((Callable<?>) hook).call();
+        } else if (hook instanceof ThrowingRunnable) {
+            ((ThrowingRunnable) hook).run();
+        } else if (hook instanceof Runnable) {
+            ((Runnable) hook).run();
+        } else if (hook != null) {
+            throw new AssertionError("I don't know how to run " + hook);
+        }
+    }
+
+    private final class Batch implements ThrowingRunnable {
+
+        private final String name;
+        private final List<Object> hooks = new ArrayList<>();
+
+        Batch(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() throws Exception {
+            List<Object> toRun = take(this);
+            long start = System.nanoTime();
+            long deadline = start + budgetNanos;
+            int count = toRun.size();
+            Object[] resolved = new Object[count];
+            Thread[] threads = new Thread[count];
+            long[] elapsed = new long[count];
+            Throwable[] failures = new Throwable[count];
+            boolean[] done = new boolean[count];
+            CountDownLatch latch = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                Object hook = toRun.get(i);
+                if (hook instanceof Reference<?>) {
+                    hook = ((Reference<?>) hook).get();
+                }
+                resolved[i] = hook;
+                if (hook == null) {
+                    // Garbage collected weak hook
+                    done[i] = true;
+                    latch.countDown();
+                    continue;
+                }
+                int index = i;
+                Object h = hook;
+                threads[i] = new Thread(() -> {
+                    long hookStart = System.nanoTime();
+                    try {
+                        runOne(h, deadline);
+                    } catch (Throwable ex) {
+                        synchronized (failures) {
+                            failures[index] = ex;
+                        }
+                    } finally {
+                        synchronized (failures) {
+                            elapsed[index] = System.nanoTime() - hookStart;
+                            done[index] = true;
+                        }
+                        latch.countDown();
+                    }
+                }, "shutdown-" + name + "-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+            latch.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            long now = System.nanoTime();
+            List<HookTiming> timings = new ArrayList<>(count);
+            Throwable failure = null;
+            synchronized (failures) {
+                for (int i = 0; i < count; i++) {
+                    if (resolved[i] == null) {
+                        continue;
+                    }
+                    Outcome outcome;
+                    long dur = elapsed[i];
+                    if (!done[i]) {
+                        outcome = Outcome.TIMED_OUT;
+                        dur = now - start;
+                        threads[i].interrupt();
+                    } else if (failures[i] != null) {
+                        outcome = Outcome.FAILED;
+                        // Report failures in registration order, not
+                        // whichever thread happened to finish first
+                        if (failure == null) {
+                            failure = failures[i];
+                        } else {
+                            failure.addSuppressed(failures[i]);
+                        }
+                    } else {
+                        outcome = Outcome.COMPLETED;
+                    }
+                    timings.add(new HookTiming(name, String.valueOf(resolved[i]), Duration.ofNanos(dur), outcome));
+                }
+            }
+            report.batch(name, Duration.ofNanos(now - start), timings);
+            if (failure instanceof Exception) {
+                throw (Exception) failure;
+            } else if (failure != null) {
+                throw (Error) failure;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ParallelShutdown(" + name + ")";
+        }
+    }
+}
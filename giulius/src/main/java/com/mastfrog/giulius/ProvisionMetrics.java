@@ -0,0 +1,463 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Scope;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProvisionListener;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-binding provision counts, time and allocation, for finding expensive
+ * unscoped objects created over and over on hot paths, with suggestions of
+ * which bindings are worth scoping. Off by default, since it adds a
+ * provision listener to every binding; turn it on with
+ * {@link DependenciesBuilder#recordProvisionMetrics()} or by setting the
+ * system property or setting <code>giulius.provision.report</code> to
+ * <code>true</code>, which also prints the report to standard out on
+ * shutdown. Obtain it from {@link Dependencies#provisionMetrics()}.
+ * <p>
+ * Times and allocation are <i>self</i> figures - what provisioning a key cost
+ * excluding the provisioning of its dependencies, which are counted under
+ * their own keys. Allocation is measured with the per-thread allocation
+ * counter HotSpot exposes, and reported as -1 where that is unavailable.
+ * That counter is JVM-wide and may be switched off; if so, it is switched on
+ * while recording, and back off when the last recording Dependencies is
+ * shut down.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class ProvisionMetrics {
+
+    /**
+     * Setting or system property which turns on recording and causes the
+     * report to be printed to standard out on shutdown.
+     */
+    public static final String SETTINGS_KEY_PROVISION_REPORT = "giulius.provision.report";
+    /**
+     * The default minimum number of provisions before a binding is worth
+     * suggesting a scope for.
+     */
+    public static final int DEFAULT_SUGGESTION_THRESHOLD = 100;
+    private static final int REPORT_ROWS = 25;
+    private final Map<Key<?>, Stats> stats = new ConcurrentHashMap<>();
+    private volatile Injector injector;
+    private volatile boolean enabled;
+    private boolean measuringAllocation;
+
+    ProvisionMetrics() {
+    }
+
+    synchronized void enable() {
+        enabled = true;
+        if (!measuringAllocation) {
+            measuringAllocation = true;
+            Allocation.acquire();
+        }
+    }
+
+    /**
+     * Called on shutdown, to put allocation measurement back as it was.
+     */
+    synchronized void close() {
+        if (measuringAllocation) {
+            measuringAllocation = false;
+            Allocation.release();
+        }
+    }
+
+    /**
+     * Determine if provisions are being recorded.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void injector(Injector injector) {
+        this.injector = injector;
+    }
+
+    ProvisionListener listener() {
+        return new Listener(this);
+    }
+
+    /**
+     * Get the figures for every key provisioned so far, most expensive (by
+     * total self time) first.
+     *
+     * @return A list of stats
+     */
+    public List<BindingStats> stats() {
+        List<BindingStats> result = new ArrayList<>(stats.size());
+        for (Map.Entry<Key<?>, Stats> e : stats.entrySet()) {
+            result.add(e.getValue().snapshot(e.getKey()));
+        }
+        result.sort((a, b) -> Long.compare(b.selfNanos, a.selfNanos));
+        return result;
+    }
+
+    /**
+     * Get the stats for one key.
+     *
+     * @param key A key
+     * @return The stats, or null if it was never provisioned
+     */
+    public BindingStats stats(Key<?> key) {
+        Stats s = stats.get(key);
+        return s == null ? null : s.snapshot(key);
+    }
+
+    /**
+     * Get suggestions for unscoped bindings provisioned at least
+     * {@link #DEFAULT_SUGGESTION_THRESHOLD} times.
+     *
+     * @return A list of suggestions, most expensive first
+     */
+    public List<ScopingSuggestion> suggestions() {
+        return suggestions(DEFAULT_SUGGESTION_THRESHOLD);
+    }
+
+    /**
+     * Get suggestions for unscoped bindings provisioned at least the passed
+     * number of times. A binding built only from singletons, instances and
+     * constants is suggested as a singleton - if it holds no per-use state,
+     * one instance would do; one built from other unscoped or narrower scoped
+     * bindings is suggested for request (or similar unit-of-work) scope.
+     *
+     * @param minProvisions The threshold
+     * @return A list of suggestions, most expensive first
+     */
+    public List<ScopingSuggestion> suggestions(int minProvisions) {
+        Injector inj = injector;
+        List<ScopingSuggestion> result = new ArrayList<>();
+        if (inj == null) {
+            return result;
+        }
+        for (BindingStats s : stats()) {
+            if (s.count < minProvisions) {
+                continue;
+            }
+            Binding<?> binding = inj.getExistingBinding(s.key);
+            if (binding == null || !isUnscoped(binding)) {
+                continue;
+            }
+            Key<?> unstable = null;
+            if (binding instanceof HasDependencies) {
+                for (Dependency<?> dep : ((HasDependencies) binding).getDependencies()) {
+                    Binding<?> db = inj.getExistingBinding(dep.getKey());
+                    if (db != null && !isStable(db)) {
+                        unstable = dep.getKey();
+                        break;
+                    }
+                }
+            }
+            if (unstable == null) {
+                result.add(new ScopingSuggestion(s, SuggestedScope.SINGLETON,
+                        "built only from singletons and constants"));
+            } else {
+                result.add(new ScopingSuggestion(s, SuggestedScope.REQUEST,
+                        "depends on " + unstable + ", which is not a singleton"));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isUnscoped(Binding<?> binding) {
+        if (binding instanceof InstanceBinding<?>) {
+            return false;
+        }
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitNoScoping() {
+                return true;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    private static boolean isStable(Binding<?> binding) {
+        if (binding instanceof InstanceBinding<?>) {
+            return true;
+        }
+        if (binding instanceof ProviderInstanceBinding<?> && isUnscoped(binding)) {
+            // Settings values and the like are computed by providers but
+            // are constant in practice; other providers cannot be judged
+            return binding.getKey().getAnnotationType() != null;
+        }
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitEagerSingleton() {
+                return true;
+            }
+
+            @Override
+            public Boolean visitScope(Scope scope) {
+                return scope == com.google.inject.Scopes.SINGLETON
+                        || scope == ParallelEagerSingletons.StartupSingletonScope.INSTANCE;
+            }
+
+            @Override
+            public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                return scopeAnnotation == com.google.inject.Singleton.class
+                        || scopeAnnotation == javax.inject.Singleton.class;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Provision metrics");
+        if (!enabled) {
+            return sb.append(" - not enabled").toString();
+        }
+        List<BindingStats> all = stats();
+        sb.append(" - ").append(all.size()).append(" keys\n");
+        for (int i = 0; i < Math.min(REPORT_ROWS, all.size()); i++) {
+            sb.append("  ").append(all.get(i)).append('\n');
+        }
+        if (all.size() > REPORT_ROWS) {
+            sb.append("  ...and ").append(all.size() - REPORT_ROWS).append(" more\n");
+        }
+        List<ScopingSuggestion> suggestions = suggestions();
+        if (!suggestions.isEmpty()) {
+            sb.append("Scoping suggestions:\n");
+            for (ScopingSuggestion s : suggestions) {
+                sb.append("  ").append(s).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Recommended scope for a binding.
+     */
+    public enum SuggestedScope {
+        SINGLETON,
+        REQUEST
+    }
+
+    /**
+     * Figures for one key.
+     */
+    public static final class BindingStats {
+
+        public final Key<?> key;
+        public final long count;
+        public final long selfNanos;
+        public final long allocatedBytes;
+
+        BindingStats(Key<?> key, long count, long selfNanos, long allocatedBytes) {
+            this.key = key;
+            this.count = count;
+            this.selfNanos = selfNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public Duration totalTime() {
+            return Duration.ofNanos(selfNanos);
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : selfNanos / count;
+        }
+
+        public long meanAllocatedBytes() {
+            return allocatedBytes < 0 || count == 0 ? -1 : allocatedBytes / count;
+        }
+
+        @Override
+        public String toString() {
+            return key + ": " + count + " provisions, "
+                    + (selfNanos / 1000000D) + "ms total, " + meanNanos() + "ns mean"
+                    + (allocatedBytes < 0 ? "" : ", " + meanAllocatedBytes() + " bytes mean");
+        }
+    }
+
+    /**
+     * A binding worth scoping, and why.
+     */
+    public static final class ScopingSuggestion {
+
+        public final BindingStats stats;
+        public final SuggestedScope scope;
+        public final String reason;
+
+        ScopingSuggestion(BindingStats stats, SuggestedScope scope, String reason) {
+            this.stats = stats;
+            this.scope = scope;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return stats.key + " -> " + scope + " (" + stats.count + " provisions, "
+                    + (stats.selfNanos / 1000000D) + "ms; " + reason + ")";
+        }
+    }
+
+    private static final class Stats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        BindingStats snapshot(Key<?> key) {
+            return new BindingStats(key, count.sum(), nanos.sum(),
+                    Allocation.SUPPORTED ? bytes.sum() : -1);
+        }
+    }
+
+    /**
+     * Per-thread stack of the time and allocation spent provisioning
+     * dependencies, so it can be subtracted from their dependents.
+     */
+    private static final class Frame {
+
+        long childNanos;
+        long childBytes;
+        Frame parent;
+    }
+
+    private static final class Listener implements ProvisionListener {
+
+        private final ProvisionMetrics metrics;
+        private final ThreadLocal<Frame[]> current = ThreadLocal.withInitial(() -> new Frame[1]);
+
+        Listener(ProvisionMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public <T> void onProvision(ProvisionInvocation<T> provision) {
+            if (!metrics.enabled) {
+                provision.provision();
+                return;
+            }
+            Frame[] top = current.get();
+            Frame frame = new Frame();
+            frame.parent = top[0];
+            top[0] = frame;
+            long startBytes = Allocation.current();
+            long start = System.nanoTime();
+            try {
+                provision.provision();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                long allocated = Allocation.current() - startBytes;
+                top[0] = frame.parent;
+                if (frame.parent != null) {
+                    frame.parent.childNanos += elapsed;
+                    frame.parent.childBytes += allocated;
+                }
+                Stats s = metrics.stats.computeIfAbsent(provision.getBinding().getKey(), k -> new Stats());
+                s.count.increment();
+                s.nanos.add(Math.max(0, elapsed - frame.childNanos));
+                s.bytes.add(Math.max(0, allocated - frame.childBytes));
+            }
+        }
+    }
+
+    /**
+     * HotSpot's per-thread allocation counter, if available.
+     */
+    static final class Allocation {
+
+        private static final com.sun.management.ThreadMXBean BEAN;
+        static final boolean SUPPORTED;
+        private static int users;
+        private static boolean switchedOn;
+
+        static {
+            com.sun.management.ThreadMXBean bean = null;
+            try {
+                java.lang.management.ThreadMXBean b = ManagementFactory.getThreadMXBean();
+                if (b instanceof com.sun.management.ThreadMXBean
+                        && ((com.sun.management.ThreadMXBean) b).isThreadAllocatedMemorySupported()) {
+                    bean = (com.sun.management.ThreadMXBean) b;
+                }
+            } catch (LinkageError | RuntimeException ex) {
+                Dependencies.log("Allocation measurement unavailable: " + ex);
+                bean = null;
+            }
+            BEAN = bean;
+            SUPPORTED = bean != null;
+        }
+
+        private Allocation() {
+            throw new AssertionError();
+        }
+
+        /**
+         * Switch the counter on if it is off, for as long as anything is
+         * recording.
+         */
+        static synchronized void acquire() {
+            if (BEAN != null && users++ == 0 && !BEAN.isThreadAllocatedMemoryEnabled()) {
+                BEAN.setThreadAllocatedMemoryEnabled(true);
+                switchedOn = true;
+            }
+        }
+
+        static synchronized void release() {
+            if (BEAN != null && --users == 0 && switchedOn) {
+                switchedOn = false;
+                BEAN.setThreadAllocatedMemoryEnabled(false);
+            }
+        }
+
+        static boolean isEnabled() {
+            return BEAN != null && BEAN.isThreadAllocatedMemoryEnabled();
+        }
+
+        static long current() {
+            return BEAN == null ? 0 : BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
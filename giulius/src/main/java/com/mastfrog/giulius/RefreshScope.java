@@ -0,0 +1,433 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.spi.ProvisionListener;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.util.preconditions.Checks;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link com.mastfrog.giulius.annotations.RefreshScoped}:
+ * a singleton scope which records the settings keys each instance read while
+ * it was being constructed - through &#064;Named or &#064;Value injection, or
+ * calls on an injected Settings - along with any other refresh-scoped
+ * instances it was handed. Calling {@link #refresh()} compares the recorded
+ * values with the current ones and discards the instances whose values
+ * changed, and the instances which depend on those, so that they are rebuilt
+ * with current settings the next time they are requested; everything else is
+ * left alone. Consumers which should see the new instance should inject a
+ * Provider.
+ * <p>
+ * Nothing notifies anyone when settings change, so refreshing is either
+ * explicit, e.g. after setting a value in MutableSettings, or periodic - see
+ * {@link DependenciesBuilder#pollRefreshScope(Duration, Duration)}. A refresh
+ * only compares strings, so polling is cheap.
+ * </p>
+ * <p>
+ * A Settings injected into a refresh-scoped instance is a recording wrapper,
+ * so it will not be an instance of MutableSettings. Only the refresh-scoped
+ * instance's own injection points are recorded and wrapped - not those of
+ * ordinary objects which happen to be created while it is being built.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class RefreshScope implements Scope {
+
+    private static final ThreadLocal<Recorder> RECORDING = new ThreadLocal<>();
+    // Lets settings reads skip the thread local entirely when nothing
+    // refresh-scoped is being constructed anywhere
+    private static final AtomicInteger PROVISIONING = new AtomicInteger();
+    static final ProvisionListener INJECTEE_LISTENER = new InjecteeListener();
+    private final Set<Slot<?>> slots = ConcurrentHashMap.newKeySet();
+    private Timer timer;
+
+    RefreshScope() {
+    }
+
+    @Override
+    public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped) {
+        Slot<T> slot = new Slot<>(key, unscoped);
+        slots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Discard refresh-scoped instances whose settings have changed, leaving
+     * the old instances for the garbage collector.
+     *
+     * @return The keys whose instances were discarded
+     */
+    public Set<Key<?>> refresh() {
+        return refresh(null);
+    }
+
+    /**
+     * Discard refresh-scoped instances whose settings have changed, and drain
+     * the old instances in the background: ExecutorServices are shut down and
+     * given the passed time to finish their work before being shut down
+     * forcibly, and anything AutoCloseable is closed.
+     *
+     * @param drain How long old executors may finish queued work, or null to
+     * not touch old instances
+     * @return The keys whose instances were discarded
+     */
+    public Set<Key<?>> refresh(Duration drain) {
+        Set<Key<?>> result = new LinkedHashSet<>();
+        List<Object> discarded = new ArrayList<>();
+        boolean changed;
+        do {
+            // Loop, so that instances which depend on ones discarded in
+            // this pass are discarded in the next
+            changed = false;
+            for (Slot<?> slot : slots) {
+                Instance<?> inst = slot.current;
+                if (inst != null && inst.isStale() && slot.discard(inst)) {
+                    result.add(slot.key);
+                    discarded.add(inst.value);
+                    changed = true;
+                }
+            }
+        } while (changed);
+        if (!result.isEmpty()) {
+            Dependencies.log("Refresh discarded " + result);
+            if (drain != null && !discarded.isEmpty()) {
+                drain(discarded, drain);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the settings values, by key, the current instance for a key was
+     * built from.
+     *
+     * @param key A refresh-scoped key
+     * @return The values read, empty if there is no current instance
+     */
+    public Map<String, String> settingsRead(Key<?> key) {
+        for (Slot<?> slot : slots) {
+            Instance<?> inst = slot.current;
+            if (slot.key.equals(key) && inst != null) {
+                Map<String, String> result = new LinkedHashMap<>();
+                for (Map<String, String> m : inst.reads.values()) {
+                    result.putAll(m);
+                }
+                return result;
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    synchronized void pollEvery(Duration interval, Duration drain) {
+        Checks.notNull("interval", interval);
+        if (timer == null) {
+            timer = new Timer("refresh-scope", true);
+        }
+        long millis = Math.max(1, interval.toMillis());
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    refresh(drain);
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace(System.err);
+                }
+            }
+        }, millis, millis);
+    }
+
+    synchronized void stop() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    private static void drain(List<Object> discarded, Duration drain) {
+        Thread t = new Thread(() -> {
+            for (Object o : discarded) {
+                if (o instanceof ExecutorService) {
+                    ((ExecutorService) o).shutdown();
+                }
+            }
+            long deadline = System.nanoTime() + drain.toNanos();
+            for (Object o : discarded) {
+                try {
+                    if (o instanceof ExecutorService) {
+                        ExecutorService svc = (ExecutorService) o;
+                        long remaining = Math.max(0, deadline - System.nanoTime());
+                        if (!svc.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                            svc.shutdownNow();
+                        }
+                    } else if (o instanceof AutoCloseable) {
+                        ((AutoCloseable) o).close();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ex) {
+                    ex.printStackTrace(System.err);
+                }
+            }
+        }, "refresh-scope-drain");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Called by settings providers on every read.
+     */
+    static void read(Settings settings, String key, String value) {
+        if (PROVISIONING.get() > 0) {
+            Recorder rec = RECORDING.get();
+            if (rec != null && rec.isInjectingOwnInstance()) {
+                rec.read(settings, key, value);
+            }
+        }
+    }
+
+    /**
+     * Called by the providers of injected Settings.
+     */
+    static Settings track(Settings settings) {
+        if (PROVISIONING.get() > 0) {
+            Recorder rec = RECORDING.get();
+            if (rec != null && rec.isInjectingOwnInstance()) {
+                return new TrackingSettings(settings, rec);
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * What one instance was built from.
+     */
+    private static final class Recorder {
+
+        private final Map<Settings, Map<String, String>> reads = new IdentityHashMap<>();
+        private final Map<Slot<?>, Instance<?>> dependencies = new IdentityHashMap<>();
+        // How many provisions of things which inject settings are underway;
+        // only ever touched by the thread constructing the instance
+        private int depth;
+
+        boolean isInjectingOwnInstance() {
+            return depth == 1;
+        }
+
+        void read(Settings settings, String key, String value) {
+            // Record the first value seen, which is what the instance used
+            reads.computeIfAbsent(settings, s -> new LinkedHashMap<>()).putIfAbsent(key, value);
+        }
+
+        void dependsOn(Slot<?> slot, Instance<?> instance) {
+            dependencies.putIfAbsent(slot, instance);
+        }
+    }
+
+    /**
+     * Counts nested provisions of things which inject settings under the
+     * refresh-scoped instance being constructed, so that settings injected
+     * into some ordinary singleton which it causes to be created are neither
+     * recorded as its own, nor wrapped for life.
+     */
+    private static final class InjecteeListener implements ProvisionListener {
+
+        @Override
+        public <T> void onProvision(ProvisionInvocation<T> provision) {
+            Recorder rec = PROVISIONING.get() > 0 ? RECORDING.get() : null;
+            if (rec == null) {
+                provision.provision();
+                return;
+            }
+            rec.depth++;
+            try {
+                provision.provision();
+            } finally {
+                rec.depth--;
+            }
+        }
+    }
+
+    private static final class Instance<T> {
+
+        final T value;
+        final Map<Settings, Map<String, String>> reads;
+        final Map<Slot<?>, Instance<?>> dependencies;
+
+        Instance(T value, Recorder rec) {
+            this.value = value;
+            this.reads = rec.reads;
+            this.dependencies = rec.dependencies;
+        }
+
+        boolean isStale() {
+            for (Map.Entry<Slot<?>, Instance<?>> e : dependencies.entrySet()) {
+                if (e.getKey().current != e.getValue()) {
+                    return true;
+                }
+            }
+            for (Map.Entry<Settings, Map<String, String>> e : reads.entrySet()) {
+                Settings settings = e.getKey();
+                for (Map.Entry<String, String> kv : e.getValue().entrySet()) {
+                    if (!Objects.equals(kv.getValue(), settings.getString(kv.getKey()))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Slot<T> implements Provider<T> {
+
+        private final Key<T> key;
+        private final Provider<T> unscoped;
+        private volatile Instance<T> current;
+
+        Slot(Key<T> key, Provider<T> unscoped) {
+            this.key = key;
+            this.unscoped = unscoped;
+        }
+
+        @Override
+        public T get() {
+            Instance<T> result = current;
+            if (result == null) {
+                synchronized (this) {
+                    result = current;
+                    if (result == null) {
+                        current = result = create();
+                    }
+                }
+            }
+            Recorder outer = RECORDING.get();
+            if (outer != null) {
+                outer.dependsOn(this, result);
+            }
+            return result.value;
+        }
+
+        private Instance<T> create() {
+            Recorder prev = RECORDING.get();
+            Recorder rec = new Recorder();
+            RECORDING.set(rec);
+            PROVISIONING.incrementAndGet();
+            try {
+                return new Instance<>(unscoped.get(), rec);
+            } finally {
+                PROVISIONING.decrementAndGet();
+                if (prev == null) {
+                    RECORDING.remove();
+                } else {
+                    RECORDING.set(prev);
+                }
+            }
+        }
+
+        synchronized boolean discard(Instance<?> inst) {
+            if (current == inst) {
+                current = null;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "RefreshScoped(" + key + ")";
+        }
+    }
+
+    /**
+     * Settings handed to a refresh-scoped instance under construction.
+     */
+    private static final class TrackingSettings implements Settings {
+
+        private final Settings delegate;
+        private final Recorder rec;
+
+        TrackingSettings(Settings delegate, Recorder rec) {
+            this.delegate = delegate;
+            this.rec = rec;
+        }
+
+        @Override
+        public String getString(String name) {
+            String result = delegate.getString(name);
+            // Reads after construction (or by some other instance) are not
+            // what this instance was built from
+            if (RECORDING.get() == rec) {
+                rec.read(delegate, name, result);
+            }
+            return result;
+        }
+
+        @Override
+        public Set<String> allKeys() {
+            return delegate.allKeys();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public Properties toProperties() {
+            return delegate.toProperties();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshScope(" + slots.size() + " keys)";
+    }
+}
@@ -31,4 +31,43 @@ package com.mastfrog.giulius;
 public enum SettingsBindings {
     INT, BOOLEAN, STRING, LONG, BYTE, DOUBLE, SHORT, FLOAT, CHARACTER,
     BIG_DECIMAL, BIG_INTEGER, DURATION;
+
+    /**
+     * Get the binding kind for a (boxed) injected type name, as recorded in
+     * the injection point index.
+     *
+     * @param typeName A fully qualified class name
+     * @return A SettingsBindings or null if the type is not one settings are
+     * bound as
+     */
+    static SettingsBindings forTypeName(String typeName) {
+        switch (typeName) {
+            case "java.lang.Integer":
+                return INT;
+            case "java.lang.Boolean":
+                return BOOLEAN;
+            case "java.lang.String":
+                return STRING;
+            case "java.lang.Long":
+                return LONG;
+            case "java.lang.Byte":
+                return BYTE;
+            case "java.lang.Double":
+                return DOUBLE;
+            case "java.lang.Short":
+                return SHORT;
+            case "java.lang.Float":
+                return FLOAT;
+            case "java.lang.Character":
+                return CHARACTER;
+            case "java.math.BigDecimal":
+                return BIG_DECIMAL;
+            case "java.math.BigInteger":
+                return BIG_INTEGER;
+            case "java.time.Duration":
+                return DURATION;
+            default:
+                return null;
+        }
+    }
 }
@@ -49,6 +49,7 @@ public abstract class ShutdownHookRegistry implements ShutdownHooks {
 
         private final boolean registerable;
         private ShutdownHookRegistry registry;
+        private volatile ParallelShutdown parallel;
 
         Delegator(boolean registerable) {
             this.registerable = registerable;
@@ -67,6 +68,23 @@ public abstract class ShutdownHookRegistry implements ShutdownHooks {
             super.deinstall();
         }
 
+        @Override
+        protected com.mastfrog.shutdown.hooks.ShutdownHookRegistry add(Object toRun, Phase phase, boolean weak) {
+            ParallelShutdown par = parallel;
+            if (par == null) {
+                return super.add(toRun, phase, weak);
+            }
+            // Phase is not accessible outside subclasses, so no switch
+            String batchName = phase == Phase.FIRST ? ShutdownReport.BATCH_FIRST
+                    : phase == Phase.LAST ? ShutdownReport.BATCH_LAST
+                    : ShutdownReport.BATCH_DEFAULT;
+            ThrowingRunnable batch = par.add(batchName, toRun, weak);
+            if (batch != null) {
+                super.add(batch, phase, false);
+            }
+            return this;
+        }
+
         @Override
         protected void onFirstAdd() {
             if (registerable) {
@@ -279,6 +297,18 @@ public abstract class ShutdownHookRegistry implements ShutdownHooks {
         }
     }
 
+    /**
+     * A registry which never installs a VM shutdown hook, and so runs its
+     * hooks only when explicitly shut down - used by isolated Dependencies
+     * instances, so that many may come and go within one JVM.
+     */
+    static final class IsolatedShutdownHookRegistry extends ShutdownHookRegistry {
+
+        IsolatedShutdownHookRegistry() {
+            super(new Delegator(false));
+        }
+    }
+
     void setDeploymentMode(DeploymentMode mode) {
         delegator.setDeploymentMode(com.mastfrog.shutdown.hooks.DeploymentMode.valueOf(mode.name()));
     }
@@ -307,6 +337,10 @@ public abstract class ShutdownHookRegistry implements ShutdownHooks {
         return result;
     }
 
+    void setParallelShutdown(ParallelShutdown parallel) {
+        delegator.parallel = parallel;
+    }
+
     void setWaitMilliseconds(long wait) {
         delegator.setWaitMilliseconds(wait);
     }
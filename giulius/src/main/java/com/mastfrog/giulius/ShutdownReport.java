@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How long each shutdown hook took when hooks are run in parallel batches
+ * (see {@link DependenciesBuilder#parallelShutdown(Duration)}), whether it
+ * completed, failed or overran its batch's budget, and how long each batch
+ * took. Obtain it from {@link Dependencies#shutdownReport()}; set the system
+ * property or setting <code>giulius.shutdown.report</code> to
+ * <code>true</code> to have each batch printed as it completes.
+ *
+ * @author Tim Boudreau
+ */
+public final class ShutdownReport {
+
+    /**
+     * Setting or system property which causes each batch's timings to be
+     * printed to standard out as it completes.
+     */
+    public static final String SETTINGS_KEY_SHUTDOWN_REPORT = "giulius.shutdown.report";
+    public static final String BATCH_FIRST = "first";
+    public static final String BATCH_DEFAULT = "default";
+    public static final String BATCH_LAST = "last";
+    private final List<HookTiming> hooks = new ArrayList<>();
+    private final Map<String, Duration> batches = new LinkedHashMap<>();
+    volatile boolean print;
+
+    ShutdownReport() {
+    }
+
+    void batch(String batch, Duration elapsed, List<HookTiming> timings) {
+        synchronized (this) {
+            hooks.addAll(timings);
+            batches.merge(batch, elapsed, Duration::plus);
+        }
+        if (print || Boolean.getBoolean(SETTINGS_KEY_SHUTDOWN_REPORT)) {
+            StringBuilder sb = new StringBuilder("Shutdown batch '").append(batch).append("' - ")
+                    .append(elapsed.toMillis()).append("ms\n");
+            for (HookTiming t : timings) {
+                sb.append("  ").append(t).append('\n');
+            }
+            System.out.print(sb);
+        }
+    }
+
+    /**
+     * Get the timing of every hook run so far, batch by batch.
+     *
+     * @return A list of timings
+     */
+    public synchronized List<HookTiming> hooks() {
+        return Collections.unmodifiableList(new ArrayList<>(hooks));
+    }
+
+    /**
+     * Get the wall-clock time each batch took, in the order the batches ran.
+     *
+     * @return A map of batch name to duration
+     */
+    public synchronized Map<String, Duration> batches() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(batches));
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Shutdown report\n");
+        for (Map.Entry<String, Duration> e : batches.entrySet()) {
+            sb.append("  ").append(e.getKey()).append(": ").append(e.getValue().toMillis()).append("ms\n");
+            for (HookTiming t : hooks) {
+                if (t.batch().equals(e.getKey())) {
+                    sb.append("    ").append(t).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * What happened to a hook.
+     */
+    public enum Outcome {
+        COMPLETED,
+        FAILED,
+        /**
+         * Still running when its batch's budget ran out; it was interrupted
+         * and shutdown moved on to the next batch.
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * The timing of one shutdown hook.
+     */
+    public static final class HookTiming {
+
+        private final String batch;
+        private final String hook;
+        private final Duration duration;
+        private final Outcome outcome;
+
+        HookTiming(String batch, String hook, Duration duration, Outcome outcome) {
+            this.batch = batch;
+            this.hook = hook;
+            this.duration = duration;
+            this.outcome = outcome;
+        }
+
+        /**
+         * The batch the hook ran in - first, default or last.
+         *
+         * @return The batch name
+         */
+        public String batch() {
+            return batch;
+        }
+
+        /**
+         * The string form of the hook.
+         *
+         * @return A description
+         */
+        public String hook() {
+            return hook;
+        }
+
+        public Duration duration() {
+            return duration;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        @Override
+        public String toString() {
+            return hook + ": " + (duration.toNanos() / 1000000D) + "ms " + outcome;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProvisionListener;
+import com.mastfrog.settings.Settings;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the classes involved in creating an injector, and on later starts
+ * loads them on background threads while modules are still being configured,
+ * so that class loading, which otherwise happens one class at a time on the
+ * thread creating the injector, is spread across cores.
+ * <p>
+ * To record, set the system property or setting
+ * <code>giulius.startup.classes.record</code> to a file path; once the injector
+ * has been created, the classes bound, depended on or instantiated while
+ * creating it are written there, one per line, supertypes first. Ship that
+ * file in the application JAR as
+ * <code>META-INF/giulius/startup-classes.list</code> and turn preloading on
+ * with {@link DependenciesBuilder#preloadStartupClasses()}; the system property
+ * <code>giulius.startup.classes</code> may instead name a list on disk.
+ * Classes are loaded but not initialized, so no static initializers run early;
+ * names which no longer exist are skipped.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+public final class StartupClasses {
+
+    /**
+     * Setting or system property naming a file to write the startup class
+     * list to.
+     */
+    public static final String SETTINGS_KEY_RECORD_STARTUP_CLASSES = "giulius.startup.classes.record";
+    /**
+     * System property naming a class list on disk to preload.
+     */
+    public static final String SYSTEM_PROPERTY_STARTUP_CLASSES = "giulius.startup.classes";
+    /**
+     * Classpath location of class lists to preload.
+     */
+    public static final String STARTUP_CLASSES_RESOURCE = "META-INF/giulius/startup-classes.list";
+    // Nulled once written, so the listener, which stays bound for the life
+    // of the injector, stops recording and the classes can be collected
+    private volatile Set<Class<?>> provisioned = ConcurrentHashMap.newKeySet();
+
+    private StartupClasses() {
+    }
+
+    static StartupClasses forRecording(Settings settings) {
+        String val = System.getProperty(SETTINGS_KEY_RECORD_STARTUP_CLASSES);
+        if (val == null) {
+            val = settings.getString(SETTINGS_KEY_RECORD_STARTUP_CLASSES);
+        }
+        return val == null || val.trim().isEmpty() ? null : new StartupClasses();
+    }
+
+    ProvisionListener listener() {
+        return new ProvisionListener() {
+            @Override
+            public <T> void onProvision(ProvisionInvocation<T> provision) {
+                T result = provision.provision();
+                Set<Class<?>> into = provisioned;
+                if (result != null && into != null) {
+                    into.add(result.getClass());
+                }
+            }
+        };
+    }
+
+    boolean isRecording() {
+        return provisioned != null;
+    }
+
+    void write(Injector injector, Settings settings) {
+        Set<Class<?>> recorded = provisioned;
+        if (recorded == null) {
+            return;
+        }
+        provisioned = null;
+        String val = System.getProperty(SETTINGS_KEY_RECORD_STARTUP_CLASSES);
+        if (val == null) {
+            val = settings.getString(SETTINGS_KEY_RECORD_STARTUP_CLASSES);
+        }
+        Path path = Paths.get(val.trim());
+        List<String> classes = collect(injector, recorded);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(path, classes, UTF_8);
+            Dependencies.log("Wrote " + classes.size() + " startup classes to " + path);
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Get the names of classes bound in, depended on by, or provisioned while
+     * creating an injector, supertypes first.
+     *
+     * @param injector An injector
+     * @param provisioned Classes of instances created
+     * @return A list of binary class names
+     */
+    static List<String> collect(Injector injector, Iterable<Class<?>> provisioned) {
+        Set<Class<?>> seen = new LinkedHashSet<>();
+        List<String> result = new ArrayList<>();
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            addBinding(binding, seen, result);
+        }
+        for (Class<?> type : provisioned) {
+            add(type, seen, result);
+        }
+        return result;
+    }
+
+    static void addBinding(Binding<?> binding, Set<Class<?>> seen, List<String> into) {
+        add(binding.getKey().getTypeLiteral().getRawType(), seen, into);
+        if (binding instanceof LinkedKeyBinding<?>) {
+            add(((LinkedKeyBinding<?>) binding).getLinkedKey().getTypeLiteral().getRawType(), seen, into);
+        } else if (binding instanceof InstanceBinding<?>) {
+            add(((InstanceBinding<?>) binding).getInstance().getClass(), seen, into);
+        } else if (binding instanceof ProviderInstanceBinding<?>) {
+            add(((ProviderInstanceBinding<?>) binding).getUserSuppliedProvider().getClass(), seen, into);
+        }
+        if (binding instanceof HasDependencies) {
+            for (Dependency<?> dep : ((HasDependencies) binding).getDependencies()) {
+                add(dep.getKey().getTypeLiteral().getRawType(), seen, into);
+            }
+        }
+    }
+
+    static void add(Class<?> type, Set<Class<?>> seen, List<String> into) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive() || !seen.add(type)) {
+            return;
+        }
+        if (type.getSuperclass() != null) {
+            add(type.getSuperclass(), seen, into);
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            add(iface, seen, into);
+        }
+        String name = type.getName();
+        // Lambdas, Guice's generated classes and proxies cannot be
+        // loaded by name
+        if (!name.contains("$$") && !name.contains("/") && !name.contains("$Proxy")) {
+            into.add(name);
+        }
+    }
+
+    /**
+     * Start loading the classes in any startup class lists on background
+     * threads.
+     *
+     * @param threads The number of threads
+     * @return A handle on the preloading, or null if there is nothing to
+     * load
+     */
+    static Preload preload(int threads) {
+        List<String> names;
+        try {
+            names = read();
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+            return null;
+        }
+        if (names.isEmpty()) {
+            return null;
+        }
+        ClassLoader ldr = ClasspathCache.loader();
+        Preload result = new Preload(names, ldr);
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread t = new Thread(result, "giulius-preload-" + i);
+            t.setDaemon(true);
+            // Work that matters more than this is happening on the main thread
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            t.start();
+        }
+        Dependencies.log("Preloading " + names.size() + " startup classes on "
+                + threads + " threads");
+        return result;
+    }
+
+    private static List<String> read() throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        String file = System.getProperty(SYSTEM_PROPERTY_STARTUP_CLASSES);
+        if (file != null && !file.trim().isEmpty()) {
+            Path path = Paths.get(file.trim());
+            if (Files.exists(path)) {
+                for (String line : Files.readAllLines(path, UTF_8)) {
+                    addLine(line, result);
+                }
+            }
+        }
+        for (URL url : Collections.list(ClasspathCache.loader().getResources(STARTUP_CLASSES_RESOURCE))) {
+            try (InputStream in = url.openStream()) {
+                BufferedReader r = new BufferedReader(new InputStreamReader(in, UTF_8));
+                String line;
+                while ((line = r.readLine()) != null) {
+                    addLine(line, result);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static void addLine(String line, Set<String> into) {
+        line = line.trim();
+        if (!line.isEmpty() && line.charAt(0) != '#') {
+            into.add(line);
+        }
+    }
+
+    /**
+     * Background loading of a class list; each thread takes the next name
+     * until none are left.
+     */
+    static final class Preload implements Runnable {
+
+        private final List<String> names;
+        private final ClassLoader ldr;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger loaded = new AtomicInteger();
+        private final AtomicInteger missing = new AtomicInteger();
+
+        Preload(List<String> names, ClassLoader ldr) {
+            this.names = names;
+            this.ldr = ldr;
+        }
+
+        @Override
+        public void run() {
+            int ix;
+            while ((ix = next.getAndIncrement()) < names.size()) {
+                try {
+                    Class.forName(names.get(ix), false, ldr);
+                    loaded.incrementAndGet();
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    missing.incrementAndGet();
+                }
+            }
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        int loaded() {
+            return loaded.get();
+        }
+
+        int missing() {
+            return missing.get();
+        }
+
+        boolean isDone() {
+            return loaded.get() + missing.get() >= names.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.mastfrog.settings.Settings;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time went while a Dependencies started up - loading namespace
+ * lists, building settings, generating bindings, creating the injector and,
+ * within that, instantiating eager singletons - plus binding and settings key
+ * counts and rough size estimates. Recording costs a few calls to
+ * <code>System.nanoTime()</code> per phase, and size estimates are only
+ * computed on request, so it is always on. Obtain it from
+ * {@link Dependencies#startupProfile()}; set the system property or setting
+ * <code>giulius.startup.report</code> to <code>true</code> to have it printed
+ * when the injector is created.
+ *
+ * @author Tim Boudreau
+ */
+public final class StartupProfile {
+
+    /**
+     * Setting or system property which causes the profile to be printed to
+     * standard out once the injector has been created.
+     */
+    public static final String SETTINGS_KEY_STARTUP_REPORT = "giulius.startup.report";
+    public static final String PHASE_SETTINGS = "settings";
+    public static final String PHASE_NAMESPACES = "namespaces";
+    public static final String PHASE_BINDINGS = "bindings";
+    public static final String PHASE_CREATE_INJECTOR = "createInjector";
+    public static final String PHASE_EAGER_SINGLETONS = "eagerSingletons";
+    public static final String PHASE_PARALLEL_EAGER_SINGLETONS = "parallelEagerSingletons";
+    // Rough figures for a HashMap entry holding two strings, and for the
+    // key, binding, provider and internal factory Guice keeps per binding
+    private static final int BYTES_PER_SETTINGS_ENTRY = 112;
+    private static final int BYTES_PER_BINDING = 320;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Integer> keyCounts = new TreeMap<>();
+    private final Map<String, Settings> settings;
+    private final LongAdder eagerSingletonNanos = new LongAdder();
+    private final AtomicInteger eagerSingletons = new AtomicInteger();
+    private volatile int bindingCount = -1;
+
+    StartupProfile(Map<String, Settings> settings) {
+        this.settings = settings;
+    }
+
+    void phase(String name, long nanos) {
+        synchronized (phases) {
+            phases.merge(name, nanos, Long::sum);
+        }
+    }
+
+    void settingsKeys(String namespace, int count) {
+        synchronized (keyCounts) {
+            keyCounts.put(namespace, count);
+        }
+    }
+
+    void eagerSingleton(long nanos) {
+        eagerSingletons.incrementAndGet();
+        eagerSingletonNanos.add(nanos);
+    }
+
+    void bindingCount(int count) {
+        this.bindingCount = count;
+    }
+
+    /**
+     * Get the time spent in each startup phase so far, in the order the
+     * phases were first entered. The eager singletons phase is part of the
+     * create injector phase (or, if they are created in parallel, the sum of
+     * time spent in each, in the parallel eager singletons phase), not in
+     * addition to it.
+     *
+     * @return A map of phase name to duration
+     */
+    public Map<String, Duration> phases() {
+        Map<String, Duration> result = new LinkedHashMap<>();
+        synchronized (phases) {
+            for (Map.Entry<String, Long> e : phases.entrySet()) {
+                result.put(e.getKey(), Duration.ofNanos(e.getValue()));
+            }
+        }
+        long eager = eagerSingletonNanos.sum();
+        if (eager > 0) {
+            result.put(PHASE_EAGER_SINGLETONS, Duration.ofNanos(eager));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get the total time spent in startup phases.
+     *
+     * @return A duration
+     */
+    public Duration total() {
+        long result = 0;
+        synchronized (phases) {
+            for (Long val : phases.values()) {
+                result += val;
+            }
+        }
+        return Duration.ofNanos(result);
+    }
+
+    /**
+     * The number of eager singletons instantiated while creating the
+     * injector.
+     *
+     * @return A count
+     */
+    public int eagerSingletonCount() {
+        return eagerSingletons.get();
+    }
+
+    /**
+     * The number of bindings in the injector, or -1 if it has not been
+     * created yet.
+     *
+     * @return A count
+     */
+    public int bindingCount() {
+        return bindingCount;
+    }
+
+    /**
+     * The number of settings keys in each namespace.
+     *
+     * @return A sorted map of namespace to key count
+     */
+    public Map<String, Integer> settingsKeyCounts() {
+        synchronized (keyCounts) {
+            return Collections.unmodifiableMap(new TreeMap<>(keyCounts));
+        }
+    }
+
+    /**
+     * Estimate the heap retained by the resolved keys and values of all
+     * namespaces' settings; computed on each call, walking every key.
+     *
+     * @return An estimate in bytes
+     */
+    public long estimatedSettingsBytes() {
+        long result = 0;
+        for (Settings s : settings.values()) {
+            for (String key : s.allKeys()) {
+                String val = s.getString(key);
+                result += BYTES_PER_SETTINGS_ENTRY + (2L * key.length())
+                        + (val == null ? 0 : 2L * val.length());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A coarse estimate of the heap retained by the injector's bindings,
+     * based on a fixed per-binding cost.
+     *
+     * @return An estimate in bytes, or -1 if the injector has not been
+     * created yet
+     */
+    public long estimatedBindingBytes() {
+        int count = bindingCount;
+        return count < 0 ? -1 : (long) count * BYTES_PER_BINDING;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Startup profile - ")
+                .append(total().toMillis()).append("ms\n");
+        for (Map.Entry<String, Duration> e : phases().entrySet()) {
+            sb.append("  ").append(e.getKey()).append(": ")
+                    .append(e.getValue().toNanos() / 1000000D).append("ms");
+            if (PHASE_EAGER_SINGLETONS.equals(e.getKey())) {
+                sb.append(" (").append(eagerSingletonCount()).append(" instances, within ")
+                        .append(PHASE_CREATE_INJECTOR).append(" or ")
+                        .append(PHASE_PARALLEL_EAGER_SINGLETONS).append(')');
+            }
+            sb.append('\n');
+        }
+        sb.append("  bindings: ").append(bindingCount())
+                .append(" (~").append(estimatedBindingBytes() / 1024).append("Kb)\n");
+        sb.append("  settings keys: ").append(settingsKeyCounts())
+                .append(" (~").append(estimatedSettingsBytes() / 1024).append("Kb)\n");
+        return sb.toString();
+    }
+}
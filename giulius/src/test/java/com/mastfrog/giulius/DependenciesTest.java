@@ -25,10 +25,19 @@ package com.mastfrog.giulius;
 
 import com.mastfrog.settings.SettingsBuilder;
 import com.mastfrog.settings.MutableSettings;
+import com.mastfrog.settings.Settings;
+import com.google.inject.Guice;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.matcher.Matchers;
 import com.google.inject.name.Named;
 import com.mastfrog.giulius.annotations.Namespace;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -66,6 +75,138 @@ public class DependenciesTest {
         assertNull(thing.moreStuff);
     }
 
+    @Test
+    public void testStartupProfile() throws IOException {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("stuff", "hello").build(), Namespace.DEFAULT)
+                .add(binder -> binder.bind(Eager.class).asEagerSingleton())
+                .build();
+        StartupProfile profile = deps.startupProfile();
+        assertEquals(-1, profile.bindingCount());
+        deps.getInjector();
+        assertTrue(profile.bindingCount() > 0);
+        assertTrue(profile.estimatedBindingBytes() > 0);
+        assertTrue(profile.phases().containsKey(StartupProfile.PHASE_SETTINGS));
+        assertTrue(profile.phases().containsKey(StartupProfile.PHASE_BINDINGS));
+        assertTrue(profile.phases().containsKey(StartupProfile.PHASE_CREATE_INJECTOR));
+        assertTrue(profile.phases().containsKey(StartupProfile.PHASE_EAGER_SINGLETONS));
+        assertEquals(1, profile.eagerSingletonCount());
+        assertTrue(profile.settingsKeyCounts().get(Namespace.DEFAULT) > 0);
+        assertTrue(profile.estimatedSettingsBytes() > 0);
+        assertTrue(profile.toString(), profile.toString().contains("eagerSingletons"));
+    }
+
+    @Test
+    public void testInheritSettingsWithOverrides() throws IOException {
+        Dependencies parent = Dependencies.builder()
+                .add(new SettingsBuilder().add("stuff", "hello").add("other", "x").build(), Namespace.DEFAULT)
+                .add(new SettingsBuilder("ns").add("stuff", "ns-hello").build(), "ns")
+                .build();
+        Dependencies child = Dependencies.builder()
+                .inheritSettings(parent)
+                .override("stuff", "goodbye")
+                .override("ns", "other", null)
+                .build();
+        assertEquals("goodbye", child.getSettings().getString("stuff"));
+        assertEquals("x", child.getSettings().getString("other"));
+        assertEquals("ns-hello", child.getSettings("ns").getString("stuff"));
+        assertNull(child.getSettings("ns").getString("other"));
+        assertEquals("goodbye", child.getInstance(Thing.class).value);
+        // The parent is untouched
+        assertEquals("hello", parent.getSettings().getString("stuff"));
+        assertEquals("hello", parent.getInstance(Thing.class).value);
+        assertEquals(Dependencies.loadNamespaceListsFromClasspath(), Dependencies.loadNamespaceListsFromClasspath());
+    }
+
+    @Test
+    public void testCdsTrainingClassList() throws IOException {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("stuff", "hello").build(), Namespace.DEFAULT)
+                .add(binder -> binder.bind(Runnable.class).to(Trainee.class))
+                .build();
+        assertNull(CdsTraining.forSettings(deps.getSettings()));
+        List<String> classes = CdsTraining.train(deps.getInjector());
+        String trainee = Trainee.class.getName().replace('.', '/');
+        assertTrue(classes.toString(), classes.contains(trainee));
+        assertTrue("Supertypes should precede subtypes",
+                classes.indexOf("java/lang/Runnable") < classes.indexOf(trainee));
+        assertTrue(Trainee.count > 0);
+    }
+
+    @Test
+    public void testRecordAndPreloadStartupClasses() throws Exception {
+        Path list = Files.createTempFile("startup-classes", ".list");
+        try {
+            Dependencies deps = Dependencies.builder()
+                    .add(new SettingsBuilder().add("stuff", "hello")
+                            .add(StartupClasses.SETTINGS_KEY_RECORD_STARTUP_CLASSES, list.toString()).build(),
+                            Namespace.DEFAULT)
+                    .add(binder -> binder.bind(Runnable.class).to(Trainee.class).asEagerSingleton())
+                    .build();
+            deps.getInjector();
+            List<String> names = Files.readAllLines(list);
+            assertTrue(names.toString(), names.contains(Trainee.class.getName()));
+            assertTrue(names.indexOf(Runnable.class.getName()) < names.indexOf(Trainee.class.getName()));
+
+            Files.write(list, Arrays.asList("com.nothing.Here"), StandardOpenOption.APPEND);
+            System.setProperty(StartupClasses.SYSTEM_PROPERTY_STARTUP_CLASSES, list.toString());
+            StartupClasses.Preload preload = StartupClasses.preload(2);
+            for (int i = 0; i < 500 && !preload.isDone(); i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(preload.isDone());
+            assertEquals(names.size() + 1, preload.size());
+            assertEquals(1, preload.missing());
+        } finally {
+            System.clearProperty(StartupClasses.SYSTEM_PROPERTY_STARTUP_CLASSES);
+            Files.deleteIfExists(list);
+        }
+    }
+
+    @Test
+    public void testStartupClassesStopRecordingOnceWritten() throws Exception {
+        Path list = Files.createTempFile("startup-classes", ".list");
+        try {
+            Settings settings = new SettingsBuilder()
+                    .add(StartupClasses.SETTINGS_KEY_RECORD_STARTUP_CLASSES, list.toString()).build();
+            StartupClasses recorder = StartupClasses.forRecording(settings);
+            Injector injector = Guice.createInjector(binder
+                    -> binder.bindListener(Matchers.any(), recorder.listener()));
+            injector.getInstance(Recorded.class);
+            assertTrue(recorder.isRecording());
+            recorder.write(injector, settings);
+            assertFalse(recorder.isRecording());
+            assertTrue(Files.readAllLines(list).contains(Recorded.class.getName()));
+            assertNotNull(injector.getInstance(Recorded.class));
+        } finally {
+            Files.deleteIfExists(list);
+        }
+    }
+
+    static class Recorded {
+    }
+
+    static class Trainee implements Runnable {
+
+        static int count;
+
+        Trainee() {
+            count++;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    static class Eager {
+
+        @Inject
+        Eager(@Named("stuff") String stuff) throws InterruptedException {
+            Thread.sleep(5);
+        }
+    }
+
     private static class Thing {
 
         @Named("stuff")
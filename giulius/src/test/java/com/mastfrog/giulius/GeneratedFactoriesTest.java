@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.mastfrog.giulius.annotations.Namespace;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.settings.SettingsBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class GeneratedFactoriesTest {
+
+    @Test
+    public void testGeneratedFactoriesAreUsed() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("greeting", "hello").add("times", 3).build(), Namespace.DEFAULT)
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Object.class).annotatedWith(Names.named("root")).to(Root.class);
+                        bind(ExplicitlyBound.class).toInstance(new ExplicitlyBound("explicit"));
+                    }
+                })
+                .useGeneratedFactories()
+                .build();
+
+        Root root = (Root) deps.getInstance(Key.get(Object.class, Names.named("root")));
+        assertEquals("hello", root.greeter.greeting);
+        assertEquals(3, root.greeter.times);
+        assertEquals("explicit", root.explicit.name);
+        assertEquals("hello", root.withField.greeting);
+        assertFactoryBinding(deps, Root.class);
+        assertFactoryBinding(deps, Greeter.class);
+        assertFactoryBinding(deps, SingletonGreeter.class);
+        assertNotSame(root.greeter, deps.getInstance(Greeter.class));
+        assertSame(root.singleton, deps.getInstance(SingletonGreeter.class));
+
+        assertFalse(isFactoryBinding(deps, ExplicitlyBound.class));
+        // Has an injected field, so no factory is generated
+        assertFalse(isFactoryBinding(deps, HasInjectedField.class));
+        // Nothing bound depends on it, so it stays a just-in-time binding
+        assertEquals("hello", deps.getInstance(NotReferenced.class).greeting);
+        assertFalse(isFactoryBinding(deps, NotReferenced.class));
+        // One factory instance serves every provision
+        assertSame(deps.getInstance(factoryKey(deps, Greeter.class)),
+                deps.getInstance(factoryKey(deps, Greeter.class)));
+    }
+
+    @Test
+    public void testNamespaceOfFactoryBuiltType() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("greeting", "hello").add("times", 3).build(), Namespace.DEFAULT)
+                .add(new SettingsBuilder().add("greeting", "bonjour").build(), "generatedfactories")
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Object.class).annotatedWith(Names.named("holder")).to(NamespacedHolder.class);
+                    }
+                })
+                .useGeneratedFactories()
+                .build();
+        assertFactoryBinding(deps, NamespacedHolder.class);
+        assertFactoryBinding(deps, NamespacedGreeter.class);
+
+        NamespacedHolder holder = (NamespacedHolder) deps.getInstance(Key.get(Object.class, Names.named("holder")));
+        assertEquals("hello", holder.greeting);
+        assertEquals("bonjour", holder.greeter.greeting);
+        assertEquals("bonjour", holder.greeter.settings.getString("greeting"));
+
+        NamespacedGreeter direct = deps.getInstance(NamespacedGreeter.class);
+        assertEquals("bonjour", direct.greeting);
+        assertEquals("bonjour", direct.settings.getString("greeting"));
+    }
+
+    @Test
+    public void testInterceptedTypesKeepJustInTimeBindings() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("greeting", "hello").add("times", 3).build(), Namespace.DEFAULT)
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Object.class).annotatedWith(Names.named("intercepted")).to(Intercepted.class);
+                        bind(Object.class).annotatedWith(Names.named("greeter")).to(Greeter.class);
+                        bindInterceptor(Matchers.subclassesOf(Intercepted.class), Matchers.any(),
+                                invocation -> invocation.proceed() + "!");
+                    }
+                })
+                .useGeneratedFactories()
+                .build();
+        Intercepted intercepted = (Intercepted) deps.getInstance(Key.get(Object.class, Names.named("intercepted")));
+        assertEquals("hello!", intercepted.greet());
+        assertFalse(isFactoryBinding(deps, Intercepted.class));
+        // Types the interceptor does not match still use their factories
+        deps.getInstance(Key.get(Object.class, Names.named("greeter")));
+        assertFactoryBinding(deps, Greeter.class);
+    }
+
+    @Test
+    public void testUnusedWithoutOptIn() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("greeting", "hi").add("times", 1).build(), Namespace.DEFAULT)
+                .build();
+        assertEquals("hi", deps.getInstance(Greeter.class).greeting);
+        assertFalse(isFactoryBinding(deps, Greeter.class));
+    }
+
+    private static boolean isFactoryBinding(Dependencies deps, Class<?> type) {
+        Binding<?> binding = deps.getInjector().getBinding(type);
+        return binding instanceof ProviderInstanceBinding<?>
+                && ((ProviderInstanceBinding<?>) binding).getUserSuppliedProvider()
+                instanceof GeneratedFactories.FactoryProvider<?>;
+    }
+
+    private static Key<?> factoryKey(Dependencies deps, Class<?> type) {
+        ProviderInstanceBinding<?> binding = (ProviderInstanceBinding<?>) deps.getInjector().getBinding(type);
+        return ((GeneratedFactories.FactoryProvider<?>) binding.getUserSuppliedProvider()).factoryKey();
+    }
+
+    private static void assertFactoryBinding(Dependencies deps, Class<?> type) {
+        assertTrue("Not bound to a generated factory: " + deps.getInjector().getBinding(type),
+                isFactoryBinding(deps, type));
+        assertEquals(GeneratedFactoriesTest.class.getName() + "_" + type.getSimpleName() + "__InjectionFactory",
+                factoryKey(deps, type).getTypeLiteral().getRawType().getName());
+    }
+
+    static final class Root {
+
+        final Greeter greeter;
+        final SingletonGreeter singleton;
+        final ExplicitlyBound explicit;
+        final HasInjectedField withField;
+
+        @Inject
+        Root(Greeter greeter, SingletonGreeter singleton, ExplicitlyBound explicit, HasInjectedField withField) {
+            this.greeter = greeter;
+            this.singleton = singleton;
+            this.explicit = explicit;
+            this.withField = withField;
+        }
+    }
+
+    static final class NamespacedHolder {
+
+        final String greeting;
+        final NamespacedGreeter greeter;
+
+        @Inject
+        NamespacedHolder(@Named("greeting") String greeting, NamespacedGreeter greeter) {
+            this.greeting = greeting;
+            this.greeter = greeter;
+        }
+    }
+
+    @Namespace("generatedfactories")
+    static final class NamespacedGreeter {
+
+        final Settings settings;
+        final String greeting;
+
+        @Inject
+        NamespacedGreeter(Settings settings, @Named("greeting") String greeting) {
+            this.settings = settings;
+            this.greeting = greeting;
+        }
+    }
+
+    static class Intercepted {
+
+        private final String greeting;
+
+        @Inject
+        Intercepted(@Named("greeting") String greeting) {
+            this.greeting = greeting;
+        }
+
+        String greet() {
+            return greeting;
+        }
+    }
+
+    static final class NotReferenced {
+
+        final String greeting;
+
+        @Inject
+        NotReferenced(@Named("greeting") String greeting) {
+            this.greeting = greeting;
+        }
+    }
+
+    static final class Greeter {
+
+        final String greeting;
+        final int times;
+
+        @Inject
+        Greeter(@Named("greeting") String greeting, @Named("times") int times) {
+            this.greeting = greeting;
+            this.times = times;
+        }
+    }
+
+    @Singleton
+    static final class SingletonGreeter {
+
+        final Greeter greeter;
+
+        @Inject
+        SingletonGreeter(Greeter greeter) {
+            this.greeter = greeter;
+        }
+    }
+
+    static final class ExplicitlyBound {
+
+        final String name;
+
+        @Inject
+        ExplicitlyBound(@Named("greeting") String name) {
+            this.name = name;
+        }
+    }
+
+    static final class HasInjectedField {
+
+        @Inject
+        @Named("greeting")
+        String greeting;
+
+        @Inject
+        HasInjectedField() {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.mastfrog.giulius.annotations.Namespace;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.settings.SettingsBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class LazyModuleTest {
+
+    @Test
+    public void testModuleIsConfiguredOnFirstUse() throws Exception {
+        ReportingModule reporting = new ReportingModule();
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("reportName", "monthly").add("productionMode", "true").build(), Namespace.DEFAULT)
+                .addLazy(reporting, Reports.class)
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(UsesReports.class).asEagerSingleton();
+                    }
+                })
+                .build();
+        UsesReports user = deps.getInstance(UsesReports.class);
+        assertEquals("Configured before use", 0, reporting.configured.get());
+
+        int threads = 6;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Reports> got = new ArrayList<>();
+        List<Thread> all = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    go.await();
+                    Reports r = user.reports.get();
+                    synchronized (got) {
+                        got.add(r);
+                    }
+                } catch (InterruptedException ex) {
+                    throw new AssertionError(ex);
+                }
+            });
+            t.start();
+            all.add(t);
+        }
+        go.countDown();
+        for (Thread t : all) {
+            t.join();
+        }
+        assertEquals(1, reporting.configured.get());
+        assertEquals(threads, got.size());
+        Reports reports = got.get(0);
+        for (Reports r : got) {
+            assertSame("Singleton in the lazy module should be shared", reports, r);
+        }
+        assertEquals("monthly", reports.name());
+        assertSame("Host bindings should be shared with the lazy module",
+                deps, reports.deps());
+        assertSame(reports, deps.getInstance(Reports.class));
+    }
+
+    @Test
+    public void testNamespacesApplyInLazyModule() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("reportName", "monthly").build(), Namespace.DEFAULT)
+                .add(new SettingsBuilder().add("reportName", "weekly").build(), "lazyreports")
+                .addLazy(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Reports.class).to(NamespacedReports.class);
+                    }
+                }, Reports.class)
+                .build();
+        UsesReports user = deps.getInstance(UsesReports.class);
+        NamespacedReports reports = (NamespacedReports) user.reports.get();
+        assertEquals("weekly", reports.name());
+        assertEquals("weekly", reports.settings.getString("reportName"));
+        assertEquals("monthly", deps.getInstance(ReportsImpl.class).name());
+    }
+
+    static final class ReportingModule extends AbstractModule {
+
+        final AtomicInteger configured = new AtomicInteger();
+
+        @Override
+        protected void configure() {
+            configured.incrementAndGet();
+            bind(Reports.class).to(ReportsImpl.class);
+        }
+    }
+
+    interface Reports {
+
+        String name();
+
+        Dependencies deps();
+    }
+
+    @Singleton
+    static final class ReportsImpl implements Reports {
+
+        private final String name;
+        private final Dependencies deps;
+
+        @Inject
+        ReportsImpl(@Named("reportName") String name, Dependencies deps) {
+            this.name = name;
+            this.deps = deps;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Dependencies deps() {
+            return deps;
+        }
+    }
+
+    @Namespace("lazyreports")
+    static final class NamespacedReports implements Reports {
+
+        private final String name;
+        private final Dependencies deps;
+        final Settings settings;
+
+        @Inject
+        NamespacedReports(@Named("reportName") String name, Dependencies deps, Settings settings) {
+            this.name = name;
+            this.deps = deps;
+            this.settings = settings;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Dependencies deps() {
+            return deps;
+        }
+    }
+
+    static class UsesReports {
+
+        final javax.inject.Provider<Reports> reports;
+
+        @Inject
+        UsesReports(javax.inject.Provider<Reports> reports) {
+            this.reports = reports;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.ProvisionException;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.mastfrog.giulius.annotations.Namespace;
+import com.mastfrog.settings.SettingsBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ParallelEagerSingletonsTest {
+
+    @Test
+    public void testIndependentSingletonsAreCreatedConcurrently() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new SettingsBuilder().add("delay", 300).build(), Namespace.DEFAULT)
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(SlowA.class).asEagerSingleton();
+                        bind(SlowB.class).asEagerSingleton();
+                        bind(SlowC.class).asEagerSingleton();
+                        bind(SharesWithC.class).asEagerSingleton();
+                    }
+                })
+                .parallelEagerSingletons(4)
+                .build();
+        deps.getInjector();
+        long elapsed = deps.startupProfile().phases()
+                .get(StartupProfile.PHASE_PARALLEL_EAGER_SINGLETONS).toMillis();
+        assertTrue("Took " + elapsed + "ms", elapsed < 850);
+        assertEquals(4, deps.startupProfile().eagerSingletonCount());
+
+        SlowA a = deps.getInstance(SlowA.class);
+        SlowB b = deps.getInstance(SlowB.class);
+        SlowC c = deps.getInstance(SlowC.class);
+        SharesWithC d = deps.getInstance(SharesWithC.class);
+        assertSame(a, deps.getInstance(SlowA.class));
+        assertSame(c.shared, d.shared);
+        assertNotEquals(a.thread, b.thread);
+        assertNotEquals(a.thread, c.thread);
+        assertEquals("Dependents of the same singleton should share a thread",
+                c.thread, d.thread);
+        assertTrue(a.thread.startsWith("giulius-startup-"));
+        assertSame(deps.getInjector(), a.deps.getInjector());
+    }
+
+    @Test
+    public void testOtherDependenciesGetTheirOwnInjector() throws Exception {
+        Dependencies other = new Dependencies();
+        Dependencies deps = Dependencies.builder()
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Dependencies.class).annotatedWith(Names.named("other")).toInstance(other);
+                        bind(UsesOther.class).asEagerSingleton();
+                    }
+                })
+                .parallelEagerSingletons(2)
+                .build();
+        deps.getInjector();
+        UsesOther user = deps.getInstance(UsesOther.class);
+        assertTrue(user.thread.startsWith("giulius-startup-"));
+        assertSame(other.getInjector(), user.otherInjector);
+        assertNotSame(deps.getInjector(), user.otherInjector);
+    }
+
+    @Test
+    public void testFirstFailureInBindingOrderIsThrown() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Dependencies deps = Dependencies.builder()
+                    .add(new AbstractModule() {
+                        @Override
+                        protected void configure() {
+                            bind(FailsSlowly.class).asEagerSingleton();
+                            bind(FailsFast.class).asEagerSingleton();
+                        }
+                    })
+                    .parallelEagerSingletons(2)
+                    .build();
+            try {
+                deps.getInjector();
+                fail("Exception should have been thrown");
+            } catch (ProvisionException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains("slowly"));
+                assertEquals(1, ex.getSuppressed().length);
+            }
+        }
+    }
+
+    static class UsesOther {
+
+        final String thread = Thread.currentThread().getName();
+        final Injector otherInjector;
+
+        @Inject
+        UsesOther(@Named("other") Dependencies other) {
+            otherInjector = other.getInjector();
+        }
+    }
+
+    static class Timed {
+
+        final String thread = Thread.currentThread().getName();
+
+        Timed(long delay) throws InterruptedException {
+            Thread.sleep(delay);
+        }
+    }
+
+    static class SlowA extends Timed {
+
+        final Dependencies deps;
+
+        @Inject
+        SlowA(@Named("delay") long delay, Dependencies deps) throws InterruptedException {
+            super(delay);
+            this.deps = deps;
+        }
+    }
+
+    static class SlowB extends Timed {
+
+        @Inject
+        SlowB(@Named("delay") long delay) throws InterruptedException {
+            super(delay);
+        }
+    }
+
+    @Singleton
+    static class Shared {
+
+    }
+
+    static class SlowC extends Timed {
+
+        final Shared shared;
+
+        @Inject
+        SlowC(@Named("delay") long delay, Shared shared) throws InterruptedException {
+            super(delay);
+            this.shared = shared;
+        }
+    }
+
+    static class SharesWithC {
+
+        final String thread = Thread.currentThread().getName();
+        final Shared shared;
+
+        @Inject
+        SharesWithC(Shared shared) {
+            this.shared = shared;
+        }
+    }
+
+    static class FailsSlowly {
+
+        @Inject
+        FailsSlowly() throws InterruptedException {
+            Thread.sleep(100);
+            throw new IllegalStateException("slowly");
+        }
+    }
+
+    static class FailsFast {
+
+        @Inject
+        FailsFast() {
+            throw new IllegalStateException("fast");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import com.mastfrog.giulius.ProvisionMetrics.BindingStats;
+import com.mastfrog.giulius.ProvisionMetrics.ScopingSuggestion;
+import com.mastfrog.giulius.ProvisionMetrics.SuggestedScope;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ProvisionMetricsTest {
+
+    @Test
+    public void testMetricsAndSuggestions() throws Exception {
+        Dependencies deps = Dependencies.builder().recordProvisionMetrics().build();
+        for (int i = 0; i < 150; i++) {
+            deps.getInstance(Handler.class);
+        }
+        ProvisionMetrics metrics = deps.provisionMetrics();
+        assertTrue(metrics.isEnabled());
+        BindingStats handler = metrics.stats(Key.get(Handler.class));
+        assertNotNull(handler);
+        assertEquals(150, handler.count);
+        assertEquals(150, metrics.stats(Key.get(Formatter.class)).count);
+        assertEquals(1, metrics.stats(Key.get(Config.class)).count);
+
+        List<ScopingSuggestion> suggestions = metrics.suggestions();
+        assertEquals(suggestions.toString(), 2, suggestions.size());
+        for (ScopingSuggestion s : suggestions) {
+            if (s.stats.key.equals(Key.get(Formatter.class))) {
+                assertEquals(SuggestedScope.SINGLETON, s.scope);
+            } else {
+                assertEquals(Key.get(Handler.class), s.stats.key);
+                assertEquals(SuggestedScope.REQUEST, s.scope);
+            }
+        }
+        assertTrue(metrics.suggestions(1000).isEmpty());
+        assertTrue(metrics.toString(), metrics.toString().contains("Scoping suggestions"));
+    }
+
+    @Test
+    public void testAllocationMeasuredWhileRecording() throws Exception {
+        Dependencies deps = Dependencies.builder().recordProvisionMetrics().build();
+        try {
+            deps.getInstance(Handler.class);
+            assertEquals(ProvisionMetrics.Allocation.SUPPORTED,
+                    ProvisionMetrics.Allocation.isEnabled());
+            BindingStats handler = deps.provisionMetrics().stats(Key.get(Handler.class));
+            assertTrue(handler.toString(), !ProvisionMetrics.Allocation.SUPPORTED
+                    || handler.allocatedBytes > 0);
+        } finally {
+            deps.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        Dependencies deps = Dependencies.builder().build();
+        deps.getInstance(Handler.class);
+        assertFalse(deps.provisionMetrics().isEnabled());
+        assertNull(deps.provisionMetrics().stats(Key.get(Handler.class)));
+    }
+
+    @Singleton
+    static final class Config {
+    }
+
+    static final class Formatter {
+
+        @Inject
+        Formatter(Config config) {
+        }
+    }
+
+    static final class Handler {
+
+        final byte[] buffer = new byte[1024];
+
+        @Inject
+        Handler(Config config, Formatter formatter) {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.giulius;
+
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.mastfrog.giulius.annotations.Namespace;
+import com.mastfrog.giulius.annotations.RefreshScoped;
+import com.mastfrog.settings.MutableSettings;
+import com.mastfrog.settings.Settings;
+import com.mastfrog.settings.SettingsBuilder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class RefreshScopeTest {
+
+    @Test
+    public void testOnlyAffectedInstancesAreRebuilt() throws Exception {
+        MutableSettings settings = new SettingsBuilder()
+                .add("poolSize", "3")
+                .add("timeout", "10")
+                .buildMutableSettings();
+        Dependencies deps = Dependencies.builder()
+                .add(settings, Namespace.DEFAULT)
+                .build();
+        Holder holder = deps.getInstance(Holder.class);
+        Pool pool = holder.pool.get();
+        Client client = holder.client.get();
+        Timeouts timeouts = holder.timeouts.get();
+        assertEquals(3, pool.size);
+        assertEquals(10, timeouts.timeout);
+        assertSame(pool, client.pool);
+        assertSame(pool, holder.pool.get());
+        assertEquals(Collections.singletonMap("poolSize", "3"),
+                deps.refreshScope().settingsRead(Key.get(Pool.class)));
+        assertEquals(Collections.singletonMap("timeout", "10"),
+                deps.refreshScope().settingsRead(Key.get(Timeouts.class)));
+
+        assertTrue(deps.refreshScope().refresh().isEmpty());
+        assertSame(pool, holder.pool.get());
+
+        settings.setString("poolSize", "5");
+        assertEquals("The pool and what depends on it should be discarded",
+                new HashSet<>(Arrays.asList(Key.get(Pool.class), Key.get(Client.class))),
+                deps.refreshScope().refresh(Duration.ofMillis(100)));
+        assertTrue("Old instance should be drained", pool.closed.await(10, TimeUnit.SECONDS));
+
+        Pool newPool = holder.pool.get();
+        assertNotSame(pool, newPool);
+        assertEquals(5, newPool.size);
+        assertSame(newPool, holder.client.get().pool);
+        assertSame("Unaffected instance should be kept", timeouts, holder.timeouts.get());
+    }
+
+    @Test
+    public void testSingletonsCreatedDuringConstructionAreNotTracked() throws Exception {
+        MutableSettings settings = new SettingsBuilder()
+                .add("timeout", "10")
+                .add("retries", "2")
+                .buildMutableSettings();
+        Dependencies deps = Dependencies.builder()
+                .add(settings, Namespace.DEFAULT)
+                .build();
+        UsesRetries uses = deps.getInstance(UsesRetries.class);
+        assertEquals(10, uses.timeout);
+        assertEquals(2, uses.retries.retries);
+        assertSame("Singleton should get plain settings, not a recording wrapper",
+                deps.getInstance(Settings.class).getClass(), uses.retries.settings.getClass());
+        assertEquals("Only the refresh-scoped instance's own reads should be recorded",
+                Collections.singletonMap("timeout", "10"),
+                deps.refreshScope().settingsRead(Key.get(UsesRetries.class)));
+        assertSame(uses.retries, deps.getInstance(Retries.class));
+        settings.setString("retries", "3");
+        assertTrue(deps.refreshScope().refresh().isEmpty());
+    }
+
+    @RefreshScoped
+    static final class UsesRetries {
+
+        final int timeout;
+        final Retries retries;
+
+        @Inject
+        UsesRetries(Settings settings, Retries retries) {
+            this.timeout = settings.getInt("timeout");
+            this.retries = retries;
+        }
+    }
+
+    @Singleton
+    static final class Retries {
+
+        final Settings settings;
+        final int retries;
+
+        @Inject
+        Retries(Settings settings) {
+            this.settings = settings;
+            this.retries = settings.getInt("retries");
+        }
+    }
+
+    static final class Holder {
+
+        final Provider<Pool> pool;
+        final Provider<Client> client;
+        final Provider<Timeouts> timeouts;
+
+        @Inject
+        Holder(Provider<Pool> pool, Provider<Client> client, Provider<Timeouts> timeouts) {
+            this.pool = pool;
+            this.client = client;
+            this.timeouts = timeouts;
+        }
+    }
+
+    @RefreshScoped
+    static final class Pool implements AutoCloseable {
+
+        final int size;
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Inject
+        Pool(@Named("poolSize") int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @RefreshScoped
+    static final class Client {
+
+        final Pool pool;
+
+        @Inject
+        Client(Pool pool) {
+            this.pool = pool;
+        }
+    }
+
+    @RefreshScoped
+    static final class Timeouts {
+
+        final int timeout;
+
+        @Inject
+        Timeouts(Settings settings) {
+            this.timeout = settings.getInt("timeout");
+        }
+    }
+}
@@ -28,15 +28,22 @@ import com.google.inject.Inject;
 import com.google.inject.Scopes;
 import com.mastfrog.util.collections.ArrayUtils;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.IntFunction;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 /**
@@ -98,6 +105,122 @@ public class ShutdownHookRegistryTest {
         f.assertAllExecuted().assertOrder(10, 11, 12, 20, 21, 22, 32, 31, 30);
     }
 
+    @Test
+    public void testParallelShutdown() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .parallelShutdown(Duration.ofMillis(1500))
+                .build();
+        com.mastfrog.shutdown.hooks.ShutdownHookRegistry reg
+                = deps.getInstance(com.mastfrog.shutdown.hooks.ShutdownHookRegistry.class);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstDone = new CountDownLatch(1);
+        reg.addFirst(() -> {
+            ran.add("first");
+            firstDone.countDown();
+        });
+        for (int i = 0; i < 4; i++) {
+            String name = "slow-" + i;
+            reg.add(() -> {
+                assertEquals("First batch should have completed", 0, firstDone.getCount());
+                Thread.sleep(300);
+                ran.add(name);
+                return null;
+            });
+        }
+        ExecutorService svc = Executors.newSingleThreadExecutor();
+        reg.add(svc);
+        reg.addLast(() -> {
+            ran.add("hung");
+            Thread.sleep(60000);
+            return null;
+        });
+        deps.shutdown();
+
+        assertTrue(ran.toString(), ran.containsAll(Arrays.asList("first", "slow-0", "slow-1", "slow-2", "slow-3", "hung")));
+        assertTrue(svc.isTerminated());
+        ShutdownReport report = deps.shutdownReport();
+        assertEquals(report.toString(), Arrays.asList(ShutdownReport.BATCH_FIRST,
+                ShutdownReport.BATCH_DEFAULT, ShutdownReport.BATCH_LAST), new ArrayList<>(report.batches().keySet()));
+        assertEquals(report.toString(), 7, report.hooks().size());
+        long defaultBatch = report.batches().get(ShutdownReport.BATCH_DEFAULT).toMillis();
+        assertTrue("Default batch hooks should run concurrently, but took " + defaultBatch + "ms",
+                defaultBatch < 1200);
+        ShutdownReport.HookTiming hung = report.hooks().get(6);
+        assertEquals(ShutdownReport.BATCH_LAST, hung.batch());
+        assertEquals(ShutdownReport.Outcome.TIMED_OUT, hung.outcome());
+        for (ShutdownReport.HookTiming t : report.hooks().subList(0, 6)) {
+            assertEquals(t.toString(), ShutdownReport.Outcome.COMPLETED, t.outcome());
+        }
+    }
+
+    @Test
+    public void testIsolatedShutdownVerifiesThreadsExit() throws Exception {
+        Dependencies tidy = Dependencies.builder().add(new WorkerModule(true))
+                .isolated(Duration.ofSeconds(5)).build();
+        Dependencies leaky = Dependencies.builder().add(new WorkerModule(false))
+                .isolated(Duration.ofMillis(200)).build();
+        assertTrue(tidy.isIsolated());
+        Worker tidyWorker = tidy.getInstance(Worker.class);
+        Worker leakyWorker = leaky.getInstance(Worker.class);
+        assertTrue(tidyWorker.thread.isAlive());
+        assertTrue(leakyWorker.thread.isAlive());
+        assertFalse(tidyWorker.thread.getThreadGroup() == leakyWorker.thread.getThreadGroup());
+
+        tidy.shutdown();
+        assertFalse(tidyWorker.thread.isAlive());
+        assertTrue("Shutting down one instance should not affect another",
+                leakyWorker.thread.isAlive());
+        try {
+            leaky.shutdown();
+            fail("Thread left running should have been detected");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(leakyWorker.thread.getName()));
+        } finally {
+            leakyWorker.run();
+        }
+    }
+
+    static final class WorkerModule extends AbstractModule {
+
+        private final boolean stopOnShutdown;
+
+        WorkerModule(boolean stopOnShutdown) {
+            this.stopOnShutdown = stopOnShutdown;
+        }
+
+        @Override
+        protected void configure() {
+            bind(Boolean.class).toInstance(stopOnShutdown);
+            bind(Worker.class).asEagerSingleton();
+        }
+    }
+
+    static final class Worker implements Runnable {
+
+        private final CountDownLatch stop = new CountDownLatch(1);
+        final Thread thread;
+
+        @Inject
+        Worker(Boolean stopOnShutdown, com.mastfrog.shutdown.hooks.ShutdownHooks hooks) {
+            thread = new Thread(() -> {
+                try {
+                    stop.await();
+                } catch (InterruptedException ex) {
+                    // done
+                }
+            }, "worker-" + stopOnShutdown);
+            thread.start();
+            if (stopOnShutdown) {
+                hooks.add(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            stop.countDown();
+        }
+    }
+
     @SuppressWarnings("deprecation")
     static class Hks extends ShutdownHookRegistry implements AutoCloseable {
 
@@ -26,7 +26,10 @@ package com.mastfrog.giulius;
 import com.google.inject.AbstractModule;
 import com.google.inject.CreationException;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import static com.mastfrog.giulius.SettingsBindings.BIG_DECIMAL;
 import static com.mastfrog.giulius.SettingsBindings.BIG_INTEGER;
 import static com.mastfrog.giulius.SettingsBindings.BOOLEAN;
@@ -38,8 +41,10 @@ import com.mastfrog.giulius.annotations.Namespace;
 import com.mastfrog.settings.Settings;
 import com.mastfrog.settings.SettingsBuilder;
 import java.io.IOException;
+import java.math.BigInteger;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -118,6 +123,27 @@ public class TestBindingDisablement {
         deps.getInstance(Thing.class);
     }
 
+    @Test
+    public void indexedBindings() throws Exception {
+        Dependencies deps = Dependencies.builder()
+                .add(new M())
+                .add(settings(), Namespace.DEFAULT)
+                .useInjectionPointIndex()
+                .build();
+        Thing thing = deps.getInstance(Thing.class);
+        assertNotNull(thing);
+        assertEquals(1.5, thing.foo, 0.01F);
+        assertEquals("hey", thing.bar);
+        assertTrue(thing.baz);
+        Injector inj = deps.getInjector();
+        assertNotNull("Strings should be bound for dynamic lookups",
+                inj.getExistingBinding(Key.get(String.class, Names.named("baz"))));
+        assertNull("Nothing injects bar as a double",
+                inj.getExistingBinding(Key.get(Double.class, Names.named("bar"))));
+        assertNull("Nothing injects baz as a BigInteger",
+                inj.getExistingBinding(Key.get(BigInteger.class, Names.named("baz"))));
+    }
+
     static class M extends AbstractModule {
 
         @Override
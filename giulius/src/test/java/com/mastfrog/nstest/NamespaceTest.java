@@ -85,6 +85,44 @@ public class NamespaceTest {
 
     }
 
+    @Test
+    public void testNamespaceThroughTypesWhichDoNotUseSettings() throws Exception {
+        SettingsBuilder sb = new SettingsBuilder("foo").add("bar", "true");
+        Dependencies deps = Dependencies.builder().add(sb.build(), "foo").add(new MM()).build();
+
+        Holder holder = deps.getInstance(Holder.class);
+        assertTrue(holder.iface.getFoo());
+        assertTrue(holder.viaProvider.getFoo());
+    }
+
+    public static class Holder {
+
+        final IFace iface;
+        final ProviderUser viaProvider;
+
+        @Inject
+        Holder(IFace iface, ProviderUser viaProvider) {
+            this.iface = iface;
+            this.viaProvider = viaProvider;
+        }
+    }
+
+    @Namespace("foo")
+    public static class ProviderUser implements IFace {
+
+        private final Settings settings;
+
+        @Inject
+        ProviderUser(com.google.inject.Provider<Settings> settings) {
+            this.settings = settings.get();
+        }
+
+        @Override
+        public Boolean getFoo() {
+            return settings.getBoolean("bar");
+        }
+    }
+
     public static class MM extends AbstractModule {
 
         @Override
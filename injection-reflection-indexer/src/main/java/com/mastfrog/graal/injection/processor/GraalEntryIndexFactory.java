@@ -105,6 +105,7 @@ final class GraalEntryIndexFactory extends AnnotationIndexFactory<GraalEntry> {
                 if (!fields.isEmpty()) {
                     curr.put("fields", fields);
                 }
+                all.add(curr);
             }
 
             for (Map.Entry<String, List<GraalEntry>> e : m1.entrySet()) {
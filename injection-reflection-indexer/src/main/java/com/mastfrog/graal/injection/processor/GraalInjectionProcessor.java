@@ -29,23 +29,38 @@ import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.EXP
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.EXPOSE_TYPES_ANNOTATION;
 import com.mastfrog.annotation.registries.AbstractRegistrationAnnotationProcessor;
 import com.mastfrog.util.service.ServiceProvider;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.REFLECTION_INFO_ANNOTATION;
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.JAVAX_INJECT_ANNOTATION;
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.GUICE_INJECT_ANNOTATION;
+import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.GUICE_PROVIDES_ANNOTATION;
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.JSON_CREATOR_ANNOTATION;
 import static com.mastfrog.graal.injection.processor.GraalInjectionProcessor.JSON_PROPERTY_ANNOTATION;
 import java.util.Arrays;
@@ -55,13 +70,17 @@ import java.util.Arrays;
  * @author Tim Boudreau
  */
 @SupportedAnnotationTypes({GUICE_INJECT_ANNOTATION, JAVAX_INJECT_ANNOTATION, REFLECTION_INFO_ANNOTATION,
-    JSON_CREATOR_ANNOTATION, JSON_PROPERTY_ANNOTATION, EXPOSE_TYPES_ANNOTATION, EXPOSE_MANY_ANNOTATION})
+    JSON_CREATOR_ANNOTATION, JSON_PROPERTY_ANNOTATION, EXPOSE_TYPES_ANNOTATION, EXPOSE_MANY_ANNOTATION,
+    GUICE_PROVIDES_ANNOTATION})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
+@SupportedOptions({"verbose", GraalInjectionProcessor.GENERATE_FACTORIES_OPTION,
+    GraalInjectionProcessor.NATIVE_IMAGE_CONFIG_OPTION})
 @ServiceProvider(Processor.class)
 public final class GraalInjectionProcessor extends AbstractRegistrationAnnotationProcessor<GraalEntryIndexFactory.GraalEntry> {
 
     static final String GUICE_INJECT_ANNOTATION = "com.google.inject.Inject";
     static final String JAVAX_INJECT_ANNOTATION = "javax.inject.Inject";
+    static final String GUICE_PROVIDES_ANNOTATION = "com.google.inject.Provides";
     static final String REFLECTION_INFO_ANNOTATION = "com.mastfrog.graal.annotation.Expose";
     static final String EXPOSE_MANY_ANNOTATION = "com.mastfrog.graal.annotation.ExposeMany";
     static final String EXPOSE_TYPES_ANNOTATION = "com.mastfrog.graal.annotation.ExposeAllMethods";
@@ -70,6 +89,37 @@ public final class GraalInjectionProcessor extends AbstractRegistrationAnnotatio
     static final String GUICE_MODULE_ANNOTATION = "com.mastfrog.acteur.annotations.GuiceModule";
 
     public static final String JAR_PATH_JSON_FILE = "META-INF/injection/reflective.json";
+    /**
+     * Lists, one per line, an injectable type and the generated factory
+     * which constructs it without reflection, separated by a space.
+     */
+    public static final String JAR_PATH_FACTORIES_FILE = "META-INF/injection/factories.list";
+    /**
+     * Processor option (or system property) which turns on generating a
+     * plain Java provider for each type whose only injection point is an
+     * &#064;Inject constructor.
+     */
+    public static final String GENERATE_FACTORIES_OPTION = "generateInjectionFactories";
+    static final String FACTORY_SUFFIX = "__InjectionFactory";
+    /**
+     * Graal resource configuration including settings defaults, namespace
+     * lists and the other indexes giulius reads from the classpath.
+     */
+    public static final String JAR_PATH_RESOURCE_CONFIG_FILE = "META-INF/injection/resource-config.json";
+    /**
+     * Points native-image at the reflection and resource configuration;
+     * identical in every JAR, so duplicates are harmless.
+     */
+    public static final String JAR_PATH_NATIVE_IMAGE_PROPERTIES = "META-INF/native-image/injection/native-image.properties";
+    /**
+     * Processor option which, if set to false, suppresses writing
+     * native-image.properties and the resource configuration.
+     */
+    public static final String NATIVE_IMAGE_CONFIG_OPTION = "nativeImageConfig";
+    private boolean sawElements;
+    private final Map<String, String> factories = new LinkedHashMap<>();
+    private final List<Element> factoryOrigins = new ArrayList<>();
+    private Boolean generateFactories;
 
     public GraalInjectionProcessor() {
         super(new GraalEntryIndexFactory());
@@ -91,6 +141,17 @@ public final class GraalInjectionProcessor extends AbstractRegistrationAnnotatio
         return verbose;
     }
 
+    boolean generateFactories() {
+        if (generateFactories == null) {
+            String val = processingEnv.getOptions().get(GENERATE_FACTORIES_OPTION);
+            if (val == null) {
+                val = System.getProperty(GENERATE_FACTORIES_OPTION);
+            }
+            generateFactories = "true".equals(val);
+        }
+        return generateFactories;
+    }
+
     private TypeMirror enclosingType(Element el) {
         while (!(el instanceof TypeElement) && el != null) {
             el = el.getEnclosingElement();
@@ -179,6 +240,7 @@ public final class GraalInjectionProcessor extends AbstractRegistrationAnnotatio
 
     @Override
     protected void handleOne(Element e, AnnotationMirror anno, int order, AnnotationUtils utils) {
+        sawElements = true;
         try {
             if (EXPOSE_TYPES_ANNOTATION.equals(anno.getAnnotationType().toString())) {
                 handleExposeTypesAnnotation(e, anno, utils);
@@ -244,6 +306,9 @@ public final class GraalInjectionProcessor extends AbstractRegistrationAnnotatio
                     String noteKey = e.getKind() == ElementKind.CONSTRUCTOR
                             ? "[reflective-constructor-access] " : "[reflective-method-access] ";
                     note(noteKey + methodOrConstructorEntry, e, anno);
+                    if (e.getKind() == ElementKind.CONSTRUCTOR && generateFactories()) {
+                        maybeGenerateFactory(ex, anno);
+                    }
                     break;
                 case FIELD:
                     if (!(e instanceof VariableElement)) {
@@ -267,4 +332,202 @@ public final class GraalInjectionProcessor extends AbstractRegistrationAnnotatio
             fail(inc.getMessage(), e, anno);
         }
     }
+
+    @Override
+    protected void onDone() {
+        if (sawElements && !"false".equals(processingEnv.getOptions().get(NATIVE_IMAGE_CONFIG_OPTION))) {
+            writeNativeImageConfig();
+        }
+        if (factories.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject out = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT,
+                    "", JAR_PATH_FACTORIES_FILE, factoryOrigins.toArray(new Element[factoryOrigins.size()]));
+            try (Writer w = out.openWriter()) {
+                for (Map.Entry<String, String> e : factories.entrySet()) {
+                    w.write(e.getKey() + " " + e.getValue() + "\n");
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + JAR_PATH_FACTORIES_FILE + ": " + ex);
+        }
+    }
+
+    private void writeNativeImageConfig() {
+        try {
+            FileObject resources = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT,
+                    "", JAR_PATH_RESOURCE_CONFIG_FILE);
+            try (Writer w = resources.openWriter()) {
+                w.write("{\"resources\":{\"includes\":[");
+                w.write("{\"pattern\":\"\\\\QMETA-INF/settings/\\\\E.*\"},");
+                w.write("{\"pattern\":\"\\\\QMETA-INF/injection/\\\\E.*\"}");
+                w.write("]}}\n");
+            }
+            FileObject props = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT,
+                    "", JAR_PATH_NATIVE_IMAGE_PROPERTIES);
+            try (Writer w = props.openWriter()) {
+                w.write("# Generated by " + GraalInjectionProcessor.class.getName() + "\n");
+                w.write("Args = -H:ReflectionConfigurationResources=" + JAR_PATH_JSON_FILE + " \\\n");
+                w.write("       -H:ResourceConfigurationResources=" + JAR_PATH_RESOURCE_CONFIG_FILE + "\n");
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write native-image configuration: " + ex);
+        }
+    }
+
+    private static boolean isInject(AnnotationMirror mir) {
+        String type = mir.getAnnotationType().toString();
+        return GUICE_INJECT_ANNOTATION.equals(type) || JAVAX_INJECT_ANNOTATION.equals(type);
+    }
+
+    private static boolean isQualifier(AnnotationMirror mir) {
+        for (AnnotationMirror meta : mir.getAnnotationType().asElement().getAnnotationMirrors()) {
+            String type = meta.getAnnotationType().toString();
+            if ("javax.inject.Qualifier".equals(type) || "com.google.inject.BindingAnnotation".equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determine if a type can be constructed by a generated factory - it must
+     * be a concrete, non-generic class the factory can see, with no injected
+     * fields or methods in it or its superclasses, since those would be
+     * skipped.
+     */
+    private boolean canGenerateFactory(TypeElement type, ExecutableElement constructor) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !type.getTypeParameters().isEmpty() || !constructor.getTypeParameters().isEmpty()
+                || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        for (Element outer = type; outer instanceof TypeElement; outer = outer.getEnclosingElement()) {
+            TypeElement te = (TypeElement) outer;
+            if (te.getModifiers().contains(Modifier.PRIVATE) || (te.getNestingKind() != NestingKind.TOP_LEVEL
+                    && (te.getNestingKind() != NestingKind.MEMBER || !te.getModifiers().contains(Modifier.STATIC)))) {
+                return false;
+            }
+        }
+        for (TypeElement t = type; t != null;) {
+            for (Element member : t.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.METHOD) {
+                    for (AnnotationMirror mir : member.getAnnotationMirrors()) {
+                        if (isInject(mir)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            TypeMirror sup = t.getSuperclass();
+            t = sup.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) sup).asElement() : null;
+        }
+        return true;
+    }
+
+    private void maybeGenerateFactory(ExecutableElement constructor, AnnotationMirror anno) {
+        TypeElement type = (TypeElement) constructor.getEnclosingElement();
+        if (type.getSimpleName().toString().endsWith(FACTORY_SUFFIX)) {
+            // one we generated in an earlier round
+            return;
+        }
+        if (!canGenerateFactory(type, constructor)) {
+            note("[no-factory] " + type, constructor, anno);
+            return;
+        }
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String pkgName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String simpleName = (pkgName.isEmpty() ? typeName : typeName.substring(pkgName.length() + 1))
+                .replace('.', '_') + FACTORY_SUFFIX;
+        String factoryName = pkgName.isEmpty() ? simpleName : pkgName + "." + simpleName;
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (factories.containsKey(binaryName)) {
+            return;
+        }
+        StringBuilder fields = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        StringBuilder args = new StringBuilder();
+        List<? extends VariableElement> ps = constructor.getParameters();
+        for (int i = 0; i < ps.size(); i++) {
+            VariableElement p = ps.get(i);
+            TypeMirror pt = p.asType();
+            String name = "p" + i;
+            boolean isProvider = false;
+            String injectedType;
+            if (pt.getKind().isPrimitive()) {
+                injectedType = "javax.inject.Provider<" + processingEnv.getTypeUtils()
+                        .boxedClass((PrimitiveType) pt).getQualifiedName() + ">";
+            } else {
+                String erasure = processingEnv.getTypeUtils().erasure(pt).toString();
+                isProvider = "javax.inject.Provider".equals(erasure)
+                        || "com.google.inject.Provider".equals(erasure);
+                injectedType = isProvider ? pt.toString() : "javax.inject.Provider<" + pt + ">";
+            }
+            fields.append("    private final ").append(injectedType).append(' ').append(name).append(";\n");
+            if (i > 0) {
+                params.append(", ");
+                args.append(", ");
+            }
+            for (AnnotationMirror mir : p.getAnnotationMirrors()) {
+                if (isQualifier(mir)) {
+                    params.append(mir).append(' ');
+                }
+            }
+            params.append(injectedType).append(' ').append(name);
+            assignments.append("        this.").append(name).append(" = ").append(name).append(";\n");
+            args.append(name).append(isProvider ? "" : ".get()");
+        }
+        boolean throwsChecked = !constructor.getThrownTypes().isEmpty();
+        try {
+            try (PrintWriter w = new PrintWriter(processingEnv.getFiler()
+                    .createSourceFile(factoryName, type).openWriter())) {
+                if (!pkgName.isEmpty()) {
+                    w.println("package " + pkgName + ";");
+                    w.println();
+                }
+                w.println("/**");
+                w.println(" * Constructs " + typeName);
+                w.println(" * without reflection; generated by");
+                w.println(" * " + GraalInjectionProcessor.class.getName() + ".");
+                w.println(" */");
+                // Constructors may take deprecated or raw types; that is not
+                // the user's code to warn about
+                w.println("@SuppressWarnings({\"deprecation\", \"unchecked\", \"rawtypes\"})");
+                w.println("public final class " + simpleName + " implements javax.inject.Provider<" + typeName + "> {");
+                w.println();
+                w.print(fields);
+                w.println();
+                w.println("    @javax.inject.Inject");
+                w.println("    public " + simpleName + "(" + params + ") {");
+                w.print(assignments);
+                w.println("    }");
+                w.println();
+                w.println("    @Override");
+                w.println("    public " + typeName + " get() {");
+                if (throwsChecked) {
+                    w.println("        try {");
+                    w.println("            return new " + typeName + "(" + args + ");");
+                    w.println("        } catch (RuntimeException | Error e) {");
+                    w.println("            throw e;");
+                    w.println("        } catch (Exception e) {");
+                    w.println("            throw new java.lang.reflect.UndeclaredThrowableException(e);");
+                    w.println("        }");
+                } else {
+                    w.println("        return new " + typeName + "(" + args + ");");
+                }
+                w.println("    }");
+                w.println("}");
+            }
+            factories.put(binaryName, pkgName.isEmpty() ? simpleName : pkgName + "." + simpleName);
+            factoryOrigins.add(type);
+            note("[injection-factory] " + factoryName, constructor, anno);
+        } catch (IOException ex) {
+            fail("Could not generate " + factoryName + ": " + ex, constructor, anno);
+        }
+    }
 }
@@ -24,16 +24,31 @@
 package com.mastfrog.graal.injection.processor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import static com.mastfrog.util.collections.CollectionUtils.map;
 import com.mastfrog.util.collections.StringObjectMap;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.BufferedReader;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 /**
@@ -67,4 +82,77 @@ public class GraalInjectionProcessorTest {
 //        assertEquals(setOf(expect), setOf(got));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGeneratedFactories() throws Exception {
+        InputStream in = GraalInjectionProcessorTest.class.getResourceAsStream("/META-INF/injection/factories.list");
+        assertNotNull("/META-INF/injection/factories.list was not generated", in);
+        List<String> lines;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+            lines = r.lines().collect(Collectors.toList());
+        }
+        assertTrue(lines.toString(), lines.contains(InjectableTwo.class.getName() + " "
+                + InjectableTwo.class.getName() + "__InjectionFactory"));
+        assertTrue(lines.toString(), lines.contains(Greeter.class.getName() + " "
+                + GraalInjectionProcessorTest.class.getName() + "_Greeter__InjectionFactory"));
+        for (String line : lines) {
+            assertFalse("Has field injection, but got a factory: " + line,
+                    line.startsWith(InjectableOne.class.getName() + " "));
+        }
+        InjectableOne one = new InjectableOne("x");
+        Injector inj = Guice.createInjector(binder -> {
+            binder.bind(Properties.class).toInstance(new Properties());
+            binder.bind(InjectableOne.class).toInstance(one);
+            binder.bind(String.class).annotatedWith(Names.named("greeting")).toInstance("hello");
+            binder.bind(int.class).toInstance(3);
+        });
+        Class<?> twoFactory = Class.forName(InjectableTwo.class.getName() + "__InjectionFactory");
+        assertTrue(((Provider<?>) inj.getInstance(twoFactory)).get() instanceof InjectableTwo);
+
+        Class<?> greeterFactory = Class.forName(GraalInjectionProcessorTest.class.getName() + "_Greeter__InjectionFactory");
+        Greeter greeter = ((Provider<Greeter>) inj.getInstance(greeterFactory)).get();
+        assertEquals("hello", greeter.greeting);
+        assertEquals(3, greeter.count);
+        assertSame(one, greeter.one.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNativeImageConfig() throws Exception {
+        InputStream in = GraalInjectionProcessorTest.class.getResourceAsStream("/META-INF/injection/resource-config.json");
+        assertNotNull("/META-INF/injection/resource-config.json was not generated", in);
+        Map<String, Object> config;
+        try {
+            config = new ObjectMapper().readValue(in, Map.class);
+        } finally {
+            in.close();
+        }
+        String patterns = String.valueOf(config.get("resources"));
+        assertTrue(patterns, patterns.contains("META-INF/settings/"));
+        assertTrue(patterns, patterns.contains("META-INF/injection/"));
+
+        Properties props = new Properties();
+        try (InputStream nip = GraalInjectionProcessorTest.class.getResourceAsStream("/META-INF/native-image/injection/native-image.properties")) {
+            assertNotNull("native-image.properties was not generated", nip);
+            props.load(nip);
+        }
+        String args = props.getProperty("Args");
+        assertNotNull(args);
+        assertTrue(args, args.contains("-H:ReflectionConfigurationResources=META-INF/injection/reflective.json"));
+        assertTrue(args, args.contains("-H:ResourceConfigurationResources=META-INF/injection/resource-config.json"));
+    }
+
+    static final class Greeter {
+
+        final String greeting;
+        final int count;
+        final Provider<InjectableOne> one;
+
+        @Inject
+        Greeter(@Named("greeting") String greeting, int count, Provider<InjectableOne> one) {
+            this.greeting = greeting;
+            this.count = count;
+            this.one = one;
+        }
+    }
 }
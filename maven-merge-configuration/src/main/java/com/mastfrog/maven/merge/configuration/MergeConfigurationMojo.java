@@ -207,6 +207,14 @@ public class MergeConfigurationMojo extends AbstractMojo {
     @Parameter(property = "manifestEntries")
     private Properties manifestEntries;
 
+    /**
+     * Write java argument files next to the merged JAR for an AppCDS training
+     * run (<code>java &#064;name.cds-train</code>) and for running with the
+     * resulting archive (<code>java &#064;name.cds</code>).
+     */
+    @Parameter(property = "cds", defaultValue = "false")
+    private boolean cds;
+
     @Parameter(property = "merge.configuration.verbose", defaultValue = "false")
     private boolean verbose;
 
@@ -351,6 +359,9 @@ public class MergeConfigurationMojo extends AbstractMojo {
         if (zerodates) {
             bldr.zeroDates();
         }
+        if (cds) {
+            bldr.cdsArgumentFiles();
+        }
         if (!enableFilters.isEmpty()) {
             bldr.enable(enableFilters);
         }
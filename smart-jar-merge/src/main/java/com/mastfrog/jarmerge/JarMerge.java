@@ -34,6 +34,8 @@ import com.mastfrog.settings.Settings;
 import static com.mastfrog.util.preconditions.Checks.notNull;
 import com.mastfrog.util.strings.AlignedText;
 import com.mastfrog.util.strings.Strings;
+import java.io.IOException;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -80,6 +82,7 @@ public class JarMerge implements ThrowingRunnable {
     public final boolean verbose;
     public final Map<String, String> manifestEntries;
     public final Map<String, String> extensionProperties;
+    public final boolean cdsArgumentFiles;
     private final TriFunction<String, Phase, JarMerge, MergeLog> logFactory;
     private ClassNameRewriter rewriter;
 
@@ -88,10 +91,10 @@ public class JarMerge implements ThrowingRunnable {
             boolean generateIndex, Set<Path> jars, boolean exitOnError,
             boolean dryRun, int compressionLevel, String mainClass,
             String excludePatterns, boolean zerodates, boolean verbose,
-            TriFunction<String, Phase, JarMerge, MergeLog> logFactory) {
+            TriFunction<String, Phase, JarMerge, MergeLog> logFactory, boolean cdsArgumentFiles) {
         this(jarName, excludePatterns, exclude, filters, generateIndex, jars,
                 exitOnError, dryRun, compressionLevel, mainClass, excludePatterns,
-                zerodates, verbose, logFactory, emptyMap(), emptyMap());
+                zerodates, verbose, logFactory, emptyMap(), emptyMap(), cdsArgumentFiles);
     }
 
     private JarMerge(String jarName, String excludePaths, String exclude,
@@ -99,7 +102,8 @@ public class JarMerge implements ThrowingRunnable {
             boolean exitOnError, boolean dryRun, int compressionLevel,
             String mainClass, String excludePatterns, boolean zerodates,
             boolean verbose, TriFunction<String, Phase, JarMerge, MergeLog> logFactory,
-            Map<String, String> extensionProperties, Map<String, String> manifestEntries) {
+            Map<String, String> extensionProperties, Map<String, String> manifestEntries,
+            boolean cdsArgumentFiles) {
         this.jarName = outputJarName(jarName, jars);
         this.logFactory = logFactory;
         Set<String> prefixen = new HashSet<>();
@@ -118,6 +122,7 @@ public class JarMerge implements ThrowingRunnable {
         this.verbose = verbose;
         this.manifestEntries = unmodifiableMap(manifestEntries);
         this.extensionProperties = unmodifiableMap(extensionProperties);
+        this.cdsArgumentFiles = cdsArgumentFiles;
     }
 
     public ClassNameRewriter rewriter() {
@@ -212,9 +217,47 @@ public class JarMerge implements ThrowingRunnable {
             for (Phase mode : phases) {
                 prev = run(mode, prev);
             }
+            if (!dryRun && cdsArgumentFiles) {
+                writeCdsArgumentFiles(output);
+            }
         });
     }
 
+    /**
+     * Write java launcher argument files next to the output JAR for an AppCDS
+     * training run (which archives the classes it loaded on exit - Giulius'
+     * Dependencies exits after instantiating everything bound when
+     * <code>giulius.cds.training</code> is set) and for production runs which
+     * use the resulting archive, so the JAR and its archive ship together:
+     * <pre>
+     * java &#064;app-standalone.cds-train
+     * java &#064;app-standalone.cds
+     * </pre>
+     * Paths are relative to the JAR's directory. The archive is only valid for
+     * the exact JAR it was created from, so it must be regenerated whenever
+     * the JAR is.
+     *
+     * @param jar The output JAR
+     * @return The argument files written
+     * @throws IOException If something goes wrong
+     */
+    List<Path> writeCdsArgumentFiles(Path jar) throws IOException {
+        String jarFile = jar.getFileName().toString();
+        String base = jarFile.endsWith(".jar")
+                ? jarFile.substring(0, jarFile.length() - 4) : jarFile;
+        Path dir = jar.toAbsolutePath().getParent();
+        Path train = dir.resolve(base + ".cds-train");
+        Path run = dir.resolve(base + ".cds");
+        Files.write(train, Arrays.asList(
+                "-XX:ArchiveClassesAtExit=" + base + ".jsa",
+                "-D" + CDS_TRAINING_PROPERTY + "=true",
+                "-jar", jarFile), UTF_8);
+        Files.write(run, Arrays.asList(
+                "-XX:SharedArchiveFile=" + base + ".jsa",
+                "-jar", jarFile), UTF_8);
+        return Arrays.asList(train, run);
+    }
+
     private PhaseRunner.PhaseOutput run(Phase phase, PhaseOutput prevPhaseOut) throws Exception {
         return new PhaseRunner(phase, this, prevPhaseOut, logFactory).run();
     }
@@ -276,6 +319,7 @@ public class JarMerge implements ThrowingRunnable {
                 .add(ARG_VERBOSE_LOGGING, false)
                 .add(ARG_ENABLED_FILTERS, false)
                 .add(ARG_HELP, false)
+                .add(ARG_CDS, false)
                 .parseCommandLineArguments(subArgs).build();
 
         boolean reallyExit = !s.getBoolean(ARG_DONT_EXIT);
@@ -315,7 +359,7 @@ public class JarMerge implements ThrowingRunnable {
                 filters, s.getBoolean(ARG_GENERATE_INDEX), jars, !s.getBoolean(ARG_DONT_EXIT),
                 s.getBoolean(ARG_DRY_RUN_ONLY), s.getInt(ARG_COMPRESSION_LEVEL), s.getString(ARG_MAIN_CLASS),
                 s.getString(ARG_EXCLUDE_PATTERNS), s.getBoolean(ARG_ZERO_OUT_DATES),
-                s.getBoolean(ARG_VERBOSE_LOGGING), MergeLog::stdout);
+                s.getBoolean(ARG_VERBOSE_LOGGING), MergeLog::stdout, s.getBoolean(ARG_CDS));
 
         if (s.getBoolean(ARG_LIST_FILTERS)) {
             listFiltersAndMaybeExit("Available Filters", installedJarFilters(), reallyExit);
@@ -345,6 +389,8 @@ public class JarMerge implements ThrowingRunnable {
     public static final String ARG_EXCLUDE = "exclude";
     public static final String ARG_OUTPUT = "output";
     public static final String ARG_HELP = "help";
+    public static final String ARG_CDS = "cds";
+    static final String CDS_TRAINING_PROPERTY = "giulius.cds.training";
     private static final String HELP_HEAD
             = "Smart JAR Merge\n"
             + "===============\n\n"
@@ -362,7 +408,8 @@ public class JarMerge implements ThrowingRunnable {
             + " * License files of various common naming conventions\n"
             + " * Jar signature files, which would be incorrect in a merged JAR, are removed\n"
             + " * Optionally write the archive with all files using the Unix epoch (1/1/1970 00:00:00) as the timestamp\n"
-            + " * Remove module-info.class files in the default package which would be incorrect in a merged JAR\n\n"
+            + " * Remove module-info.class files in the default package which would be incorrect in a merged JAR\n"
+            + " * Optionally write java argument files for training and using an AppCDS archive of the merged JAR\n\n"
             + "Nearly all of the above are optional, and can be enabled or disabled using --enable or --disable - see "
             + "\nthe filters list below for possible arguments to pass for those."
             + "\n\nUsage:\n======\n\n  java -jar simple-jar-merge.jar --index --enable omit-module-info,merge-license-files \\"
@@ -383,7 +430,7 @@ public class JarMerge implements ThrowingRunnable {
         ARG_GENERATE_INDEX, ARG_COMPRESSION_LEVEL,
         ARG_ZERO_OUT_DATES,
         ARG_EXCLUDE_PATTERNS, ARG_EXCLUDEPATHS, ARG_EXCLUDE,
-        ARG_DRY_RUN_ONLY,
+        ARG_DRY_RUN_ONLY, ARG_CDS,
         ARG_LIST_FILTERS, ARG_DONT_EXIT
     };
 
@@ -440,6 +487,9 @@ public class JarMerge implements ThrowingRunnable {
                         + " the main class will be that of the first JAR passed on the command line, if any)";
             case ARG_EXCLUDE_PATTERNS:
                 return "Exclude files from the resulting JAR file using glob-style paths, e.g. foo/**bar/Whatever*.class";
+            case ARG_CDS:
+                return "Write java argument files next to the output JAR for an AppCDS training run "
+                        + "(java @name.cds-train) and for running with the resulting archive (java @name.cds)";
             case ARG_OUTPUT:
                 return "Specify the path to the output JAR (if unspecified, it will be the name of the first JAR"
                         + " passed on the command-line with -standalone interpolated before the file extension)";
@@ -579,7 +629,8 @@ public class JarMerge implements ThrowingRunnable {
                 + generateIndex + ", exitOnError=" + exitOnError + ", dryRun=" + dryRun
                 + ", jars=" + jars + ", compressionLevel=" + compressionLevel
                 + ", mainClass=" + mainClass + ", excludePatterns=" + excludePatterns
-                + ", zerodates=" + zerodates + ", verbose=" + verbose + ", logFactory="
+                + ", zerodates=" + zerodates + ", verbose=" + verbose
+                + ", cdsArgumentFiles=" + cdsArgumentFiles + ", logFactory="
                 + logFactory + '}';
     }
 
@@ -597,6 +648,7 @@ public class JarMerge implements ThrowingRunnable {
         private int compressionLevel = 9;
         private boolean zeroDates;
         private boolean verbose;
+        private boolean cds;
         private TriFunction<String, Phase, JarMerge, MergeLog> logFactory
                 = MergeLog::stdout;
 
@@ -620,7 +672,8 @@ public class JarMerge implements ThrowingRunnable {
             Set<JarFilter<?>> finalFilters = new HashSet<>(filters);
             JarMerge result = new JarMerge(jarName, excludePaths, exclude, finalFilters,
                     index, jars, exitOnError, dryRun, compressionLevel, mainClass,
-                    excludePatterns, zeroDates, verbose, logFactory, extensionProperties, manifestEntries);
+                    excludePatterns, zeroDates, verbose, logFactory, extensionProperties, manifestEntries,
+                    cds);
 
             if (loadFromClasspath) {
                 loadFromClasspath(result, includedFilters, finalFilters, omittedFilters);
@@ -660,6 +713,17 @@ public class JarMerge implements ThrowingRunnable {
             return this;
         }
 
+        /**
+         * Write argument files for an AppCDS training run and for running
+         * with the resulting archive next to the output JAR.
+         *
+         * @return this
+         */
+        public Builder cdsArgumentFiles() {
+            cds = true;
+            return this;
+        }
+
         public Builder excludePattern(String globPattern) {
             if (excludePatterns.length() == 0) {
                 excludePatterns = globPattern;
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Mastfrog Technologies.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.mastfrog.jarmerge;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class JarMergeTest {
+
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("jarmerge");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> all = Files.walk(dir)) {
+            all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCdsArgumentFiles() throws Exception {
+        Path input = dir.resolve("input.jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (OutputStream out = Files.newOutputStream(input);
+                JarOutputStream jar = new JarOutputStream(out, manifest)) {
+            jar.putNextEntry(new JarEntry("com/example/hello.txt"));
+            jar.write("hello".getBytes(UTF_8));
+            jar.closeEntry();
+        }
+        Path output = dir.resolve("app-standalone.jar");
+        JarMerge.builder()
+                .addJar(input)
+                .noSystemExitOnError()
+                .withMainClass("com.example.Main")
+                .cdsArgumentFiles()
+                .finalJarName(output.toString())
+                .run();
+        assertTrue(Files.exists(output));
+
+        Path train = dir.resolve("app-standalone.cds-train");
+        Path run = dir.resolve("app-standalone.cds");
+        assertTrue(Files.exists(train));
+        assertTrue(Files.exists(run));
+        List<String> trainArgs = Files.readAllLines(train, UTF_8);
+        List<String> runArgs = Files.readAllLines(run, UTF_8);
+        assertEquals(Arrays.asList("-XX:ArchiveClassesAtExit=app-standalone.jsa",
+                "-D" + JarMerge.CDS_TRAINING_PROPERTY + "=true",
+                "-jar", "app-standalone.jar"), trainArgs);
+        assertEquals(Arrays.asList("-XX:SharedArchiveFile=app-standalone.jsa",
+                "-jar", "app-standalone.jar"), runArgs);
+    }
+
+    @Test
+    public void testNoCdsArgumentFilesByDefault() throws Exception {
+        Path input = dir.resolve("input.jar");
+        try (OutputStream out = Files.newOutputStream(input);
+                JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new JarEntry("hello.txt"));
+            jar.write("hello".getBytes(UTF_8));
+            jar.closeEntry();
+        }
+        Path output = dir.resolve("plain.jar");
+        JarMerge.builder()
+                .addJar(input)
+                .noSystemExitOnError()
+                .finalJarName(output.toString())
+                .run();
+        assertTrue(Files.exists(output));
+        assertTrue(!Files.exists(dir.resolve("plain.cds")));
+        assertTrue(!Files.exists(dir.resolve("plain.cds-train")));
+    }
+}